@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
         "com.familyvault.api",
@@ -11,6 +12,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 })
 @EntityScan(basePackages = "com.familyvault.infrastructure.persistence.entity")
 @EnableJpaRepositories(basePackages = "com.familyvault.infrastructure.persistence.repository")
+@EnableScheduling
 public class FamilyVaultApplication {
 
     public static void main(String[] args) {
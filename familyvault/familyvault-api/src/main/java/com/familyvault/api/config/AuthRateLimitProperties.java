@@ -0,0 +1,41 @@
+package com.familyvault.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Rate limits for the public authentication endpoints, keyed by endpoint name
+ * ({@code login}, {@code register}, {@code refresh}). {@code maxKeys} caps the IP and the
+ * email bucket tables separately.
+ */
+@ConfigurationProperties(prefix = "security.rate-limit")
+public record AuthRateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("100000") int maxKeys,
+        Map<String, EndpointLimit> endpoints
+) {
+
+    public AuthRateLimitProperties {
+        endpoints = endpoints != null ? Map.copyOf(endpoints) : Map.of();
+    }
+
+    /**
+     * Token bucket settings for one endpoint. A zero capacity disables that key.
+     *
+     * @param ipCapacity        burst size per client IP
+     * @param ipPerMinute       sustained requests per minute per client IP
+     * @param emailCapacity     burst size per normalized email
+     * @param emailPerMinute    sustained requests per minute per normalized email
+     */
+    public record EndpointLimit(
+            @DefaultValue("0") int ipCapacity,
+            @DefaultValue("0") int ipPerMinute,
+            @DefaultValue("0") int emailCapacity,
+            @DefaultValue("0") int emailPerMinute
+    ) {
+    }
+}
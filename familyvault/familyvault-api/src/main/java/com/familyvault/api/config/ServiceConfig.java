@@ -1,16 +1,28 @@
 package com.familyvault.api.config;
 
+import com.familyvault.core.application.port.out.media.ThumbnailGenerationPort;
 import com.familyvault.core.application.port.out.persistence.FamilyRepository;
 import com.familyvault.core.application.port.out.persistence.FileRepository;
+import com.familyvault.core.application.port.out.persistence.StorageQuotaRepository;
+import com.familyvault.core.application.port.out.persistence.UploadSessionRepository;
 import com.familyvault.core.application.port.out.persistence.UserRepository;
+import com.familyvault.core.application.port.out.security.LoginAttemptStore;
+import com.familyvault.core.application.port.out.security.MembershipClaimsPort;
 import com.familyvault.core.application.port.out.security.PasswordEncoderPort;
 import com.familyvault.core.application.port.out.security.TokenPort;
 import com.familyvault.core.application.port.out.storage.FileStoragePort;
 import com.familyvault.core.application.service.auth.AuthService;
 import com.familyvault.core.application.service.family.FamilyService;
 import com.familyvault.core.application.service.file.FileService;
+import com.familyvault.infrastructure.persistence.adapter.CachingFamilyRepository;
+import com.familyvault.infrastructure.persistence.adapter.FamilyRepositoryAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
 
 /**
  * Configuration for wiring up application services.
@@ -19,29 +31,53 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ServiceConfig {
 
+    /**
+     * Membership checks run on nearly every family and file request, so services get the
+     * caching decorator rather than the JPA adapter itself.
+     */
+    @Bean
+    @Primary
+    public FamilyRepository cachingFamilyRepository(
+            FamilyRepositoryAdapter familyRepositoryAdapter,
+            MeterRegistry meterRegistry,
+            @Value("${cache.family-members.ttl:60s}") Duration ttl,
+            @Value("${cache.family-members.negative-ttl:5s}") Duration negativeTtl,
+            @Value("${cache.family-members.max-size:100000}") int maxSize
+    ) {
+        return new CachingFamilyRepository(familyRepositoryAdapter, meterRegistry, ttl, negativeTtl, maxSize);
+    }
+
     @Bean
     public AuthService authService(
             UserRepository userRepository,
             PasswordEncoderPort passwordEncoder,
-            TokenPort tokenPort
+            TokenPort tokenPort,
+            LoginAttemptStore loginAttemptStore,
+            FamilyRepository familyRepository
     ) {
-        return new AuthService(userRepository, passwordEncoder, tokenPort);
+        return new AuthService(userRepository, passwordEncoder, tokenPort, loginAttemptStore, familyRepository);
     }
 
     @Bean
     public FileService fileService(
             FileRepository fileRepository,
             FamilyRepository familyRepository,
-            FileStoragePort fileStorage
+            FileStoragePort fileStorage,
+            MembershipClaimsPort membershipClaims,
+            StorageQuotaRepository storageQuotaRepository,
+            UploadSessionRepository uploadSessionRepository,
+            ThumbnailGenerationPort thumbnailGeneration
     ) {
-        return new FileService(fileRepository, familyRepository, fileStorage);
+        return new FileService(fileRepository, familyRepository, fileStorage, membershipClaims,
+                storageQuotaRepository, uploadSessionRepository, thumbnailGeneration);
     }
 
     @Bean
     public FamilyService familyService(
             FamilyRepository familyRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            MembershipClaimsPort membershipClaims
     ) {
-        return new FamilyService(familyRepository, userRepository);
+        return new FamilyService(familyRepository, userRepository, membershipClaims);
     }
 }
@@ -1,10 +1,20 @@
 package com.familyvault.api.controller;
 
 import com.familyvault.api.security.CurrentUser;
+import com.familyvault.core.application.dto.request.ConfirmBatchUploadRequest;
+import com.familyvault.core.application.dto.request.InitiateBatchUploadRequest;
 import com.familyvault.core.application.dto.request.InitiateUploadRequest;
+import com.familyvault.core.application.dto.request.PresignPartsRequest;
+import com.familyvault.core.application.dto.response.BatchConfirmUploadResponse;
+import com.familyvault.core.application.dto.response.BatchUploadUrlResponse;
+import com.familyvault.core.application.dto.response.FilePageResponse;
 import com.familyvault.core.application.dto.response.FileResponse;
+import com.familyvault.core.application.dto.response.MultipartUploadResponse;
+import com.familyvault.core.application.dto.response.PartUrlsResponse;
 import com.familyvault.core.application.dto.response.UploadUrlResponse;
+import com.familyvault.core.application.dto.response.UploadedPartsResponse;
 import com.familyvault.core.application.service.file.FileService;
+import com.familyvault.core.domain.model.file.FileSort;
 import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.core.domain.model.user.UserId;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,7 +24,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -36,6 +45,16 @@ public class FileController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/upload/initiate-batch")
+    @Operation(summary = "Initiate batch upload", description = "Get presigned URLs for uploading several files into one family")
+    public ResponseEntity<BatchUploadUrlResponse> initiateUploads(
+            @Valid @RequestBody InitiateBatchUploadRequest request,
+            @CurrentUser UserId currentUser
+    ) {
+        BatchUploadUrlResponse response = fileService.initiateUploads(request, currentUser);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/upload/{fileId}/confirm")
     @Operation(summary = "Confirm upload", description = "Confirm that file upload is complete")
     public ResponseEntity<FileResponse> confirmUpload(
@@ -46,6 +65,67 @@ public class FileController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/upload/confirm-batch")
+    @Operation(summary = "Confirm batch upload", description = "Confirm that several file uploads are complete")
+    public ResponseEntity<BatchConfirmUploadResponse> confirmUploads(
+            @Valid @RequestBody ConfirmBatchUploadRequest request,
+            @CurrentUser UserId currentUser
+    ) {
+        BatchConfirmUploadResponse response = fileService.confirmUploads(request, currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/upload/multipart/initiate")
+    @Operation(summary = "Initiate multipart upload", description = "Start a resumable upload sent in parts")
+    public ResponseEntity<MultipartUploadResponse> initiateMultipartUpload(
+            @Valid @RequestBody InitiateUploadRequest request,
+            @CurrentUser UserId currentUser
+    ) {
+        MultipartUploadResponse response = fileService.initiateMultipartUpload(request, currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/upload/{fileId}/parts/urls")
+    @Operation(summary = "Get part upload URLs", description = "Get presigned URLs for uploading parts of a multipart upload")
+    public ResponseEntity<PartUrlsResponse> getUploadPartUrls(
+            @PathVariable UUID fileId,
+            @Valid @RequestBody PresignPartsRequest request,
+            @CurrentUser UserId currentUser
+    ) {
+        PartUrlsResponse response = fileService.getUploadPartUrls(fileId, request, currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/upload/{fileId}/parts")
+    @Operation(summary = "List uploaded parts", description = "List the parts received so far, to resume a multipart upload")
+    public ResponseEntity<UploadedPartsResponse> getUploadedParts(
+            @PathVariable UUID fileId,
+            @CurrentUser UserId currentUser
+    ) {
+        UploadedPartsResponse response = fileService.getUploadedParts(fileId, currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/upload/{fileId}/complete")
+    @Operation(summary = "Complete multipart upload", description = "Assemble the uploaded parts into the file")
+    public ResponseEntity<FileResponse> completeMultipartUpload(
+            @PathVariable UUID fileId,
+            @CurrentUser UserId currentUser
+    ) {
+        FileResponse response = fileService.completeMultipartUpload(fileId, currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/upload/{fileId}")
+    @Operation(summary = "Abort multipart upload", description = "Abort a multipart upload and discard its parts")
+    public ResponseEntity<Void> abortMultipartUpload(
+            @PathVariable UUID fileId,
+            @CurrentUser UserId currentUser
+    ) {
+        fileService.abortMultipartUpload(fileId, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/{fileId}/download-url")
     @Operation(summary = "Get download URL", description = "Get a presigned URL for downloading a file")
     public ResponseEntity<Map<String, String>> getDownloadUrl(
@@ -67,17 +147,18 @@ public class FileController {
     }
 
     @GetMapping
-    @Operation(summary = "List files", description = "List files in a family with optional filters")
-    public ResponseEntity<List<FileResponse>> listFiles(
+    @Operation(summary = "List files", description = "List files in a family with optional filters, one page per cursor")
+    public ResponseEntity<FilePageResponse> listFiles(
             @RequestParam UUID familyId,
             @RequestParam(required = false) UUID folderId,
             @RequestParam(required = false) FileType type,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "CREATED") FileSort sort,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size,
             @CurrentUser UserId currentUser
     ) {
-        List<FileResponse> files = fileService.listFiles(familyId, folderId, type, page, size, currentUser);
-        return ResponseEntity.ok(files);
+        FilePageResponse page = fileService.listFiles(familyId, folderId, type, sort, cursor, size, currentUser);
+        return ResponseEntity.ok(page);
     }
 
     @DeleteMapping("/{fileId}")
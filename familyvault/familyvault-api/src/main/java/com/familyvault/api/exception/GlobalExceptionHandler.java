@@ -2,6 +2,7 @@ package com.familyvault.api.exception;
 
 import com.familyvault.core.application.exception.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -86,6 +87,16 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleUploadSessionNotFound(UploadSessionNotFoundException ex) {
+        return buildErrorResponse(ex, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(MultipartUploadInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleMultipartUploadInProgress(MultipartUploadInProgressException ex) {
+        return buildErrorResponse(ex, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(StorageQuotaExceededException.class)
     public ResponseEntity<ErrorResponse> handleStorageQuota(StorageQuotaExceededException ex) {
         Map<String, String> details = new HashMap<>();
@@ -102,6 +113,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloaded(ServiceOverloadedException ex) {
+        ErrorResponse response = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                null,
+                Instant.now()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(response);
+    }
+
     @ExceptionHandler(ApplicationException.class)
     public ResponseEntity<ErrorResponse> handleApplicationException(ApplicationException ex) {
         return buildErrorResponse(ex, HttpStatus.BAD_REQUEST);
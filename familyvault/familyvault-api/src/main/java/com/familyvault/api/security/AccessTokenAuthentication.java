@@ -0,0 +1,33 @@
+package com.familyvault.api.security;
+
+import com.familyvault.core.application.port.out.security.TokenPort.MembershipClaims;
+import com.familyvault.core.domain.model.user.UserId;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Authentication built from a verified access token. The principal stays a {@link UserId};
+ * the family memberships claimed by the token ride along for {@link TokenMembershipClaims}.
+ */
+public class AccessTokenAuthentication extends UsernamePasswordAuthenticationToken {
+
+    private final transient MembershipClaims memberships;
+
+    public AccessTokenAuthentication(
+            UserId userId,
+            MembershipClaims memberships,
+            Collection<? extends GrantedAuthority> authorities
+    ) {
+        super(userId, null, authorities);
+        this.memberships = memberships;
+    }
+
+    /**
+     * Memberships embedded in the token, or null if it carries none.
+     */
+    public MembershipClaims getMemberships() {
+        return memberships;
+    }
+}
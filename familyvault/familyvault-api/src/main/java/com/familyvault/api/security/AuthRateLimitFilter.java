@@ -0,0 +1,305 @@
+package com.familyvault.api.security;
+
+import com.familyvault.api.config.AuthRateLimitProperties;
+import com.familyvault.api.exception.GlobalExceptionHandler.ErrorResponse;
+import com.familyvault.core.domain.model.user.Email;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects excess requests to the public auth endpoints before any hashing or database work.
+ * <p>
+ * Buckets are keyed by client IP and, for login and register, by normalized email. Each
+ * bucket is a GCRA token bucket stored in a single {@link AtomicLong}, so checks never
+ * block. Buckets that have fully refilled are indistinguishable from new ones and are
+ * dropped by a periodic sweep. IP and email buckets live in separate tables, each capped at
+ * {@code max-keys}, so spraying random emails can't crowd out the per-IP limits.
+ */
+@Slf4j
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PATH_PREFIX = "/api/v1/auth/";
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final AuthRateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> emailBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    public AuthRateLimitFilter(AuthRateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeMapSize("auth.ratelimit.buckets", Tags.of("key", "ip"), ipBuckets);
+        meterRegistry.gaugeMapSize("auth.ratelimit.buckets", Tags.of("key", "email"), emailBuckets);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled()
+                || !"POST".equals(request.getMethod())
+                || endpointLimit(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String endpoint = endpointName(request);
+        AuthRateLimitProperties.EndpointLimit limit = endpointLimit(request);
+        long now = System.nanoTime();
+
+        long waitNanos = tryAcquire(ipBuckets, endpoint + ":" + request.getRemoteAddr(),
+                limit.ipCapacity(), limit.ipPerMinute(), now);
+        if (waitNanos > 0) {
+            reject(response, endpoint, "ip", waitNanos);
+            return;
+        }
+
+        HttpServletRequest chainRequest = request;
+        if (limit.emailCapacity() > 0 && limit.emailPerMinute() > 0) {
+            CachedBodyRequest cached = CachedBodyRequest.of(request);
+            chainRequest = cached;
+
+            String email = cached.isComplete() ? extractEmail(cached.body) : null;
+            if (email != null) {
+                waitNanos = tryAcquire(emailBuckets, endpoint + ":" + email,
+                        limit.emailCapacity(), limit.emailPerMinute(), now);
+                if (waitNanos > 0) {
+                    reject(response, endpoint, "email", waitNanos);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(chainRequest, response);
+    }
+
+    /**
+     * Drop buckets that have refilled completely; recreating them later gives the same result.
+     */
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval:60s}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        long idleNanos = properties.idleTimeout().toNanos();
+        ipBuckets.values().removeIf(bucket -> now - bucket.theoreticalArrival.get() > idleNanos);
+        emailBuckets.values().removeIf(bucket -> now - bucket.theoreticalArrival.get() > idleNanos);
+    }
+
+    /**
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it would be allowed
+     */
+    private long tryAcquire(Map<String, Bucket> buckets, String key, int capacity, int perMinute, long now) {
+        if (capacity <= 0 || perMinute <= 0) {
+            return 0;
+        }
+
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.maxKeys()) {
+                // Fail open rather than grow without bound under a key-spraying attack
+                log.debug("Rate limit table full, not tracking {}", key);
+                return 0;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(now));
+        }
+
+        long emissionInterval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        long tolerance = emissionInterval * capacity;
+        return bucket.tryAcquire(now, emissionInterval, tolerance);
+    }
+
+    private String extractEmail(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            if (email == null || !email.isTextual()) {
+                return null;
+            }
+            try {
+                return Email.of(email.asText()).value();
+            } catch (IllegalArgumentException e) {
+                return email.asText().trim().toLowerCase();
+            }
+        } catch (IOException e) {
+            // Malformed bodies are rejected by request validation
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, String endpoint, String keyType, long waitNanos)
+            throws IOException {
+        rejectionCounters.computeIfAbsent(endpoint + ":" + keyType, k -> Counter.builder("auth.ratelimit.rejections")
+                        .tag("endpoint", endpoint)
+                        .tag("key", keyType)
+                        .register(meterRegistry))
+                .increment();
+
+        ErrorResponse body = new ErrorResponse(
+                "RATE_LIMITED",
+                "Too many requests, please retry later",
+                null,
+                Instant.now()
+        );
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private AuthRateLimitProperties.EndpointLimit endpointLimit(HttpServletRequest request) {
+        String endpoint = endpointName(request);
+        return endpoint != null ? properties.endpoints().get(endpoint) : null;
+    }
+
+    private static String endpointName(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return path.startsWith(AUTH_PATH_PREFIX) ? path.substring(AUTH_PATH_PREFIX.length()) : null;
+    }
+
+    /**
+     * GCRA state: the time at which the bucket will be completely full again.
+     */
+    private static final class Bucket {
+
+        private final AtomicLong theoreticalArrival;
+
+        private Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        long tryAcquire(long now, long emissionInterval, long tolerance) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long newTat = Math.max(tat, now) + emissionInterval;
+                long excess = newTat - now - tolerance;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers the start of a JSON body so it can be inspected here and read again by the
+     * controller. Bodies larger than the buffer are passed through unchanged after the prefix.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final ServletInputStream remainder;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body, ServletInputStream remainder) {
+            super(request);
+            this.body = body;
+            this.remainder = remainder;
+        }
+
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            ServletInputStream original = request.getInputStream();
+            byte[] body = original.readNBytes(MAX_BODY_BYTES + 1);
+            return new CachedBodyRequest(request, body, original);
+        }
+
+        boolean isComplete() {
+            return body.length <= MAX_BODY_BYTES;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream buffered = new ByteArrayInputStream(body);
+            InputStream input = isComplete() ? buffered : new SequenceInputStream(buffered, remainder);
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public boolean isFinished() {
+                    return finished || (isComplete() && buffered.available() == 0);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body is already in memory (past the buffer, reads block on the original
+                 * stream), so the listener is told right away that data is available.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int b = input.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = input.read(b, off, len);
+                    finished = n < 0;
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package com.familyvault.api.security;
 
-import com.familyvault.core.application.port.out.security.TokenPort;
-import com.familyvault.core.domain.model.user.UserId;
+import com.familyvault.core.application.port.out.security.TokenPort.AccessTokenClaims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -27,7 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
 
-    private final TokenPort tokenPort;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Override
     protected void doFilterInternal(
@@ -38,8 +36,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             extractToken(request)
-                    .flatMap(tokenPort::validateAccessToken)
-                    .ifPresent(userId -> setAuthentication(userId, request));
+                    .flatMap(verifiedTokenCache::resolve)
+                    .ifPresent(claims -> setAuthentication(claims, request));
         } catch (Exception e) {
             log.debug("Could not set user authentication: {}", e.getMessage());
         }
@@ -57,13 +55,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return Optional.empty();
     }
 
-    private void setAuthentication(UserId userId, HttpServletRequest request) {
-        UsernamePasswordAuthenticationToken authentication =
-                new UsernamePasswordAuthenticationToken(userId, null, Collections.emptyList());
+    private void setAuthentication(AccessTokenClaims claims, HttpServletRequest request) {
+        AccessTokenAuthentication authentication =
+                new AccessTokenAuthentication(claims.userId(), claims.memberships(), Collections.emptyList());
 
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        log.debug("Set authentication for user: {}", userId);
+        log.debug("Set authentication for user: {}", claims.userId());
     }
 }
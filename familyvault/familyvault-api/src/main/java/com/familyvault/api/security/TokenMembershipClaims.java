@@ -0,0 +1,126 @@
+package com.familyvault.api.security;
+
+import com.familyvault.core.application.port.out.persistence.UserRepository;
+import com.familyvault.core.application.port.out.security.MembershipClaimsPort;
+import com.familyvault.core.application.port.out.security.TokenPort.MembershipClaims;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.user.UserId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers membership checks from the access token of the current request.
+ * <p>
+ * Claims are only trusted while the token's membership epoch matches the user's current
+ * epoch. Epochs are cached per user for a short TTL, so a role change or removal on another
+ * node takes effect here within that TTL; on this node {@link #invalidate(UserId)} makes it
+ * immediate once the change has committed. Once the epoch moves on, checks fall back to
+ * the repository until the client refreshes its token.
+ */
+@Component
+public class TokenMembershipClaims implements MembershipClaimsPort {
+
+    private final UserRepository userRepository;
+    private final long epochTtlMillis;
+    private final int maxCachedEpochs;
+    private final Map<UserId, CachedEpoch> epochs = new ConcurrentHashMap<>();
+
+    private final Counter trusted;
+    private final Counter stale;
+
+    public TokenMembershipClaims(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${security.membership-claims.epoch-ttl:30s}") Duration epochTtl,
+            @Value("${security.membership-claims.max-cached-epochs:50000}") int maxCachedEpochs
+    ) {
+        this.userRepository = userRepository;
+        this.epochTtlMillis = epochTtl.toMillis();
+        this.maxCachedEpochs = maxCachedEpochs;
+
+        this.trusted = Counter.builder("auth.membership.claims")
+                .tag("result", "trusted")
+                .register(meterRegistry);
+        this.stale = Counter.builder("auth.membership.claims")
+                .tag("result", "stale")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<FamilyRole> findClaimedRole(FamilyId familyId, UserId userId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof AccessTokenAuthentication tokenAuthentication)
+                || !userId.equals(tokenAuthentication.getPrincipal())) {
+            return Optional.empty();
+        }
+
+        MembershipClaims memberships = tokenAuthentication.getMemberships();
+        if (memberships == null) {
+            return Optional.empty();
+        }
+
+        Optional<FamilyRole> role = memberships.roleIn(familyId);
+        if (role.isEmpty()) {
+            // Possibly joined after the token was issued
+            return Optional.empty();
+        }
+
+        if (memberships.epoch() != currentEpoch(userId)) {
+            stale.increment();
+            return Optional.empty();
+        }
+
+        trusted.increment();
+        return role;
+    }
+
+    /**
+     * Drops the cached epoch now and, inside a transaction, again after commit: a check that
+     * runs before the commit still reads the old epoch and would otherwise cache it for the TTL.
+     */
+    @Override
+    public void invalidate(UserId userId) {
+        epochs.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    epochs.remove(userId);
+                }
+            });
+        }
+    }
+
+    private long currentEpoch(UserId userId) {
+        long now = System.currentTimeMillis();
+        CachedEpoch cached = epochs.get(userId);
+        if (cached != null && now - cached.loadedAtMillis() < epochTtlMillis) {
+            return cached.epoch();
+        }
+
+        // Unknown users get an epoch no token can carry
+        long epoch = userRepository.findMembershipEpoch(userId).orElse(-1L);
+        if (epochs.size() >= maxCachedEpochs) {
+            epochs.values().removeIf(e -> now - e.loadedAtMillis() >= epochTtlMillis);
+        }
+        if (epochs.size() < maxCachedEpochs) {
+            epochs.put(userId, new CachedEpoch(epoch, now));
+        }
+        return epoch;
+    }
+
+    private record CachedEpoch(long epoch, long loadedAtMillis) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.familyvault.api.security;
+
+import com.familyvault.core.application.port.out.security.TokenPort;
+import com.familyvault.core.application.port.out.security.TokenPort.AccessTokenClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of access tokens whose signature has already been verified.
+ * <p>
+ * Keyed by a SHA-256 digest of the token so raw tokens are never kept in memory.
+ * Only successful verifications are cached, and an entry never outlives the token's own expiry.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final TokenPort tokenPort;
+    private final boolean enabled;
+    private final int maxSize;
+    private final Map<TokenDigest, CachedToken> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(VerifiedTokenCache::newDigest);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public VerifiedTokenCache(
+            TokenPort tokenPort,
+            MeterRegistry meterRegistry,
+            @Value("${security.token-cache.enabled:true}") boolean enabled,
+            @Value("${security.token-cache.max-size:50000}") int maxSize
+    ) {
+        this.tokenPort = tokenPort;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+
+        this.hits = Counter.builder("auth.token.cache.requests")
+                .tag("result", "hit")
+                .description("Access token lookups served from the verified-token cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("auth.token.cache.requests")
+                .tag("result", "miss")
+                .description("Access token lookups that required signature verification")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("auth.token.cache.evictions")
+                .description("Entries removed because they expired or the cache was full")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("auth.token.cache.size", Tags.empty(), entries);
+    }
+
+    /**
+     * Resolve the claims of an access token, verifying it only if it is not cached yet.
+     */
+    public Optional<AccessTokenClaims> resolve(String token) {
+        if (!enabled) {
+            return tokenPort.parseAccessToken(token);
+        }
+
+        long now = System.currentTimeMillis();
+        TokenDigest key = digest(token);
+
+        CachedToken cached = entries.get(key);
+        if (cached != null) {
+            if (now < cached.expiresAtMillis()) {
+                hits.increment();
+                return Optional.of(cached.claims());
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Optional<AccessTokenClaims> claims = tokenPort.parseAccessToken(token);
+        claims.ifPresent(c -> put(key, c, now));
+        return claims;
+    }
+
+    private void put(TokenDigest key, AccessTokenClaims claims, long now) {
+        long expiresAt = claims.expiresAt().toEpochMilli();
+        if (expiresAt <= now) {
+            return;
+        }
+
+        sweepIfDue(now);
+        if (entries.size() >= maxSize) {
+            sweep(now, true);
+        }
+        entries.put(key, new CachedToken(claims, expiresAt));
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_MILLIS && lastSweep.compareAndSet(last, now)) {
+            sweep(now, false);
+        }
+    }
+
+    /**
+     * Drop expired entries; when {@code makeRoom} is set and that is not enough,
+     * drop arbitrary entries until the cache is back under 90% of its cap.
+     */
+    private void sweep(long now, boolean makeRoom) {
+        int removed = 0;
+        for (Iterator<CachedToken> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().expiresAtMillis() <= now) {
+                it.remove();
+                removed++;
+            }
+        }
+
+        if (makeRoom) {
+            int target = (int) (maxSize * 0.9);
+            for (Iterator<TokenDigest> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target; ) {
+                it.next();
+                it.remove();
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            evictions.increment(removed);
+            log.debug("Evicted {} verified tokens, {} remaining", removed, entries.size());
+        }
+    }
+
+    private TokenDigest digest(String token) {
+        MessageDigest digest = digests.get();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        return new TokenDigest(buffer.getLong(), buffer.getLong());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * First 128 bits of the token's SHA-256.
+     */
+    private record TokenDigest(long high, long low) {
+    }
+
+    private record CachedToken(AccessTokenClaims claims, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,16 @@
+-- Multipart uploads in progress; removed on completion, abort or expiry
+CREATE TABLE upload_sessions (
+    file_id         UUID PRIMARY KEY REFERENCES files(id) ON DELETE CASCADE,
+    family_id       UUID NOT NULL REFERENCES families(id) ON DELETE CASCADE,
+    uploaded_by     UUID NOT NULL REFERENCES users(id),
+    storage_key     VARCHAR(500) NOT NULL,
+    upload_id       VARCHAR(1024) NOT NULL,
+    part_size       BIGINT NOT NULL,
+    part_count      INTEGER NOT NULL,
+    created_at      TIMESTAMP NOT NULL DEFAULT NOW(),
+    expires_at      TIMESTAMP NOT NULL,
+
+    CONSTRAINT chk_upload_session_parts CHECK (part_size > 0 AND part_count BETWEEN 1 AND 10000)
+);
+
+CREATE INDEX idx_upload_sessions_expires ON upload_sessions(expires_at);
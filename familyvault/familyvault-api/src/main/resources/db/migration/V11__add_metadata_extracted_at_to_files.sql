@@ -0,0 +1,10 @@
+-- Set once an image's header has been read, whether or not it carried any metadata
+ALTER TABLE files ADD COLUMN IF NOT EXISTS metadata_extracted_at TIMESTAMP;
+
+-- Queue of images still to be read, oldest first; shrinks to nothing once the backfill is done
+CREATE INDEX IF NOT EXISTS idx_files_metadata_pending ON files(created_at)
+    WHERE metadata_extracted_at IS NULL
+      AND file_type = 'IMAGE'
+      AND mime_type IN ('image/jpeg', 'image/png')
+      AND status = 'ACTIVE'
+      AND deleted_at IS NULL;
@@ -0,0 +1,10 @@
+-- Videos and audio are probed for duration and codecs through the same queue as images
+DROP INDEX IF EXISTS idx_files_metadata_pending;
+
+CREATE INDEX IF NOT EXISTS idx_files_metadata_pending ON files(created_at)
+    WHERE metadata_extracted_at IS NULL
+      AND mime_type IN ('image/jpeg', 'image/png',
+                        'video/mp4', 'video/quicktime', 'video/webm', 'video/x-matroska',
+                        'audio/mpeg', 'audio/wav', 'audio/flac')
+      AND status = 'ACTIVE'
+      AND deleted_at IS NULL;
@@ -0,0 +1,11 @@
+-- Fast-start copy of a video with its moov in front, served for viewing instead of the original
+ALTER TABLE files ADD COLUMN IF NOT EXISTS playback_key VARCHAR(500);
+
+-- Set once a video has been checked for fast-start, whether or not it needed a copy
+ALTER TABLE files ADD COLUMN IF NOT EXISTS fast_start_checked_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_files_fast_start_pending ON files(created_at)
+    WHERE fast_start_checked_at IS NULL
+      AND mime_type IN ('video/mp4', 'video/quicktime')
+      AND status = 'ACTIVE'
+      AND deleted_at IS NULL;
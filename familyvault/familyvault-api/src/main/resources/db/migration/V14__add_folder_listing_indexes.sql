@@ -0,0 +1,4 @@
+-- Keyset indexes for folder listings sorted by name and by size, matching the family-wide
+-- ones in V9; without them these listings sort the whole folder for every page.
+CREATE INDEX IF NOT EXISTS idx_files_folder_name ON files(folder_id, original_name, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_files_folder_size ON files(folder_id, file_size DESC, id DESC) WHERE deleted_at IS NULL;
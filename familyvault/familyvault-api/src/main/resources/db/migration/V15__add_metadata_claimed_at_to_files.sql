@@ -0,0 +1,2 @@
+-- Set when a node claims a file for metadata extraction; the claim lapses if no result follows
+ALTER TABLE files ADD COLUMN IF NOT EXISTS metadata_claimed_at TIMESTAMP;
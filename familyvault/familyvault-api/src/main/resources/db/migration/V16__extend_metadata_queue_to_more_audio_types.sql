@@ -0,0 +1,11 @@
+-- Voice memos (MP4 audio) and the x- aliases of WAV and FLAC go through the metadata queue too
+DROP INDEX IF EXISTS idx_files_metadata_pending;
+
+CREATE INDEX IF NOT EXISTS idx_files_metadata_pending ON files(created_at)
+    WHERE metadata_extracted_at IS NULL
+      AND mime_type IN ('image/jpeg', 'image/png',
+                        'video/mp4', 'video/quicktime', 'video/webm', 'video/x-matroska',
+                        'audio/mpeg', 'audio/wav', 'audio/x-wav', 'audio/flac', 'audio/x-flac',
+                        'audio/mp4', 'audio/x-m4a')
+      AND status = 'ACTIVE'
+      AND deleted_at IS NULL;
@@ -0,0 +1,5 @@
+-- Set when a node starts rewriting a video; a claim without an outcome lapses and is retried
+ALTER TABLE files ADD COLUMN IF NOT EXISTS fast_start_claimed_at TIMESTAMP;
+
+-- Rewrites started, so a video that keeps failing is given up after a few tries
+ALTER TABLE files ADD COLUMN IF NOT EXISTS fast_start_attempts INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Add membership_epoch column to users; bumped on role changes and removals so
+-- access tokens carrying older membership claims are no longer trusted
+ALTER TABLE users ADD COLUMN IF NOT EXISTS membership_epoch BIGINT NOT NULL DEFAULT 0;
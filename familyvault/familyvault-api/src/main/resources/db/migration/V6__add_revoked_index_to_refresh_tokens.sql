@@ -0,0 +1,3 @@
+-- Lets the purge job find long-revoked refresh tokens without scanning the table;
+-- expired unrevoked tokens are already covered by idx_refresh_tokens_expires
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_revoked ON refresh_tokens(revoked_at) WHERE revoked_at IS NOT NULL;
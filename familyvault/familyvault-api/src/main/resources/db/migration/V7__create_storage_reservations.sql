@@ -0,0 +1,15 @@
+-- Bytes held for uploads that have been initiated but not yet confirmed
+ALTER TABLE families ADD COLUMN IF NOT EXISTS storage_reserved_bytes BIGINT NOT NULL DEFAULT 0;
+
+-- One reservation per pending upload; released on confirm, failure or expiry
+CREATE TABLE storage_reservations (
+    file_id         UUID PRIMARY KEY,
+    family_id       UUID NOT NULL REFERENCES families(id) ON DELETE CASCADE,
+    bytes           BIGINT NOT NULL,
+    expires_at      TIMESTAMP NOT NULL,
+    created_at      TIMESTAMP NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT chk_reservation_bytes CHECK (bytes >= 0)
+);
+
+CREATE INDEX idx_storage_reservations_expires ON storage_reservations(expires_at);
@@ -0,0 +1,18 @@
+-- Where the storage usage reconciler stopped; a single row shared by all nodes
+CREATE TABLE storage_reconciliation (
+    id              INTEGER PRIMARY KEY,
+    last_family_id  UUID,
+    updated_at      TIMESTAMP NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT chk_single_row CHECK (id = 1)
+);
+
+INSERT INTO storage_reconciliation (id) VALUES (1);
+
+-- Drift seen on the previous pass; a counter is only corrected once the same drift is seen twice
+CREATE TABLE storage_drift (
+    family_id       UUID PRIMARY KEY REFERENCES families(id) ON DELETE CASCADE,
+    recorded_bytes  BIGINT NOT NULL,
+    actual_bytes    BIGINT NOT NULL,
+    observed_at     TIMESTAMP NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,12 @@
+-- Keyset pagination of file listings: one index per sort order, each ending in id so the
+-- row comparison (column, id) < (?, ?) is a range scan in index order.
+-- id follows the direction of the sort column so a single scan serves the whole ORDER BY.
+CREATE INDEX IF NOT EXISTS idx_files_family_created ON files(family_id, created_at DESC, id DESC) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_files_family_name ON files(family_id, original_name, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_files_family_size ON files(family_id, file_size DESC, id DESC) WHERE deleted_at IS NULL;
+
+-- Folder listings page newest first within the folder
+CREATE INDEX IF NOT EXISTS idx_files_folder_created ON files(folder_id, created_at DESC, id DESC) WHERE deleted_at IS NULL;
+
+-- Superseded by idx_files_family_created
+DROP INDEX IF EXISTS idx_files_family;
@@ -0,0 +1,17 @@
+package com.familyvault.core.application.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for confirming several completed uploads at once.
+ */
+public record ConfirmBatchUploadRequest(
+        @NotEmpty(message = "At least one file ID is required")
+        @Size(max = 500, message = "At most 500 files per batch")
+        List<UUID> fileIds
+) {
+}
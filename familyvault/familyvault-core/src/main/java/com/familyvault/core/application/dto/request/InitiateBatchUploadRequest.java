@@ -0,0 +1,30 @@
+package com.familyvault.core.application.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for initiating several file uploads into one family at once.
+ * Files are checked one by one, so an invalid entry fails on its own.
+ */
+public record InitiateBatchUploadRequest(
+        @NotNull(message = "Family ID is required")
+        UUID familyId,
+
+        @NotEmpty(message = "At least one file is required")
+        @Size(max = 500, message = "At most 500 files per batch")
+        List<File> files
+) {
+
+    public record File(
+            UUID folderId, // null for root
+            String fileName,
+            String contentType,
+            long fileSize
+    ) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.familyvault.core.application.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request for upload URLs of some parts of a multipart upload.
+ */
+public record PresignPartsRequest(
+        @NotEmpty(message = "At least one part number is required")
+        @Size(max = 100, message = "At most 100 parts per request")
+        List<@NotNull @Positive Integer> partNumbers
+) {
+}
@@ -0,0 +1,30 @@
+package com.familyvault.core.application.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response to a batch upload confirmation, with one item per distinct file ID in request order.
+ */
+public record BatchConfirmUploadResponse(
+        List<Item> items
+) {
+
+    /**
+     * Either the confirmed file or, if it could not be confirmed, an error code and message.
+     */
+    public record Item(
+            UUID fileId,
+            FileResponse file,
+            String errorCode,
+            String errorMessage
+    ) {
+        public static Item confirmed(FileResponse file) {
+            return new Item(file.id(), file, null, null);
+        }
+
+        public static Item rejected(UUID fileId, String errorCode, String errorMessage) {
+            return new Item(fileId, null, errorCode, errorMessage);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.familyvault.core.application.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response to a batch upload initiation, with one item per requested file in request order.
+ */
+public record BatchUploadUrlResponse(
+        List<Item> items,
+        long expiresInSeconds
+) {
+
+    /**
+     * Either the upload URL for the file or, if it was not accepted, an error code and message.
+     *
+     * @param index position of the file in the request
+     */
+    public record Item(
+            int index,
+            UUID fileId,
+            String uploadUrl,
+            String storageKey,
+            String errorCode,
+            String errorMessage
+    ) {
+        public static Item accepted(int index, UUID fileId, String uploadUrl, String storageKey) {
+            return new Item(index, fileId, uploadUrl, storageKey, null, null);
+        }
+
+        public static Item rejected(int index, String errorCode, String errorMessage) {
+            return new Item(index, null, null, null, errorCode, errorMessage);
+        }
+    }
+}
@@ -5,7 +5,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.file.FileType;
+
 import java.time.Instant;
+import java.util.Map;
 
 @Data
 @Builder
@@ -24,4 +28,10 @@ public class FamilyResponse {
     private String createdBy;
     private Instant createdAt;
     private Instant updatedAt;
+
+    // Only filled in by family listings
+    private FamilyRole role;
+    private Integer memberCount;
+    private Long fileCount;
+    private Map<FileType, Long> storageBytesByType;
 }
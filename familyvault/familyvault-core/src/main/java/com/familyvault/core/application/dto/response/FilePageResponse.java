@@ -0,0 +1,14 @@
+package com.familyvault.core.application.dto.response;
+
+import java.util.List;
+
+/**
+ * One page of a file listing.
+ *
+ * @param nextCursor opaque cursor for the next page, or null on the last page
+ */
+public record FilePageResponse(
+        List<FileResponse> items,
+        String nextCursor
+) {
+}
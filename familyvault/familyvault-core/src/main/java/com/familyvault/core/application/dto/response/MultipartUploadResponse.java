@@ -0,0 +1,17 @@
+package com.familyvault.core.application.dto.response;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Response to starting a multipart upload. Parts 1 to {@code partCount} are
+ * {@code partSize} bytes each, except the last, which holds the rest of the file.
+ */
+public record MultipartUploadResponse(
+        UUID fileId,
+        String storageKey,
+        long partSize,
+        int partCount,
+        Instant expiresAt
+) {
+}
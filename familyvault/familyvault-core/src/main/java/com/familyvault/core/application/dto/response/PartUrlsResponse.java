@@ -0,0 +1,15 @@
+package com.familyvault.core.application.dto.response;
+
+import java.util.List;
+
+/**
+ * Presigned PUT URLs for parts of a multipart upload.
+ */
+public record PartUrlsResponse(
+        List<PartUrl> parts,
+        long expiresInSeconds
+) {
+
+    public record PartUrl(int partNumber, String uploadUrl) {
+    }
+}
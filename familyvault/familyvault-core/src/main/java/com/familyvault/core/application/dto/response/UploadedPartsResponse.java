@@ -0,0 +1,16 @@
+package com.familyvault.core.application.dto.response;
+
+import java.util.List;
+
+/**
+ * Parts storage has received for a multipart upload, so a client can resume with the rest.
+ */
+public record UploadedPartsResponse(
+        long partSize,
+        int partCount,
+        List<Part> parts
+) {
+
+    public record Part(int partNumber, long size) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.familyvault.core.application.exception;
+
+public class InvalidCursorException extends ApplicationException {
+
+    public InvalidCursorException() {
+        super("Invalid or outdated page cursor", "INVALID_CURSOR");
+    }
+}
@@ -0,0 +1,8 @@
+package com.familyvault.core.application.exception;
+
+public class InvalidUploadPartsException extends ApplicationException {
+
+    public InvalidUploadPartsException(String message) {
+        super(message, "INVALID_UPLOAD_PARTS");
+    }
+}
@@ -0,0 +1,11 @@
+package com.familyvault.core.application.exception;
+
+import java.util.UUID;
+
+public class MultipartUploadInProgressException extends ApplicationException {
+
+    public MultipartUploadInProgressException(UUID fileId) {
+        super("File is uploaded in parts, complete the multipart upload instead: " + fileId,
+                "MULTIPART_UPLOAD_IN_PROGRESS");
+    }
+}
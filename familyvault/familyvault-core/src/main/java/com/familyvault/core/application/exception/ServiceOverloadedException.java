@@ -0,0 +1,16 @@
+package com.familyvault.core.application.exception;
+
+import java.time.Duration;
+
+public class ServiceOverloadedException extends ApplicationException {
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message, "SERVICE_OVERLOADED");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
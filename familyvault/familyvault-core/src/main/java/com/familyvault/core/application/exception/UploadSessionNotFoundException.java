@@ -0,0 +1,10 @@
+package com.familyvault.core.application.exception;
+
+import java.util.UUID;
+
+public class UploadSessionNotFoundException extends ApplicationException {
+
+    public UploadSessionNotFoundException(UUID fileId) {
+        super("No multipart upload in progress for file: " + fileId, "UPLOAD_SESSION_NOT_FOUND");
+    }
+}
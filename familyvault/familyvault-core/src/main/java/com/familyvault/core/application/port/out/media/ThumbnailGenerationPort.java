@@ -0,0 +1,17 @@
+package com.familyvault.core.application.port.out.media;
+
+import com.familyvault.core.domain.model.file.StoredFile;
+
+/**
+ * Port for generating thumbnails in the background.
+ */
+public interface ThumbnailGenerationPort {
+
+    /**
+     * Queue thumbnail generation for an uploaded image and return right away. The file's
+     * thumbnail key and dimensions are stored once its thumbnails exist.
+     *
+     * @return false if the image was not queued, e.g. because the queue is full
+     */
+    boolean submit(StoredFile file);
+}
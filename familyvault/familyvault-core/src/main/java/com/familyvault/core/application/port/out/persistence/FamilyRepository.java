@@ -3,9 +3,12 @@ package com.familyvault.core.application.port.out.persistence;
 import com.familyvault.core.domain.model.family.Family;
 import com.familyvault.core.domain.model.family.FamilyId;
 import com.familyvault.core.domain.model.family.FamilyMember;
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.core.domain.model.user.UserId;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -31,7 +34,26 @@ public interface FamilyRepository {
 
     List<FamilyMember> findFamiliesByUser(UserId userId);
 
+    /**
+     * Families the user is an active member of, with member and file statistics,
+     * loaded in a single query.
+     */
+    List<FamilySummary> findFamilySummariesByUser(UserId userId);
+
     boolean isMember(FamilyId familyId, UserId userId);
 
     void deleteMember(FamilyId familyId, UserId userId);
+
+    /**
+     * A family as seen by one of its members, with aggregate statistics.
+     * Only active members and active files are counted.
+     */
+    record FamilySummary(
+            Family family,
+            FamilyRole role,
+            int activeMemberCount,
+            long fileCount,
+            Map<FileType, Long> bytesByType
+    ) {
+    }
 }
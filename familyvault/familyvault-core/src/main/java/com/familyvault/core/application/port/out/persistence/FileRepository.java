@@ -2,12 +2,16 @@ package com.familyvault.core.application.port.out.persistence;
 
 import com.familyvault.core.domain.model.family.FamilyId;
 import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.FileSort;
 import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.core.domain.model.file.Folder;
 import com.familyvault.core.domain.model.file.StoredFile;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -18,8 +22,47 @@ public interface FileRepository {
     // File operations
     StoredFile saveFile(StoredFile file);
 
+    /**
+     * Insert new files in one batch.
+     */
+    void insertFiles(List<StoredFile> files);
+
+    /**
+     * Store status and processing results (thumbnail, dimensions, duration) of existing
+     * files in one batch.
+     */
+    void updateFileStates(List<StoredFile> files);
+
+    /**
+     * Move a file from PROCESSING to ACTIVE. Of concurrent confirmations only one succeeds,
+     * which makes it the one to charge storage for the file.
+     *
+     * @return whether this call changed the status
+     */
+    boolean activateFile(FileId id);
+
+    /**
+     * Move those of the given files that are still PROCESSING to ACTIVE in one statement.
+     *
+     * @return IDs of the files this call activated
+     */
+    Set<FileId> activateFiles(Collection<FileId> ids);
+
+    /**
+     * Record the generated thumbnails of a file, and its dimensions unless they are already
+     * known. Only these columns are written, so concurrent updates of the file are kept.
+     *
+     * @return false if the file no longer exists or was deleted
+     */
+    boolean storeThumbnail(FileId id, String thumbnailKey, int width, int height);
+
     Optional<StoredFile> findFileById(FileId id);
 
+    /**
+     * Find several files at once; missing IDs are skipped. Files are returned without metadata.
+     */
+    List<StoredFile> findFilesByIds(Collection<FileId> ids);
+
     List<StoredFile> findFilesByFamily(FamilyId familyId);
 
     List<StoredFile> findFilesByFolder(FamilyId familyId, UUID folderId);
@@ -27,9 +70,15 @@ public interface FileRepository {
     List<StoredFile> findFilesByType(FamilyId familyId, FileType type);
 
     /**
-     * Find files with pagination.
+     * Find a page of active files in the given order, starting after a position.
+     * Listed files carry no metadata.
+     *
+     * @param folderId only files in this folder, or null for all folders
+     * @param type     only files of this type, or null for all types
+     * @param after    position of the last file of the previous page, or null for the first page
      */
-    List<StoredFile> findFiles(FamilyId familyId, UUID folderId, FileType type, int page, int size);
+    List<StoredFile> findFiles(FamilyId familyId, UUID folderId, FileType type, FileSort sort,
+                               FilePosition after, int limit);
 
     /**
      * Count files in a family.
@@ -41,7 +90,13 @@ public interface FileRepository {
      */
     long calculateStorageUsed(FamilyId familyId);
 
-    void deleteFile(FileId id);
+    /**
+     * Delete a file if it still has the given status. Of concurrent deletions only one
+     * succeeds, which makes it the one to settle the family's storage for the file.
+     *
+     * @return whether this call removed the file
+     */
+    boolean deleteFile(FileId id, StoredFile.FileStatus status);
 
     // Folder operations
     Folder saveFolder(Folder folder);
@@ -55,4 +110,15 @@ public interface FileRepository {
     Optional<Folder> findFolderByPath(FamilyId familyId, String path);
 
     void deleteFolder(UUID id);
+
+    /**
+     * Where a file sits in a listing; holds the value of every sort column so one position
+     * works for any {@link FileSort}.
+     */
+    record FilePosition(Instant createdAt, String name, long size, UUID id) {
+
+        public static FilePosition of(StoredFile file) {
+            return new FilePosition(file.getCreatedAt(), file.getOriginalName(), file.getFileSize(), file.getId().value());
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.familyvault.core.application.port.out.persistence;
 
+import com.familyvault.core.domain.model.user.User;
 import com.familyvault.core.domain.model.user.UserId;
 
 import java.time.Instant;
@@ -26,15 +27,29 @@ public interface RefreshTokenRepository {
      */
     void revoke(String tokenHash);
 
+    /**
+     * Atomically revoke a valid token of the given user and store its replacement.
+     * <p>
+     * The replacement is only stored when the user account is active.
+     *
+     * @return the owning user, or empty if the old token was unknown, revoked, expired
+     *         or the user is deleted
+     */
+    Optional<User> rotate(String oldTokenHash, UserId userId, UUID newId, String newTokenHash, Instant expiresAt);
+
     /**
      * Revoke all tokens for a user.
      */
     void revokeAllForUser(UserId userId);
 
     /**
-     * Delete expired tokens (cleanup job).
+     * Delete up to {@code limit} tokens that expired before {@code expiredBefore} or were
+     * revoked before {@code revokedBefore} (cleanup job). Rows locked by concurrent
+     * transactions are skipped and picked up by a later call.
+     *
+     * @return the number of tokens deleted; less than {@code limit} once nothing is left
      */
-    void deleteExpired();
+    int deleteExpired(Instant expiredBefore, Instant revokedBefore, int limit);
 
     /**
      * Data holder for refresh token info.
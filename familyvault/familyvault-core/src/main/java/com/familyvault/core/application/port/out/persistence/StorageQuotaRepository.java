@@ -0,0 +1,81 @@
+package com.familyvault.core.application.port.out.persistence;
+
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.file.FileId;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Port for family storage accounting.
+ * <p>
+ * Every method is a single conditional statement on the family's counters, so concurrent
+ * uploads and deletions never overwrite each other's changes. Bytes of an upload in flight
+ * are held in a reservation keyed by the file ID until the upload is confirmed, released,
+ * or the reservation expires.
+ */
+public interface StorageQuotaRepository {
+
+    /**
+     * Reserve bytes for an upload if used plus reserved bytes stay within the family's limit.
+     *
+     * @return false if the quota would be exceeded or the family does not exist
+     */
+    boolean reserve(FamilyId familyId, FileId fileId, long bytes, Instant expiresAt);
+
+    /**
+     * Reserve bytes for several uploads of one family against their combined size: either
+     * every file gets its reservation or none does.
+     *
+     * @param bytesByFile size of each upload
+     * @return false if the quota would be exceeded or the family does not exist
+     */
+    boolean reserveAll(FamilyId familyId, Map<FileId, Long> bytesByFile, Instant expiresAt);
+
+    /**
+     * Turn a reservation into used storage.
+     *
+     * @return false if there was no reservation for the file, e.g. because it expired
+     */
+    boolean commitReservation(FileId fileId);
+
+    /**
+     * Turn the reservations of several files into used storage, with one counter update per
+     * family.
+     *
+     * @return the files that had a reservation
+     */
+    Set<FileId> commitReservations(Collection<FileId> fileIds);
+
+    /**
+     * Drop a reservation without using its bytes. Does nothing if there is none.
+     */
+    void releaseReservation(FileId fileId);
+
+    /**
+     * Release up to {@code limit} reservations that expired before {@code now}.
+     *
+     * @return the number of reservations released
+     */
+    int releaseExpiredReservations(Instant now, int limit);
+
+    /**
+     * Add used bytes directly, subject to the same limit check as {@link #reserve}.
+     *
+     * @return false if the quota would be exceeded
+     */
+    boolean addUsed(FamilyId familyId, long bytes);
+
+    /**
+     * Subtract used bytes, never going below zero.
+     */
+    void removeUsed(FamilyId familyId, long bytes);
+
+    /**
+     * Bytes still available to new uploads, or empty if the family does not exist.
+     */
+    OptionalLong findAvailableBytes(FamilyId familyId);
+}
@@ -0,0 +1,32 @@
+package com.familyvault.core.application.port.out.persistence;
+
+import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.UploadSession;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Port for multipart upload sessions, keyed by the file being uploaded.
+ */
+public interface UploadSessionRepository {
+
+    void save(UploadSession session);
+
+    Optional<UploadSession> findByFileId(FileId fileId);
+
+    /**
+     * Which of the given files have a multipart upload session.
+     */
+    Set<FileId> findFileIdsWithSession(Collection<FileId> fileIds);
+
+    /**
+     * Find up to {@code limit} sessions that expired before {@code now}, oldest first.
+     */
+    List<UploadSession> findExpired(Instant now, int limit);
+
+    void delete(FileId fileId);
+}
@@ -4,6 +4,9 @@ import com.familyvault.core.domain.model.user.Email;
 import com.familyvault.core.domain.model.user.User;
 import com.familyvault.core.domain.model.user.UserId;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,6 +25,11 @@ public interface UserRepository {
      */
     Optional<User> findById(UserId id);
 
+    /**
+     * Find users by ID in a single query. Unknown and deleted users are left out.
+     */
+    List<User> findAllByIds(Collection<UserId> ids);
+
     /**
      * Find user by email.
      */
@@ -32,6 +40,21 @@ public interface UserRepository {
      */
     boolean existsByEmail(Email email);
 
+    /**
+     * Lock an account without rewriting the rest of the user.
+     */
+    void lockAccount(UserId id, int failedLoginAttempts, Instant lockedUntil);
+
+    /**
+     * Current membership epoch of a user.
+     */
+    Optional<Long> findMembershipEpoch(UserId id);
+
+    /**
+     * Invalidate membership claims in tokens issued so far.
+     */
+    void incrementMembershipEpoch(UserId id);
+
     /**
      * Delete user (soft delete).
      */
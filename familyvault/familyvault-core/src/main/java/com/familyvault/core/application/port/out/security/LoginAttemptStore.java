@@ -0,0 +1,24 @@
+package com.familyvault.core.application.port.out.security;
+
+import com.familyvault.core.domain.model.user.Email;
+
+/**
+ * Port for tracking failed login attempts without rewriting the user on every failure.
+ * Implementations may persist counters asynchronously.
+ */
+public interface LoginAttemptStore {
+
+    /**
+     * Record a failed login attempt.
+     *
+     * @param persistedAttempts failed attempts stored on the user when it was loaded
+     * @return the number of consecutive failed attempts including this one
+     */
+    int recordFailure(Email email, int persistedAttempts);
+
+    /**
+     * Forget pending attempts, e.g. on a successful login or a lockout. Call it before
+     * persisting the new count, so no pending attempt is written after it.
+     */
+    void reset(Email email);
+}
@@ -0,0 +1,26 @@
+package com.familyvault.core.application.port.out.security;
+
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.user.UserId;
+
+import java.util.Optional;
+
+/**
+ * Port for reading family memberships from the verified access token of the current request.
+ */
+public interface MembershipClaimsPort {
+
+    /**
+     * Role the current token claims for the user in a family.
+     * Empty means the caller has to check the repository: the token may predate a membership
+     * change, carry no claims, or belong to another user.
+     */
+    Optional<FamilyRole> findClaimedRole(FamilyId familyId, UserId userId);
+
+    /**
+     * Forget anything cached about the user's memberships after they changed. Called inside
+     * the transaction that changes them, it takes effect once that transaction commits.
+     */
+    void invalidate(UserId userId);
+}
@@ -1,7 +1,12 @@
 package com.familyvault.core.application.port.out.security;
 
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.user.User;
 import com.familyvault.core.domain.model.user.UserId;
 
+import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -14,6 +19,12 @@ public interface TokenPort {
      */
     String generateAccessToken(UserId userId, String email);
 
+    /**
+     * Generate an access token that may also carry the user's family memberships.
+     * Implementations can leave the memberships out, e.g. when there are too many of them.
+     */
+    String generateAccessToken(UserId userId, String email, MembershipClaims memberships);
+
     /**
      * Generate a refresh token for a user.
      */
@@ -25,9 +36,15 @@ public interface TokenPort {
     Optional<UserId> validateAccessToken(String token);
 
     /**
-     * Validate a refresh token and extract the user ID.
+     * Validate an access token and extract the user ID together with the token expiry.
+     */
+    Optional<AccessTokenClaims> parseAccessToken(String token);
+
+    /**
+     * Validate a refresh token and replace it with a new one in a single step.
+     * The old token is revoked even if the user turns out to be inactive.
      */
-    Optional<UserId> validateRefreshToken(String token);
+    Optional<RefreshTokenRotation> rotateRefreshToken(String token);
 
     /**
      * Get access token expiration in seconds.
@@ -43,4 +60,41 @@ public interface TokenPort {
      * Revoke all refresh tokens for a user.
      */
     void revokeAllUserTokens(UserId userId);
+
+    /**
+     * Verified contents of an access token. {@code memberships} is null when the token carries none.
+     */
+    record AccessTokenClaims(
+            UserId userId,
+            Instant expiresAt,
+            MembershipClaims memberships
+    ) {
+    }
+
+    /**
+     * Active family memberships at the time the token was issued, stamped with the
+     * user's membership epoch so stale claims can be detected.
+     */
+    record MembershipClaims(
+            long epoch,
+            Map<FamilyId, FamilyRole> roles
+    ) {
+        public MembershipClaims {
+            roles = Map.copyOf(roles);
+        }
+
+        public Optional<FamilyRole> roleIn(FamilyId familyId) {
+            return Optional.ofNullable(roles.get(familyId));
+        }
+    }
+
+    /**
+     * Result of a refresh token rotation. The new refresh token is only usable
+     * when the user account is active.
+     */
+    record RefreshTokenRotation(
+            User user,
+            String refreshToken
+    ) {
+    }
 }
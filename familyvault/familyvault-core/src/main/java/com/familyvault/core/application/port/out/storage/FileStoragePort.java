@@ -2,7 +2,10 @@ package com.familyvault.core.application.port.out.storage;
 
 import java.io.InputStream;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Port for cloud storage operations.
@@ -39,6 +42,39 @@ public interface FileStoragePort {
      */
     String generateViewUrl(String storageKey, String contentType, Duration expiration);
 
+    /**
+     * Start a multipart upload, whose parts are then uploaded through presigned part URLs.
+     *
+     * @param storageKey  The key (path) in storage
+     * @param contentType MIME type of the file
+     * @return ID of the multipart upload
+     */
+    String createMultipartUpload(String storageKey, String contentType);
+
+    /**
+     * Generate a presigned URL for uploading one part of a multipart upload.
+     *
+     * @param partNumber Part number, from 1
+     * @param expiration How long the URL is valid
+     * @return Presigned URL for PUT request
+     */
+    String generateUploadPartUrl(String storageKey, String uploadId, int partNumber, Duration expiration);
+
+    /**
+     * List the parts storage has received so far, by part number.
+     */
+    List<UploadedPart> listUploadedParts(String storageKey, String uploadId);
+
+    /**
+     * Assemble the object from the given parts.
+     */
+    void completeMultipartUpload(String storageKey, String uploadId, List<UploadedPart> parts);
+
+    /**
+     * Abort a multipart upload and drop its parts. Does nothing if the upload no longer exists.
+     */
+    void abortMultipartUpload(String storageKey, String uploadId);
+
     /**
      * Upload a file directly (for server-side operations like thumbnails).
      *
@@ -57,6 +93,26 @@ public interface FileStoragePort {
      */
     Optional<InputStream> download(String storageKey);
 
+    /**
+     * Read a byte range of a file, e.g. to parse its header without fetching the whole object.
+     *
+     * @param storageKey The key (path) in storage
+     * @param offset     First byte to read
+     * @param length     Maximum number of bytes to read
+     * @return The bytes read, fewer than requested at the end of the file; empty if the file doesn't exist
+     */
+    Optional<byte[]> downloadRange(String storageKey, long offset, int length);
+
+    /**
+     * Stream a byte range of a file, for ranges too large to hold in memory.
+     *
+     * @param storageKey The key (path) in storage
+     * @param offset     First byte to read
+     * @param length     Number of bytes to read
+     * @return Stream of the range; empty if the file doesn't exist
+     */
+    Optional<InputStream> openRange(String storageKey, long offset, long length);
+
     /**
      * Delete a file from storage.
      *
@@ -72,6 +128,14 @@ public interface FileStoragePort {
      */
     boolean exists(String storageKey);
 
+    /**
+     * Check which of several files exist.
+     *
+     * @param storageKeys The keys (paths) in storage
+     * @return the keys that exist
+     */
+    Set<String> findExisting(Collection<String> storageKeys);
+
     /**
      * Copy a file within storage.
      *
@@ -79,4 +143,10 @@ public interface FileStoragePort {
      * @param destinationKey Destination key
      */
     void copy(String sourceKey, String destinationKey);
+
+    /**
+     * A part received for a multipart upload.
+     */
+    record UploadedPart(int partNumber, String eTag, long size) {
+    }
 }
@@ -6,15 +6,21 @@ import com.familyvault.core.application.dto.request.RegisterRequest;
 import com.familyvault.core.application.dto.response.AuthResponse;
 import com.familyvault.core.application.dto.response.UserResponse;
 import com.familyvault.core.application.exception.*;
+import com.familyvault.core.application.port.out.persistence.FamilyRepository;
 import com.familyvault.core.application.port.out.persistence.UserRepository;
+import com.familyvault.core.application.port.out.security.LoginAttemptStore;
 import com.familyvault.core.application.port.out.security.PasswordEncoderPort;
 import com.familyvault.core.application.port.out.security.TokenPort;
+import com.familyvault.core.domain.model.family.FamilyMember;
 import com.familyvault.core.domain.model.user.Email;
 import com.familyvault.core.domain.model.user.User;
 import com.familyvault.core.domain.model.user.UserId;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Instant;
+import java.util.stream.Collectors;
+
 /**
  * Application service for authentication operations.
  */
@@ -28,6 +34,8 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoderPort passwordEncoder;
     private final TokenPort tokenPort;
+    private final LoginAttemptStore loginAttemptStore;
+    private final FamilyRepository familyRepository;
 
     /**
      * Register a new user.
@@ -72,19 +80,23 @@ public class AuthService {
 
         // Verify password
         if (!passwordEncoder.matches(request.password(), user.getPasswordHash())) {
-            // Record failed attempt
-            user = user.recordFailedLogin(MAX_LOGIN_ATTEMPTS, LOCKOUT_MINUTES);
-            userRepository.save(user);
-
-            if (user.isLocked()) {
-                log.warn("Account locked after {} failed attempts: {}", MAX_LOGIN_ATTEMPTS, email);
-                throw new AccountLockedException(user.getLockedUntil());
+            // Counted in memory and flushed in batches; only a lockout is written right away
+            int attempts = loginAttemptStore.recordFailure(email, user.getFailedLoginAttempts());
+
+            if (attempts >= MAX_LOGIN_ATTEMPTS) {
+                // Reset first so no buffered increment lands on top of the persisted count
+                loginAttemptStore.reset(email);
+                Instant lockedUntil = Instant.now().plusSeconds(LOCKOUT_MINUTES * 60L);
+                userRepository.lockAccount(user.getId(), attempts, lockedUntil);
+                log.warn("Account locked after {} failed attempts: {}", attempts, email);
+                throw new AccountLockedException(lockedUntil);
             }
 
             throw new InvalidCredentialsException();
         }
 
         // Successful login
+        loginAttemptStore.reset(email);
         user = user.recordSuccessfulLogin();
         user = userRepository.save(user);
         log.info("User logged in: {}", user.getId());
@@ -96,21 +108,17 @@ public class AuthService {
      * Refresh access token using refresh token.
      */
     public AuthResponse refresh(RefreshTokenRequest request) {
-        UserId userId = tokenPort.validateRefreshToken(request.refreshToken())
+        // Revokes the old refresh token and stores the new one in a single round trip
+        TokenPort.RefreshTokenRotation rotation = tokenPort.rotateRefreshToken(request.refreshToken())
                 .orElseThrow(InvalidTokenException::new);
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+        User user = rotation.user();
 
         if (user.getAccountStatus() != User.AccountStatus.ACTIVE) {
             throw new InvalidTokenException("Account is not active");
         }
 
-        // Revoke old refresh token and generate new ones
-        tokenPort.revokeRefreshToken(request.refreshToken());
-
-        log.debug("Token refreshed for user: {}", userId);
-        return generateAuthResponse(user);
+        log.debug("Token refreshed for user: {}", user.getId());
+        return generateAuthResponse(user, rotation.refreshToken());
     }
 
     /**
@@ -139,10 +147,27 @@ public class AuthService {
     }
 
     private AuthResponse generateAuthResponse(User user) {
-        String accessToken = tokenPort.generateAccessToken(user.getId(), user.getEmail().value());
-        String refreshToken = tokenPort.generateRefreshToken(user.getId());
+        return generateAuthResponse(user, tokenPort.generateRefreshToken(user.getId()));
+    }
+
+    private AuthResponse generateAuthResponse(User user, String refreshToken) {
+        String accessToken = tokenPort.generateAccessToken(user.getId(), user.getEmail().value(), membershipClaims(user));
         long expiresIn = tokenPort.getAccessTokenExpirationSeconds();
 
         return AuthResponse.of(accessToken, refreshToken, expiresIn, UserResponse.from(user));
     }
+
+    /**
+     * Snapshot of the user's active memberships so file requests can be authorized from the token.
+     * The epoch is read with the user, before the memberships, so a concurrent change makes the
+     * claims look stale rather than fresh.
+     */
+    private TokenPort.MembershipClaims membershipClaims(User user) {
+        return new TokenPort.MembershipClaims(
+                user.getMembershipEpoch(),
+                familyRepository.findFamiliesByUser(user.getId()).stream()
+                        .filter(FamilyMember::isActive)
+                        .collect(Collectors.toMap(FamilyMember::getFamilyId, FamilyMember::getRole, (a, b) -> a))
+        );
+    }
 }
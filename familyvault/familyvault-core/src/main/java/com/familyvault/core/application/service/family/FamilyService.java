@@ -8,7 +8,9 @@ import com.familyvault.core.application.exception.FamilyNotFoundException;
 import com.familyvault.core.application.exception.UnauthorizedException;
 import com.familyvault.core.application.exception.UserNotFoundException;
 import com.familyvault.core.application.port.out.persistence.FamilyRepository;
+import com.familyvault.core.application.port.out.persistence.FamilyRepository.FamilySummary;
 import com.familyvault.core.application.port.out.persistence.UserRepository;
+import com.familyvault.core.application.port.out.security.MembershipClaimsPort;
 import com.familyvault.core.domain.model.family.Family;
 import com.familyvault.core.domain.model.family.FamilyId;
 import com.familyvault.core.domain.model.family.FamilyMember;
@@ -20,6 +22,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +32,7 @@ public class FamilyService {
 
     private final FamilyRepository familyRepository;
     private final UserRepository userRepository;
+    private final MembershipClaimsPort membershipClaims;
 
     @Transactional
     public FamilyResponse createFamily(CreateFamilyRequest request, UserId userId) {
@@ -81,7 +86,7 @@ public class FamilyService {
 
     @Transactional(readOnly = true)
     public List<FamilyResponse> listFamilies(UserId userId) {
-        return familyRepository.findFamiliesByUser(userId)
+        return familyRepository.findFamilySummariesByUser(userId)
                 .stream()
                 .map(this::toFamilyResponse)
                 .collect(Collectors.toList());
@@ -107,11 +112,14 @@ public class FamilyService {
 
         List<FamilyMember> members = familyRepository.findMembersByFamily(familyId);
 
+        // One query for all member profiles instead of one per member
+        Map<UserId, User> users = userRepository.findAllByIds(
+                        members.stream().map(FamilyMember::getUserId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
         return members.stream()
-                .map(member -> {
-                    User user = userRepository.findById(member.getUserId()).orElse(null);
-                    return toMemberResponse(member, user);
-                })
+                .map(member -> toMemberResponse(member, users.get(member.getUserId())))
                 .collect(Collectors.toList());
     }
 
@@ -165,6 +173,7 @@ public class FamilyService {
 
         targetMember.changeRole(newRole);
         familyRepository.saveMember(targetMember);
+        invalidateMembershipClaims(targetUserId);
     }
 
     @Transactional
@@ -185,6 +194,16 @@ public class FamilyService {
 
         targetMember.leave();
         familyRepository.saveMember(targetMember);
+        invalidateMembershipClaims(targetUserId);
+    }
+
+    /**
+     * Stop trusting membership claims in the target's existing access tokens.
+     * Their next refresh picks up the new role.
+     */
+    private void invalidateMembershipClaims(UserId userId) {
+        userRepository.incrementMembershipEpoch(userId);
+        membershipClaims.invalidate(userId);
     }
 
     private FamilyResponse toFamilyResponse(Family family) {
@@ -204,6 +223,15 @@ public class FamilyService {
                 .build();
     }
 
+    private FamilyResponse toFamilyResponse(FamilySummary summary) {
+        FamilyResponse response = toFamilyResponse(summary.family());
+        response.setRole(summary.role());
+        response.setMemberCount(summary.activeMemberCount());
+        response.setFileCount(summary.fileCount());
+        response.setStorageBytesByType(summary.bytesByType());
+        return response;
+    }
+
     private FamilyMemberResponse toMemberResponse(FamilyMember member, User user) {
         return FamilyMemberResponse.builder()
                 .id(member.getId())
@@ -0,0 +1,54 @@
+package com.familyvault.core.application.service.file;
+
+import com.familyvault.core.application.exception.InvalidCursorException;
+import com.familyvault.core.application.port.out.persistence.FileRepository.FilePosition;
+import com.familyvault.core.domain.model.file.FileSort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque page cursor: the listing order and the position of the last file of the previous
+ * page, Base64url encoded. The name goes last because it may contain the separator.
+ */
+record FileCursor(FileSort sort, FilePosition position) {
+
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        String raw = sort.name() + SEPARATOR
+                + position.createdAt() + SEPARATOR
+                + position.size() + SEPARATOR
+                + position.id() + SEPARATOR
+                + position.name();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException if the token is malformed or was issued for another order
+     */
+    static FileCursor decode(String token, FileSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5) {
+                throw new InvalidCursorException();
+            }
+            FileSort sort = FileSort.valueOf(parts[0]);
+            if (sort != expectedSort) {
+                throw new InvalidCursorException();
+            }
+            FilePosition position = new FilePosition(
+                    Instant.parse(parts[1]),
+                    parts[4],
+                    Long.parseLong(parts[2]),
+                    UUID.fromString(parts[3])
+            );
+            return new FileCursor(sort, position);
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
@@ -1,27 +1,59 @@
 package com.familyvault.core.application.service.file;
 
+import com.familyvault.core.application.dto.request.ConfirmBatchUploadRequest;
+import com.familyvault.core.application.dto.request.InitiateBatchUploadRequest;
 import com.familyvault.core.application.dto.request.InitiateUploadRequest;
+import com.familyvault.core.application.dto.request.PresignPartsRequest;
+import com.familyvault.core.application.dto.response.BatchConfirmUploadResponse;
+import com.familyvault.core.application.dto.response.BatchUploadUrlResponse;
+import com.familyvault.core.application.dto.response.FilePageResponse;
 import com.familyvault.core.application.dto.response.FileResponse;
+import com.familyvault.core.application.dto.response.MultipartUploadResponse;
+import com.familyvault.core.application.dto.response.PartUrlsResponse;
 import com.familyvault.core.application.dto.response.UploadUrlResponse;
+import com.familyvault.core.application.dto.response.UploadedPartsResponse;
+import com.familyvault.core.application.exception.ApplicationException;
 import com.familyvault.core.application.exception.FamilyNotFoundException;
 import com.familyvault.core.application.exception.FileNotFoundException;
+import com.familyvault.core.application.exception.InvalidUploadPartsException;
+import com.familyvault.core.application.exception.MultipartUploadInProgressException;
 import com.familyvault.core.application.exception.StorageQuotaExceededException;
 import com.familyvault.core.application.exception.UnauthorizedException;
+import com.familyvault.core.application.exception.UploadSessionNotFoundException;
+import com.familyvault.core.application.port.out.media.ThumbnailGenerationPort;
 import com.familyvault.core.application.port.out.persistence.FamilyRepository;
 import com.familyvault.core.application.port.out.persistence.FileRepository;
+import com.familyvault.core.application.port.out.persistence.FileRepository.FilePosition;
+import com.familyvault.core.application.port.out.persistence.StorageQuotaRepository;
+import com.familyvault.core.application.port.out.persistence.UploadSessionRepository;
+import com.familyvault.core.application.port.out.security.MembershipClaimsPort;
 import com.familyvault.core.application.port.out.storage.FileStoragePort;
-import com.familyvault.core.domain.model.family.Family;
+import com.familyvault.core.application.port.out.storage.FileStoragePort.UploadedPart;
 import com.familyvault.core.domain.model.family.FamilyId;
 import com.familyvault.core.domain.model.family.FamilyMember;
+import com.familyvault.core.domain.model.family.FamilyRole;
 import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.FileSort;
 import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.core.domain.model.file.StoredFile;
+import com.familyvault.core.domain.model.file.ThumbnailSize;
+import com.familyvault.core.domain.model.file.UploadSession;
 import com.familyvault.core.domain.model.user.UserId;
 import lombok.RequiredArgsConstructor;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Application service handling file operations.
@@ -32,10 +64,20 @@ public class FileService {
     private static final Duration UPLOAD_URL_EXPIRATION = Duration.ofMinutes(15);
     private static final Duration DOWNLOAD_URL_EXPIRATION = Duration.ofHours(1);
     private static final Duration THUMBNAIL_URL_EXPIRATION = Duration.ofHours(24);
+    // Leaves time to confirm an upload that started just before its URL expired
+    private static final Duration UPLOAD_RESERVATION_EXPIRATION = Duration.ofHours(1);
+    private static final int MAX_PAGE_SIZE = 100;
+    // A multipart upload may take a while on a poor connection; its quota is held as long
+    private static final Duration MULTIPART_SESSION_EXPIRATION = Duration.ofHours(24);
+    private static final Duration PART_URL_EXPIRATION = Duration.ofHours(1);
 
     private final FileRepository fileRepository;
     private final FamilyRepository familyRepository;
     private final FileStoragePort fileStorage;
+    private final MembershipClaimsPort membershipClaims;
+    private final StorageQuotaRepository storageQuota;
+    private final UploadSessionRepository uploadSessions;
+    private final ThumbnailGenerationPort thumbnails;
 
     /**
      * Initiate a file upload by generating a presigned URL.
@@ -43,29 +85,13 @@ public class FileService {
     public UploadUrlResponse initiateUpload(InitiateUploadRequest request, UserId uploaderId) {
         FamilyId familyId = FamilyId.of(request.familyId());
 
-        // Verify user is a member
-        FamilyMember member = familyRepository.findMember(familyId, uploaderId)
+        // Verify user is an active member
+        findActiveRole(familyId, uploaderId)
                 .orElseThrow(() -> new UnauthorizedException("Not a member of this family"));
 
-        if (!member.canUploadFiles()) {
-            throw new UnauthorizedException("Not authorized to upload files");
-        }
-
-        // Check storage quota
-        Family family = familyRepository.findById(familyId)
-                .orElseThrow(() -> new FamilyNotFoundException(familyId));
-
-        if (!family.hasStorageAvailable(request.fileSize())) {
-            throw new StorageQuotaExceededException(
-                    family.getStorageAvailableBytes(),
-                    request.fileSize()
-            );
-        }
-
         // Generate storage key
         String storageKey = generateStorageKey(familyId, request.fileName());
 
-        // Create file record (PROCESSING state)
         StoredFile file = StoredFile.create(
                 familyId,
                 request.folderId(),
@@ -75,7 +101,17 @@ public class FileService {
                 request.contentType(),
                 request.fileSize()
         );
-        file = fileRepository.saveFile(file);
+
+        // Reserve quota atomically so concurrent uploads cannot overshoot it together
+        reserveStorage(file, Instant.now().plus(UPLOAD_RESERVATION_EXPIRATION));
+
+        // Create file record (PROCESSING state)
+        try {
+            file = fileRepository.saveFile(file);
+        } catch (RuntimeException e) {
+            storageQuota.releaseReservation(file.getId());
+            throw e;
+        }
 
         // Generate presigned upload URL
         String uploadUrl = fileStorage.generateUploadUrl(
@@ -92,6 +128,90 @@ public class FileService {
         );
     }
 
+    /**
+     * Initiate several uploads into one family: one membership check, one quota reservation
+     * for the combined size, one batch insert and one signing pass. Invalid files and files
+     * that no longer fit in the quota are reported per item; the others go ahead.
+     */
+    public BatchUploadUrlResponse initiateUploads(InitiateBatchUploadRequest request, UserId uploaderId) {
+        FamilyId familyId = FamilyId.of(request.familyId());
+
+        findActiveRole(familyId, uploaderId)
+                .orElseThrow(() -> new UnauthorizedException("Not a member of this family"));
+
+        List<InitiateBatchUploadRequest.File> requested = request.files();
+        BatchUploadUrlResponse.Item[] items = new BatchUploadUrlResponse.Item[requested.size()];
+        Map<Integer, StoredFile> files = new LinkedHashMap<>();
+
+        for (int i = 0; i < requested.size(); i++) {
+            InitiateBatchUploadRequest.File entry = requested.get(i);
+            String problem = validateUpload(entry);
+            if (problem != null) {
+                items[i] = BatchUploadUrlResponse.Item.rejected(i, "INVALID_FILE", problem);
+                continue;
+            }
+            files.put(i, StoredFile.create(
+                    familyId,
+                    entry.folderId(),
+                    uploaderId,
+                    entry.fileName(),
+                    generateStorageKey(familyId, entry.fileName()),
+                    entry.contentType(),
+                    entry.fileSize()
+            ));
+        }
+
+        // Reserve the whole batch; if it does not fit, admit files in request order while they do
+        Instant expiresAt = Instant.now().plus(UPLOAD_RESERVATION_EXPIRATION);
+        if (!files.isEmpty() && !storageQuota.reserveAll(familyId, reservationSizes(files.values()), expiresAt)) {
+            long available = storageQuota.findAvailableBytes(familyId)
+                    .orElseThrow(() -> new FamilyNotFoundException(familyId));
+            Map<Integer, StoredFile> admitted = new LinkedHashMap<>();
+            long remaining = available;
+            for (Map.Entry<Integer, StoredFile> entry : files.entrySet()) {
+                StoredFile file = entry.getValue();
+                if (file.getFileSize() <= remaining) {
+                    admitted.put(entry.getKey(), file);
+                    remaining -= file.getFileSize();
+                }
+            }
+            if (admitted.isEmpty() || !storageQuota.reserveAll(familyId, reservationSizes(admitted.values()), expiresAt)) {
+                admitted.clear();
+            }
+            for (Map.Entry<Integer, StoredFile> entry : files.entrySet()) {
+                if (!admitted.containsKey(entry.getKey())) {
+                    StorageQuotaExceededException e =
+                            new StorageQuotaExceededException(available, entry.getValue().getFileSize());
+                    items[entry.getKey()] = BatchUploadUrlResponse.Item.rejected(
+                            entry.getKey(), e.getErrorCode(), e.getMessage());
+                }
+            }
+            files = admitted;
+        }
+
+        if (!files.isEmpty()) {
+            try {
+                fileRepository.insertFiles(List.copyOf(files.values()));
+            } catch (RuntimeException e) {
+                files.values().forEach(file -> storageQuota.releaseReservation(file.getId()));
+                throw e;
+            }
+        }
+
+        for (Map.Entry<Integer, StoredFile> entry : files.entrySet()) {
+            StoredFile file = entry.getValue();
+            String uploadUrl = fileStorage.generateUploadUrl(
+                    file.getStorageKey(),
+                    file.getMimeType(),
+                    UPLOAD_URL_EXPIRATION
+            );
+            items[entry.getKey()] = BatchUploadUrlResponse.Item.accepted(
+                    entry.getKey(), file.getId().value(), uploadUrl, file.getStorageKey());
+        }
+
+        return new BatchUploadUrlResponse(List.of(items), UPLOAD_URL_EXPIRATION.toSeconds());
+    }
+
     /**
      * Confirm upload completion and process the file.
      */
@@ -104,34 +224,320 @@ public class FileService {
             throw new UnauthorizedException("Not authorized to confirm this upload");
         }
 
+        // Storage was accounted for by the first confirmation
+        if (file.isActive()) {
+            return FileResponse.from(file, thumbnailUrl(file));
+        }
+
+        // The object of a multipart upload only exists once the upload is completed
+        if (uploadSessions.findByFileId(file.getId()).isPresent()) {
+            throw new MultipartUploadInProgressException(fileId);
+        }
+
         // Verify file exists in storage
         if (!fileStorage.exists(file.getStorageKey())) {
+            storageQuota.releaseReservation(file.getId());
             file = file.markFailed();
             fileRepository.saveFile(file);
             throw new FileNotFoundException(fileId);
         }
 
-        // Update family storage usage
-        Family family = familyRepository.findById(file.getFamilyId())
-                .orElseThrow(() -> new FamilyNotFoundException(file.getFamilyId()));
-        family = family.addStorageUsed(file.getFileSize());
-        familyRepository.save(family);
+        // Only the confirmation that activates the file charges for it
+        if (!fileRepository.activateFile(file.getId())) {
+            return confirmedElsewhere(file.getId());
+        }
+        file = markActive(file);
+        chargeStorage(file);
+        requestThumbnails(file);
 
-        // Mark as active (thumbnail generation would be async in production)
-        String thumbnailKey = null;
-        if (file.isImage()) {
-            thumbnailKey = generateThumbnailKey(file.getStorageKey());
-            // TODO: Async thumbnail generation
+        return FileResponse.from(file, thumbnailUrl(file));
+    }
+
+    /**
+     * Confirm several completed uploads. Objects are checked in one go, files are activated
+     * with one conditional update, reserved bytes are committed with one counter update per
+     * family and failed files are saved in one batch. Files that cannot be confirmed are
+     * reported per item, the others are confirmed.
+     */
+    public BatchConfirmUploadResponse confirmUploads(ConfirmBatchUploadRequest request, UserId userId) {
+        List<UUID> fileIds = request.fileIds().stream().distinct().toList();
+        Map<UUID, StoredFile> found = new HashMap<>();
+        fileRepository.findFilesByIds(fileIds.stream().map(FileId::of).toList())
+                .forEach(file -> found.put(file.getId().value(), file));
+
+        Map<UUID, BatchConfirmUploadResponse.Item> items = new HashMap<>();
+        List<StoredFile> pending = new ArrayList<>();
+        for (UUID fileId : fileIds) {
+            StoredFile file = found.get(fileId);
+            if (file == null) {
+                items.put(fileId, rejected(fileId, new FileNotFoundException(fileId)));
+            } else if (!file.getUploadedBy().equals(userId)) {
+                items.put(fileId, rejected(fileId, new UnauthorizedException("Not authorized to confirm this upload")));
+            } else if (file.isActive()) {
+                // Storage was accounted for by the first confirmation
+                items.put(fileId, BatchConfirmUploadResponse.Item.confirmed(FileResponse.from(file, thumbnailUrl(file))));
+            } else {
+                pending.add(file);
+            }
         }
 
-        file = file.markProcessed(thumbnailKey, null, null, null);
-        file = fileRepository.saveFile(file);
+        // The objects of multipart uploads only exist once the uploads are completed
+        Set<FileId> multipart = pending.isEmpty()
+                ? Set.of()
+                : uploadSessions.findFileIdsWithSession(pending.stream().map(StoredFile::getId).toList());
+        if (!multipart.isEmpty()) {
+            for (StoredFile file : pending) {
+                if (multipart.contains(file.getId())) {
+                    UUID fileId = file.getId().value();
+                    items.put(fileId, rejected(fileId, new MultipartUploadInProgressException(fileId)));
+                }
+            }
+            pending = pending.stream().filter(file -> !multipart.contains(file.getId())).toList();
+        }
 
-        String thumbnailUrl = thumbnailKey != null
-                ? fileStorage.generateViewUrl(thumbnailKey, "image/jpeg", THUMBNAIL_URL_EXPIRATION)
-                : null;
+        Set<String> existing = fileStorage.findExisting(pending.stream().map(StoredFile::getStorageKey).toList());
+        List<StoredFile> uploaded = new ArrayList<>();
+        List<StoredFile> failed = new ArrayList<>();
+        for (StoredFile file : pending) {
+            if (existing.contains(file.getStorageKey())) {
+                uploaded.add(file);
+            } else {
+                storageQuota.releaseReservation(file.getId());
+                failed.add(file.markFailed());
+                UUID fileId = file.getId().value();
+                items.put(fileId, rejected(fileId, new FileNotFoundException(fileId)));
+            }
+        }
 
-        return FileResponse.from(file, thumbnailUrl);
+        // Only files this batch activates are charged; overlapping confirmations report the others
+        Set<FileId> claimed = uploaded.isEmpty()
+                ? Set.of()
+                : fileRepository.activateFiles(uploaded.stream().map(StoredFile::getId).toList());
+        List<FileId> confirmedElsewhere = uploaded.stream()
+                .map(StoredFile::getId)
+                .filter(id -> !claimed.contains(id))
+                .toList();
+        uploaded.removeIf(file -> !claimed.contains(file.getId()));
+        Map<UUID, StoredFile> current = new HashMap<>();
+        if (!confirmedElsewhere.isEmpty()) {
+            fileRepository.findFilesByIds(confirmedElsewhere)
+                    .forEach(file -> current.put(file.getId().value(), file));
+        }
+        for (FileId id : confirmedElsewhere) {
+            StoredFile file = current.get(id.value());
+            items.put(id.value(), file != null && file.isActive()
+                    ? BatchConfirmUploadResponse.Item.confirmed(FileResponse.from(file, thumbnailUrl(file)))
+                    : rejected(id.value(), new FileNotFoundException(id.value())));
+        }
+
+        // Move the reserved bytes to used; expired reservations are charged against what is left
+        Set<FileId> committed = storageQuota.commitReservations(uploaded.stream().map(StoredFile::getId).toList());
+        Map<FamilyId, List<StoredFile>> unreserved = uploaded.stream()
+                .filter(file -> !committed.contains(file.getId()))
+                .collect(Collectors.groupingBy(StoredFile::getFamilyId));
+        Set<FileId> overQuota = new HashSet<>();
+        unreserved.forEach((familyId, files) -> {
+            long total = files.stream().mapToLong(StoredFile::getFileSize).sum();
+            if (storageQuota.addUsed(familyId, total)) {
+                return;
+            }
+            // Not all of them fit; charge them one by one
+            for (StoredFile file : files) {
+                if (!storageQuota.addUsed(familyId, file.getFileSize())) {
+                    overQuota.add(file.getId());
+                }
+            }
+        });
+
+        List<StoredFile> activated = new ArrayList<>();
+        for (StoredFile file : uploaded) {
+            if (overQuota.contains(file.getId())) {
+                fileStorage.delete(file.getStorageKey());
+                failed.add(file.markFailed());
+                long available = storageQuota.findAvailableBytes(file.getFamilyId()).orElse(0);
+                UUID fileId = file.getId().value();
+                items.put(fileId, rejected(fileId, new StorageQuotaExceededException(available, file.getFileSize())));
+            } else {
+                activated.add(markActive(file));
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            fileRepository.updateFileStates(failed);
+        }
+        for (StoredFile file : activated) {
+            requestThumbnails(file);
+            items.put(file.getId().value(),
+                    BatchConfirmUploadResponse.Item.confirmed(FileResponse.from(file, thumbnailUrl(file))));
+        }
+
+        return new BatchConfirmUploadResponse(fileIds.stream().map(items::get).toList());
+    }
+
+    /**
+     * Start a multipart upload for a large file. The client then asks for part URLs, uploads
+     * the parts in any order and in parallel, and completes the upload; after a failure it
+     * lists the parts received and uploads only the rest.
+     */
+    public MultipartUploadResponse initiateMultipartUpload(InitiateUploadRequest request, UserId uploaderId) {
+        FamilyId familyId = FamilyId.of(request.familyId());
+
+        findActiveRole(familyId, uploaderId)
+                .orElseThrow(() -> new UnauthorizedException("Not a member of this family"));
+
+        String storageKey = generateStorageKey(familyId, request.fileName());
+
+        StoredFile file = StoredFile.create(
+                familyId,
+                request.folderId(),
+                uploaderId,
+                request.fileName(),
+                storageKey,
+                request.contentType(),
+                request.fileSize()
+        );
+
+        // The reservation lasts as long as the session
+        Instant expiresAt = Instant.now().plus(MULTIPART_SESSION_EXPIRATION);
+        reserveStorage(file, expiresAt);
+
+        UploadSession session;
+        try {
+            file = fileRepository.saveFile(file);
+            String uploadId = fileStorage.createMultipartUpload(storageKey, request.contentType());
+            session = UploadSession.start(file, uploadId, expiresAt);
+            uploadSessions.save(session);
+        } catch (RuntimeException e) {
+            storageQuota.releaseReservation(file.getId());
+            throw e;
+        }
+
+        return new MultipartUploadResponse(
+                file.getId().value(),
+                storageKey,
+                session.partSize(),
+                session.partCount(),
+                expiresAt
+        );
+    }
+
+    /**
+     * Get presigned URLs for parts of a multipart upload.
+     */
+    public PartUrlsResponse getUploadPartUrls(UUID fileId, PresignPartsRequest request, UserId userId) {
+        UploadSession session = findUploadSession(fileId, userId);
+
+        List<PartUrlsResponse.PartUrl> parts = new ArrayList<>();
+        for (int partNumber : request.partNumbers()) {
+            if (partNumber < 1 || partNumber > session.partCount()) {
+                throw new InvalidUploadPartsException(String.format(
+                        "Part number %d is outside 1-%d", partNumber, session.partCount()));
+            }
+            String uploadUrl = fileStorage.generateUploadPartUrl(
+                    session.storageKey(),
+                    session.uploadId(),
+                    partNumber,
+                    PART_URL_EXPIRATION
+            );
+            parts.add(new PartUrlsResponse.PartUrl(partNumber, uploadUrl));
+        }
+
+        return new PartUrlsResponse(parts, PART_URL_EXPIRATION.toSeconds());
+    }
+
+    /**
+     * List the parts of a multipart upload that storage has received.
+     */
+    public UploadedPartsResponse getUploadedParts(UUID fileId, UserId userId) {
+        UploadSession session = findUploadSession(fileId, userId);
+
+        List<UploadedPartsResponse.Part> parts = fileStorage.listUploadedParts(session.storageKey(), session.uploadId())
+                .stream()
+                .map(part -> new UploadedPartsResponse.Part(part.partNumber(), part.size()))
+                .toList();
+
+        return new UploadedPartsResponse(session.partSize(), session.partCount(), parts);
+    }
+
+    /**
+     * Complete a multipart upload once every part has been received, and activate the file.
+     */
+    public FileResponse completeMultipartUpload(UUID fileId, UserId userId) {
+        Optional<UploadSession> found = uploadSessions.findByFileId(FileId.of(fileId))
+                .filter(s -> !s.isExpired());
+        if (found.isEmpty()) {
+            // A retried completion gets the file the first one activated
+            StoredFile completed = fileRepository.findFileById(FileId.of(fileId))
+                    .filter(file -> file.isActive() && file.getUploadedBy().equals(userId))
+                    .orElseThrow(() -> new UploadSessionNotFoundException(fileId));
+            return FileResponse.from(completed, thumbnailUrl(completed));
+        }
+        UploadSession session = found.get();
+        if (!session.uploadedBy().equals(userId)) {
+            throw new UnauthorizedException("Not authorized to upload this file");
+        }
+        StoredFile file = fileRepository.findFileById(session.fileId())
+                .orElseThrow(() -> new FileNotFoundException(fileId));
+
+        // The parts as storage has them, rather than ETags reported by the client
+        Map<Integer, UploadedPart> received = new HashMap<>();
+        fileStorage.listUploadedParts(session.storageKey(), session.uploadId())
+                .forEach(part -> received.put(part.partNumber(), part));
+
+        List<UploadedPart> parts = new ArrayList<>(session.partCount());
+        List<Integer> missing = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= session.partCount(); partNumber++) {
+            UploadedPart part = received.get(partNumber);
+            if (part == null) {
+                missing.add(partNumber);
+            } else {
+                parts.add(part);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new InvalidUploadPartsException(String.format("%d of %d parts are missing, first: %s",
+                    missing.size(), session.partCount(), missing.subList(0, Math.min(missing.size(), 20))));
+        }
+
+        // Storage rejects a short part other than the last one as too small; report it as the client's mistake
+        long lastPartSize = file.getFileSize() - session.partSize() * (session.partCount() - 1);
+        for (UploadedPart part : parts) {
+            long expected = part.partNumber() < session.partCount() ? session.partSize() : lastPartSize;
+            if (part.size() != expected) {
+                throw new InvalidUploadPartsException(String.format(
+                        "Part %d holds %d bytes, expected %d", part.partNumber(), part.size(), expected));
+            }
+        }
+
+        fileStorage.completeMultipartUpload(session.storageKey(), session.uploadId(), parts);
+        uploadSessions.delete(session.fileId());
+
+        // As with single uploads, only the completion that activates the file charges for it
+        if (!fileRepository.activateFile(file.getId())) {
+            return confirmedElsewhere(file.getId());
+        }
+        file = markActive(file);
+        chargeStorage(file);
+        requestThumbnails(file);
+
+        return FileResponse.from(file, thumbnailUrl(file));
+    }
+
+    /**
+     * Abort a multipart upload and drop the file it was creating.
+     */
+    public void abortMultipartUpload(UUID fileId, UserId userId) {
+        UploadSession session = uploadSessions.findByFileId(FileId.of(fileId))
+                .orElseThrow(() -> new UploadSessionNotFoundException(fileId));
+        if (!session.uploadedBy().equals(userId)) {
+            throw new UnauthorizedException("Not authorized to abort this upload");
+        }
+
+        fileStorage.abortMultipartUpload(session.storageKey(), session.uploadId());
+        storageQuota.releaseReservation(session.fileId());
+        uploadSessions.delete(session.fileId());
+        // A completion that got in first has activated and charged the file; it stays
+        fileRepository.deleteFile(session.fileId(), StoredFile.FileStatus.PROCESSING);
     }
 
     /**
@@ -142,7 +548,7 @@ public class FileService {
                 .orElseThrow(() -> new FileNotFoundException(fileId));
 
         // Verify user is a family member
-        if (!familyRepository.isMember(file.getFamilyId(), userId)) {
+        if (findActiveRole(file.getFamilyId(), userId).isEmpty()) {
             throw new UnauthorizedException("Not authorized to access this file");
         }
 
@@ -156,70 +562,214 @@ public class FileService {
         StoredFile file = fileRepository.findFileById(FileId.of(fileId))
                 .orElseThrow(() -> new FileNotFoundException(fileId));
 
-        if (!familyRepository.isMember(file.getFamilyId(), userId)) {
+        if (findActiveRole(file.getFamilyId(), userId).isEmpty()) {
             throw new UnauthorizedException("Not authorized to access this file");
         }
 
+        // Videos play from their fast-start copy once it exists
         return fileStorage.generateViewUrl(
-                file.getStorageKey(),
+                file.getPlaybackKey() != null ? file.getPlaybackKey() : file.getStorageKey(),
                 file.getMimeType(),
                 DOWNLOAD_URL_EXPIRATION
         );
     }
 
     /**
-     * List files in a family/folder.
+     * List a page of files in a family/folder. Pages are addressed by cursor rather than
+     * offset, so deep pages cost the same as the first and no total is counted.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page
      */
-    public List<FileResponse> listFiles(UUID familyId, UUID folderId, FileType type, int page, int size, UserId userId) {
+    public FilePageResponse listFiles(UUID familyId, UUID folderId, FileType type, FileSort sort,
+                                      String cursor, int size, UserId userId) {
         FamilyId famId = FamilyId.of(familyId);
 
-        if (!familyRepository.isMember(famId, userId)) {
+        if (findActiveRole(famId, userId).isEmpty()) {
             throw new UnauthorizedException("Not authorized to access this family");
         }
 
-        List<StoredFile> files = fileRepository.findFiles(famId, folderId, type, page, size);
+        FilePosition after = cursor != null && !cursor.isBlank()
+                ? FileCursor.decode(cursor, sort).position()
+                : null;
+        int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+
+        // One extra row tells whether there is a next page
+        List<StoredFile> files = fileRepository.findFiles(famId, folderId, type, sort, after, limit + 1);
+        boolean hasMore = files.size() > limit;
+        if (hasMore) {
+            files = files.subList(0, limit);
+        }
 
-        return files.stream()
-                .map(file -> {
-                    String thumbnailUrl = file.getThumbnailKey() != null
-                            ? fileStorage.generateViewUrl(file.getThumbnailKey(), "image/jpeg", THUMBNAIL_URL_EXPIRATION)
-                            : null;
-                    return FileResponse.from(file, thumbnailUrl);
-                })
+        List<FileResponse> items = files.stream()
+                .map(file -> FileResponse.from(file, thumbnailUrl(file)))
                 .toList();
+        String nextCursor = hasMore
+                ? new FileCursor(sort, FilePosition.of(files.get(limit - 1))).encode()
+                : null;
+
+        return new FilePageResponse(items, nextCursor);
     }
 
     /**
-     * Delete a file.
+     * Delete a file. The row is removed first, conditionally on the status it was read with,
+     * so of concurrent deletions only the one that removed it settles the family's storage
+     * and deletes the objects.
      */
     public void deleteFile(UUID fileId, UserId userId) {
         StoredFile file = fileRepository.findFileById(FileId.of(fileId))
                 .orElseThrow(() -> new FileNotFoundException(fileId));
 
         // Check permissions
-        FamilyMember member = familyRepository.findMember(file.getFamilyId(), userId)
+        FamilyRole role = findActiveRole(file.getFamilyId(), userId)
                 .orElseThrow(() -> new UnauthorizedException("Not a member of this family"));
 
         // Only uploader or admin can delete
         boolean isUploader = file.getUploadedBy().equals(userId);
-        if (!isUploader && !member.canDeleteFiles()) {
+        if (!isUploader && !role.isAdmin()) {
             throw new UnauthorizedException("Not authorized to delete this file");
         }
 
+        // A confirmation may have activated the file since it was read; go by its new status
+        while (!fileRepository.deleteFile(file.getId(), file.getStatus())) {
+            Optional<StoredFile> current = fileRepository.findFileById(file.getId());
+            if (current.isEmpty()) {
+                return; // deleted concurrently
+            }
+            file = current.get();
+        }
+
+        // Update family storage usage; unconfirmed uploads only hold a reservation
+        if (file.isActive()) {
+            storageQuota.removeUsed(file.getFamilyId(), file.getFileSize());
+        } else {
+            storageQuota.releaseReservation(file.getId());
+        }
+
         // Delete from storage
         fileStorage.delete(file.getStorageKey());
         if (file.getThumbnailKey() != null) {
-            fileStorage.delete(file.getThumbnailKey());
+            for (ThumbnailSize size : ThumbnailSize.values()) {
+                fileStorage.delete(size.keyFor(file.getStorageKey()));
+            }
+        }
+        if (file.getPlaybackKey() != null) {
+            fileStorage.delete(file.getPlaybackKey());
+        }
+    }
+
+    /**
+     * Role of an active member, taken from the verified token when it vouches for the
+     * membership and from the repository otherwise.
+     */
+    private Optional<FamilyRole> findActiveRole(FamilyId familyId, UserId userId) {
+        Optional<FamilyRole> claimed = membershipClaims.findClaimedRole(familyId, userId);
+        if (claimed.isPresent()) {
+            return claimed;
         }
+        return familyRepository.findMember(familyId, userId)
+                .filter(FamilyMember::isActive)
+                .map(FamilyMember::getRole);
+    }
+
+    /**
+     * Checks a batch entry the way bean validation checks a single upload request.
+     *
+     * @return what is wrong with the entry, or null if it is valid
+     */
+    private static String validateUpload(InitiateBatchUploadRequest.File entry) {
+        if (entry == null) {
+            return "File is required";
+        }
+        if (entry.fileName() == null || entry.fileName().isBlank()) {
+            return "File name is required";
+        }
+        if (entry.contentType() == null || entry.contentType().isBlank()) {
+            return "Content type is required";
+        }
+        if (entry.fileSize() <= 0) {
+            return "File size must be positive";
+        }
+        return null;
+    }
+
+    private static Map<FileId, Long> reservationSizes(Collection<StoredFile> files) {
+        Map<FileId, Long> sizes = new HashMap<>();
+        files.forEach(file -> sizes.put(file.getId(), file.getFileSize()));
+        return sizes;
+    }
+
+    /**
+     * Session of an unexpired multipart upload started by the user.
+     */
+    private UploadSession findUploadSession(UUID fileId, UserId userId) {
+        UploadSession session = uploadSessions.findByFileId(FileId.of(fileId))
+                .filter(s -> !s.isExpired())
+                .orElseThrow(() -> new UploadSessionNotFoundException(fileId));
+        if (!session.uploadedBy().equals(userId)) {
+            throw new UnauthorizedException("Not authorized to upload this file");
+        }
+        return session;
+    }
+
+    /**
+     * Result for a confirmation that lost the race to activate the file: the file as the
+     * winner left it, or not found if the winner could not keep it.
+     */
+    private FileResponse confirmedElsewhere(FileId fileId) {
+        StoredFile file = fileRepository.findFileById(fileId)
+                .filter(StoredFile::isActive)
+                .orElseThrow(() -> new FileNotFoundException(fileId.value()));
+        return FileResponse.from(file, thumbnailUrl(file));
+    }
+
+    /**
+     * Move the reserved bytes of an activated file to used; an expired reservation is charged
+     * against what is left. A file that no longer fits is removed and marked failed.
+     */
+    private void chargeStorage(StoredFile file) {
+        if (storageQuota.commitReservation(file.getId())
+                || storageQuota.addUsed(file.getFamilyId(), file.getFileSize())) {
+            return;
+        }
+        fileStorage.delete(file.getStorageKey());
+        fileRepository.saveFile(file.markFailed());
+        throw new StorageQuotaExceededException(
+                storageQuota.findAvailableBytes(file.getFamilyId()).orElse(0),
+                file.getFileSize()
+        );
+    }
 
-        // Update family storage usage
-        Family family = familyRepository.findById(file.getFamilyId())
+    private void reserveStorage(StoredFile file, Instant expiresAt) {
+        if (storageQuota.reserve(file.getFamilyId(), file.getId(), file.getFileSize(), expiresAt)) {
+            return;
+        }
+        long available = storageQuota.findAvailableBytes(file.getFamilyId())
                 .orElseThrow(() -> new FamilyNotFoundException(file.getFamilyId()));
-        family = family.removeStorageUsed(file.getFileSize());
-        familyRepository.save(family);
+        throw new StorageQuotaExceededException(available, file.getFileSize());
+    }
 
-        // Delete record
-        fileRepository.deleteFile(file.getId());
+    /**
+     * Mark an uploaded file as active. Images get their thumbnail key once the thumbnails
+     * exist, see {@link #requestThumbnails}.
+     */
+    private StoredFile markActive(StoredFile file) {
+        return file.markProcessed(null, null, null, null);
+    }
+
+    private void requestThumbnails(StoredFile file) {
+        if (file.isImage()) {
+            thumbnails.submit(file);
+        }
+    }
+
+    private static BatchConfirmUploadResponse.Item rejected(UUID fileId, ApplicationException e) {
+        return BatchConfirmUploadResponse.Item.rejected(fileId, e.getErrorCode(), e.getMessage());
+    }
+
+    private String thumbnailUrl(StoredFile file) {
+        return file.getThumbnailKey() != null
+                ? fileStorage.generateViewUrl(file.getThumbnailKey(), "image/jpeg", THUMBNAIL_URL_EXPIRATION)
+                : null;
     }
 
     private String generateStorageKey(FamilyId familyId, String fileName) {
@@ -229,10 +779,4 @@ public class FileService {
         return String.format("families/%s/files/%s_%s_%s",
                 familyId.value(), timestamp, uuid, sanitizedName);
     }
-
-    private String generateThumbnailKey(String originalKey) {
-        int lastDot = originalKey.lastIndexOf('.');
-        String baseName = lastDot > 0 ? originalKey.substring(0, lastDot) : originalKey;
-        return baseName + "_thumb.jpg";
-    }
 }
@@ -112,7 +112,7 @@ public class FamilyMember {
     }
 
     public boolean isAdmin() {
-        return role == FamilyRole.ADMIN || role == FamilyRole.OWNER;
+        return role != null && role.isAdmin();
     }
 
     public boolean canManageMembers() {
@@ -17,5 +17,9 @@ public enum FamilyRole {
     /**
      * Regular member - can view and upload content
      */
-    MEMBER
+    MEMBER;
+
+    public boolean isAdmin() {
+        return this == ADMIN || this == OWNER;
+    }
 }
@@ -0,0 +1,14 @@
+package com.familyvault.core.domain.model.file;
+
+/**
+ * Orders available for file listings. Every order ends with the file ID so that positions
+ * are unique and listings can be paged by keyset.
+ */
+public enum FileSort {
+    /** Newest first */
+    CREATED,
+    /** By original name, A to Z */
+    NAME,
+    /** Largest first */
+    SIZE
+}
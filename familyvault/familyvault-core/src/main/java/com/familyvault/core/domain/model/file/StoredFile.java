@@ -36,6 +36,7 @@ public class StoredFile {
     private final Integer width;
     private final Integer height;
     private final Integer durationSeconds;
+    private final String playbackKey; // Fast-start copy of a video, served for viewing
 
     // Metadata (EXIF, etc.)
     private final Map<String, Object> metadata;
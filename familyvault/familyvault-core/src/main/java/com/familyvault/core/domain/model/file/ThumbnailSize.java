@@ -0,0 +1,34 @@
+package com.familyvault.core.domain.model.file;
+
+/**
+ * JPEG derivatives generated for images, each fitting a square of {@code maxEdge} pixels.
+ * {@link #SMALL} is the one stored as a file's thumbnail key; the others are found next to
+ * it by naming convention.
+ */
+public enum ThumbnailSize {
+    /** Grid and list views */
+    SMALL(320, "thumb"),
+    /** Full-screen preview on phones */
+    LARGE(1280, "preview");
+
+    private final int maxEdge;
+    private final String suffix;
+
+    ThumbnailSize(int maxEdge, String suffix) {
+        this.maxEdge = maxEdge;
+        this.suffix = suffix;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    /**
+     * Storage key of this derivative of an original.
+     */
+    public String keyFor(String originalKey) {
+        int lastDot = originalKey.lastIndexOf('.');
+        String baseName = lastDot > 0 ? originalKey.substring(0, lastDot) : originalKey;
+        return baseName + "_" + suffix + ".jpg";
+    }
+}
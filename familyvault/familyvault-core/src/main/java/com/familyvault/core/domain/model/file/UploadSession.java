@@ -0,0 +1,61 @@
+package com.familyvault.core.domain.model.file;
+
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.user.UserId;
+
+import java.time.Instant;
+
+/**
+ * A multipart upload in progress: the file is sent in {@code partCount} parts of
+ * {@code partSize} bytes (the last one may be shorter), which the client can upload in
+ * parallel and resume after a failure.
+ */
+public record UploadSession(
+        FileId fileId,
+        FamilyId familyId,
+        UserId uploadedBy,
+        String storageKey,
+        String uploadId,
+        long partSize,
+        int partCount,
+        Instant createdAt,
+        Instant expiresAt
+) {
+
+    // S3 rejects parts below 5 MiB except the last; larger parts mean fewer requests
+    private static final long MIN_PART_SIZE = 8L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    // Well below the S3 limit of 10,000, so a resume never has to list many pages of parts
+    private static final int TARGET_MAX_PARTS = 1000;
+    private static final long MIB = 1024 * 1024;
+
+    public static UploadSession start(StoredFile file, String uploadId, Instant expiresAt) {
+        long partSize = partSizeFor(file.getFileSize());
+        int partCount = (int) Math.max(1, (file.getFileSize() + partSize - 1) / partSize);
+        return new UploadSession(
+                file.getId(),
+                file.getFamilyId(),
+                file.getUploadedBy(),
+                file.getStorageKey(),
+                uploadId,
+                partSize,
+                partCount,
+                Instant.now(),
+                expiresAt
+        );
+    }
+
+    /**
+     * Part size for a file: at least 8 MiB, and large enough to keep the file within
+     * 1,000 parts, rounded up to whole MiB.
+     */
+    public static long partSizeFor(long fileSize) {
+        long size = (fileSize + TARGET_MAX_PARTS - 1) / TARGET_MAX_PARTS;
+        size = (size + MIB - 1) / MIB * MIB;
+        return Math.min(MAX_PART_SIZE, Math.max(MIN_PART_SIZE, size));
+    }
+
+    public boolean isExpired() {
+        return Instant.now().isAfter(expiresAt);
+    }
+}
@@ -27,6 +27,12 @@ public class User {
     private final Instant lockedUntil;
     private final Instant lastLoginAt;
 
+    /**
+     * Bumped whenever the user's family memberships change; tokens issued
+     * with an older epoch no longer vouch for memberships.
+     */
+    private final long membershipEpoch;
+
     private final Instant createdAt;
     private final Instant updatedAt;
 
@@ -0,0 +1,102 @@
+package com.familyvault.core.application.service.family;
+
+import com.familyvault.core.application.dto.response.FamilyMemberResponse;
+import com.familyvault.core.application.exception.UnauthorizedException;
+import com.familyvault.core.application.port.out.persistence.FamilyRepository;
+import com.familyvault.core.application.port.out.persistence.UserRepository;
+import com.familyvault.core.application.port.out.security.MembershipClaimsPort;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyMember;
+import com.familyvault.core.domain.model.user.Email;
+import com.familyvault.core.domain.model.user.User;
+import com.familyvault.core.domain.model.user.UserId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class FamilyServiceTest {
+
+    private final FamilyRepository familyRepository = mock(FamilyRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final FamilyService familyService =
+            new FamilyService(familyRepository, userRepository, mock(MembershipClaimsPort.class));
+
+    private final FamilyId familyId = FamilyId.generate();
+    private final UserId caller = UserId.generate();
+
+    /**
+     * Every repository call is one statement, so the calls made must not grow with the member count.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 200})
+    void listMembersQueriesAConstantNumberOfTimes(int memberCount) {
+        List<FamilyMember> members = IntStream.range(0, memberCount)
+                .mapToObj(i -> FamilyMember.createActive(familyId, UserId.generate()))
+                .toList();
+        List<User> users = members.stream()
+                .map(member -> user(member.getUserId()))
+                .toList();
+        when(familyRepository.isMember(familyId, caller)).thenReturn(true);
+        when(familyRepository.findMembersByFamily(familyId)).thenReturn(members);
+        when(userRepository.findAllByIds(anyCollection())).thenReturn(users);
+
+        List<FamilyMemberResponse> response = familyService.listMembers(familyId, caller);
+
+        assertThat(response).hasSize(memberCount);
+        assertThat(response).extracting(FamilyMemberResponse::getUserEmail)
+                .containsExactlyElementsOf(users.stream().map(user -> user.getEmail().value()).toList());
+        verify(familyRepository).isMember(familyId, caller);
+        verify(familyRepository).findMembersByFamily(familyId);
+        verify(userRepository, times(1)).findAllByIds(anyCollection());
+        verifyNoMoreInteractions(familyRepository, userRepository);
+    }
+
+    @Test
+    void listMembersLeavesProfileFieldsEmptyForMissingUsers() {
+        FamilyMember member = FamilyMember.createActive(familyId, UserId.generate());
+        when(familyRepository.isMember(familyId, caller)).thenReturn(true);
+        when(familyRepository.findMembersByFamily(familyId)).thenReturn(List.of(member));
+        when(userRepository.findAllByIds(anyCollection())).thenReturn(List.of());
+
+        List<FamilyMemberResponse> response = familyService.listMembers(familyId, caller);
+
+        assertThat(response).singleElement().satisfies(entry -> {
+            assertThat(entry.getUserEmail()).isNull();
+            assertThat(entry.getUserFirstName()).isNull();
+        });
+    }
+
+    @Test
+    void listMembersRejectsNonMembersBeforeLoadingMembers() {
+        when(familyRepository.isMember(familyId, caller)).thenReturn(false);
+
+        assertThatThrownBy(() -> familyService.listMembers(familyId, caller))
+                .isInstanceOf(UnauthorizedException.class);
+        verify(familyRepository).isMember(familyId, caller);
+        verifyNoMoreInteractions(familyRepository);
+        verifyNoInteractions(userRepository);
+    }
+
+    private static User user(UserId id) {
+        return User.builder()
+                .id(id)
+                .email(Email.of(id.value() + "@example.com"))
+                .firstName("First")
+                .lastName("Last")
+                .accountStatus(User.AccountStatus.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,441 @@
+package com.familyvault.core.application.service.file;
+
+import com.familyvault.core.application.dto.request.ConfirmBatchUploadRequest;
+import com.familyvault.core.application.dto.response.BatchConfirmUploadResponse;
+import com.familyvault.core.application.dto.response.FileResponse;
+import com.familyvault.core.application.exception.FileNotFoundException;
+import com.familyvault.core.application.exception.InvalidUploadPartsException;
+import com.familyvault.core.application.exception.MultipartUploadInProgressException;
+import com.familyvault.core.application.exception.StorageQuotaExceededException;
+import com.familyvault.core.application.port.out.media.ThumbnailGenerationPort;
+import com.familyvault.core.application.port.out.persistence.FamilyRepository;
+import com.familyvault.core.application.port.out.persistence.FileRepository;
+import com.familyvault.core.application.port.out.persistence.StorageQuotaRepository;
+import com.familyvault.core.application.port.out.persistence.UploadSessionRepository;
+import com.familyvault.core.application.port.out.security.MembershipClaimsPort;
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import com.familyvault.core.application.port.out.storage.FileStoragePort.UploadedPart;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.StoredFile;
+import com.familyvault.core.domain.model.file.UploadSession;
+import com.familyvault.core.domain.model.user.UserId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Storage accounting of upload confirmations and deletions. Files and the family's usage
+ * live in maps the mocked ports read and update atomically, so confirmations and deletions
+ * can race like they do against the database.
+ */
+class FileServiceTest {
+
+    private static final int THREADS = 16;
+    private static final long FILE_SIZE = 5_000;
+    private static final long PART_SIZE = 8L * 1024 * 1024;
+
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final FileStoragePort fileStorage = mock(FileStoragePort.class);
+    private final StorageQuotaRepository storageQuota = mock(StorageQuotaRepository.class);
+    private final UploadSessionRepository uploadSessions = mock(UploadSessionRepository.class);
+    private final MembershipClaimsPort membershipClaims = mock(MembershipClaimsPort.class);
+    private final FileService fileService = new FileService(fileRepository, mock(FamilyRepository.class),
+            fileStorage, membershipClaims, storageQuota, uploadSessions,
+            mock(ThumbnailGenerationPort.class));
+
+    private final Map<FileId, StoredFile> rows = new ConcurrentHashMap<>();
+    private final Map<FileId, Long> reservations = new ConcurrentHashMap<>();
+    private final Map<FileId, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicInteger charges = new AtomicInteger();
+    private final AtomicLong quota = new AtomicLong(Long.MAX_VALUE);
+
+    private final FamilyId familyId = FamilyId.generate();
+    private final UserId uploader = UserId.generate();
+
+    @BeforeEach
+    void setUp() {
+        when(fileRepository.findFileById(any())).thenAnswer(call -> Optional.ofNullable(rows.get(call.<FileId>getArgument(0))));
+        when(fileRepository.saveFile(any())).thenAnswer(call -> {
+            StoredFile file = call.getArgument(0);
+            rows.put(file.getId(), file);
+            return file;
+        });
+        when(fileRepository.activateFile(any())).thenAnswer(call -> activate(call.getArgument(0)));
+        when(fileRepository.activateFiles(any())).thenAnswer(call -> {
+            Set<FileId> activated = ConcurrentHashMap.newKeySet();
+            for (FileId id : call.<Collection<FileId>>getArgument(0)) {
+                if (activate(id)) {
+                    activated.add(id);
+                }
+            }
+            return activated;
+        });
+        when(fileRepository.findFilesByIds(any())).thenAnswer(call -> call.<Collection<FileId>>getArgument(0).stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList());
+        doAnswer(call -> {
+            call.<List<StoredFile>>getArgument(0).forEach(file -> rows.replace(file.getId(), file));
+            return null;
+        }).when(fileRepository).updateFileStates(any());
+        when(fileRepository.deleteFile(any(), any())).thenAnswer(call -> {
+            AtomicBoolean removed = new AtomicBoolean();
+            rows.computeIfPresent(call.getArgument(0), (id, file) -> {
+                if (file.getStatus() != call.getArgument(1)) {
+                    return file;
+                }
+                removed.set(true);
+                return null;
+            });
+            return removed.get();
+        });
+        when(uploadSessions.findByFileId(any())).thenAnswer(call -> Optional.ofNullable(sessions.get(call.<FileId>getArgument(0))));
+        when(uploadSessions.findFileIdsWithSession(any())).thenAnswer(call -> call.<Collection<FileId>>getArgument(0).stream()
+                .filter(sessions::containsKey)
+                .collect(Collectors.toSet()));
+        when(fileStorage.exists(any())).thenReturn(true);
+        when(fileStorage.findExisting(any())).thenAnswer(call -> Set.copyOf(call.<Collection<String>>getArgument(0)));
+        when(storageQuota.commitReservation(any())).thenAnswer(call -> {
+            FileId id = call.getArgument(0);
+            Long reserved = reservations.remove(id);
+            return reserved != null && charge(reserved);
+        });
+        when(storageQuota.commitReservations(any())).thenAnswer(call -> {
+            Set<FileId> committed = new HashSet<>();
+            for (FileId id : call.<Collection<FileId>>getArgument(0)) {
+                Long reserved = reservations.remove(id);
+                if (reserved != null && charge(reserved)) {
+                    committed.add(id);
+                }
+            }
+            return committed;
+        });
+        when(storageQuota.addUsed(any(), anyLong())).thenAnswer(call -> charge(call.getArgument(1)));
+        doAnswer(call -> used.addAndGet(-call.<Long>getArgument(1))).when(storageQuota).removeUsed(any(), anyLong());
+        doAnswer(call -> reservations.remove(call.<FileId>getArgument(0))).when(storageQuota).releaseReservation(any());
+        when(membershipClaims.findClaimedRole(familyId, uploader)).thenReturn(Optional.of(FamilyRole.MEMBER));
+        when(storageQuota.findAvailableBytes(any())).thenAnswer(call -> OptionalLong.of(quota.get() - used.get()));
+    }
+
+    @RepeatedTest(5)
+    void concurrentConfirmationsChargeReservedFileOnce() throws Exception {
+        StoredFile file = upload();
+        reservations.put(file.getId(), file.getFileSize());
+
+        List<FileResponse> responses = confirmConcurrently(file);
+
+        assertThat(responses).hasSize(THREADS).allSatisfy(response -> assertThat(response.status()).isEqualTo("ACTIVE"));
+        assertThat(charges).hasValue(1);
+        assertThat(used).hasValue(FILE_SIZE);
+    }
+
+    @RepeatedTest(5)
+    void concurrentConfirmationsChargeFileWithExpiredReservationOnce() throws Exception {
+        // No reservation left, so every confirmation would fall back to addUsed
+        StoredFile file = upload();
+
+        List<FileResponse> responses = confirmConcurrently(file);
+
+        assertThat(responses).hasSize(THREADS);
+        assertThat(charges).hasValue(1);
+        assertThat(used).hasValue(FILE_SIZE);
+    }
+
+    @Test
+    void repeatedConfirmationReturnsActiveFileWithoutCharging() {
+        StoredFile file = upload();
+        reservations.put(file.getId(), file.getFileSize());
+
+        fileService.confirmUpload(file.getId().value(), uploader);
+        FileResponse again = fileService.confirmUpload(file.getId().value(), uploader);
+
+        assertThat(again.status()).isEqualTo("ACTIVE");
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void fileOverQuotaIsRemovedAndNotChargedOnRetry() {
+        StoredFile file = upload();
+        quota.set(FILE_SIZE - 1);
+
+        assertThatThrownBy(() -> fileService.confirmUpload(file.getId().value(), uploader))
+                .isInstanceOf(StorageQuotaExceededException.class);
+        assertThatThrownBy(() -> fileService.confirmUpload(file.getId().value(), uploader))
+                .isInstanceOf(FileNotFoundException.class);
+
+        assertThat(rows.get(file.getId()).getStatus()).isEqualTo(StoredFile.FileStatus.FAILED);
+        verify(fileStorage).delete(file.getStorageKey());
+        assertThat(used).hasValue(0);
+    }
+
+    @Test
+    void missingObjectReleasesReservationWithoutActivating() {
+        StoredFile file = upload();
+        when(fileStorage.exists(file.getStorageKey())).thenReturn(false);
+
+        assertThatThrownBy(() -> fileService.confirmUpload(file.getId().value(), uploader))
+                .isInstanceOf(FileNotFoundException.class);
+
+        verify(storageQuota).releaseReservation(file.getId());
+        verify(fileRepository, never()).activateFile(any());
+        assertThat(rows.get(file.getId()).getStatus()).isEqualTo(StoredFile.FileStatus.FAILED);
+    }
+
+    @RepeatedTest(5)
+    void overlappingBatchAndSingleConfirmationsChargeEachFileOnce() throws Exception {
+        List<StoredFile> files = IntStream.range(0, 20).mapToObj(i -> upload()).toList();
+        files.subList(0, 10).forEach(file -> reservations.put(file.getId(), file.getFileSize()));
+        ConfirmBatchUploadRequest request = new ConfirmBatchUploadRequest(
+                files.stream().map(file -> file.getId().value()).toList());
+
+        List<Callable<Object>> confirmations = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            confirmations.add(() -> fileService.confirmUploads(request, uploader));
+            StoredFile file = files.get(i);
+            confirmations.add(() -> fileService.confirmUpload(file.getId().value(), uploader));
+        }
+        List<Object> responses = runConcurrently(confirmations);
+
+        // A batch charges unreserved files together, so only the total tells
+        assertThat(used).hasValue(files.size() * FILE_SIZE);
+        assertThat(responses).filteredOn(BatchConfirmUploadResponse.class::isInstance)
+                .allSatisfy(response -> assertThat(((BatchConfirmUploadResponse) response).items())
+                        .hasSize(files.size())
+                        .allSatisfy(item -> assertThat(item.file().status()).isEqualTo("ACTIVE")));
+    }
+
+    @Test
+    void batchRemovesFilesOverQuotaWithoutTouchingOthers() {
+        StoredFile first = upload();
+        StoredFile second = upload();
+        quota.set(FILE_SIZE);
+        ConfirmBatchUploadRequest request = new ConfirmBatchUploadRequest(
+                List.of(first.getId().value(), second.getId().value()));
+
+        BatchConfirmUploadResponse response = fileService.confirmUploads(request, uploader);
+        BatchConfirmUploadResponse retried = fileService.confirmUploads(request, uploader);
+
+        assertThat(response.items()).extracting(BatchConfirmUploadResponse.Item::errorCode)
+                .containsExactly(null, "STORAGE_QUOTA_EXCEEDED");
+        assertThat(retried.items()).extracting(BatchConfirmUploadResponse.Item::errorCode)
+                .containsExactly(null, "FILE_NOT_FOUND");
+        assertThat(rows.get(second.getId()).getStatus()).isEqualTo(StoredFile.FileStatus.FAILED);
+        assertThat(used).hasValue(FILE_SIZE);
+    }
+
+    @RepeatedTest(5)
+    void concurrentMultipartCompletionsChargeOnce() throws Exception {
+        StoredFile file = upload(3 * PART_SIZE - 100);
+        startMultipart(file, PART_SIZE, PART_SIZE, PART_SIZE - 100);
+
+        List<Callable<FileResponse>> completions = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            completions.add(() -> fileService.completeMultipartUpload(file.getId().value(), uploader));
+        }
+        List<FileResponse> responses = runConcurrently(completions);
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.status()).isEqualTo("ACTIVE"));
+        assertThat(charges).hasValue(1);
+        assertThat(used).hasValue(file.getFileSize());
+    }
+
+    @Test
+    void multipartCompletionRejectsShortPartBeforeTheLast() {
+        StoredFile file = upload(3 * PART_SIZE - 100);
+        startMultipart(file, PART_SIZE, PART_SIZE - 100, PART_SIZE);
+
+        assertThatThrownBy(() -> fileService.completeMultipartUpload(file.getId().value(), uploader))
+                .isInstanceOf(InvalidUploadPartsException.class)
+                .hasMessage("Part 2 holds %d bytes, expected %d", PART_SIZE - 100, PART_SIZE);
+        verify(fileStorage, never()).completeMultipartUpload(any(), any(), any());
+        assertThat(used).hasValue(0);
+    }
+
+    @Test
+    void multipartCompletionRejectsOversizedLastPart() {
+        StoredFile file = upload(2 * PART_SIZE);
+        startMultipart(file, PART_SIZE, PART_SIZE + 1);
+
+        assertThatThrownBy(() -> fileService.completeMultipartUpload(file.getId().value(), uploader))
+                .isInstanceOf(InvalidUploadPartsException.class);
+        verify(fileStorage, never()).completeMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    void plainConfirmationOfMultipartUploadKeepsItsReservation() {
+        StoredFile file = upload(2 * PART_SIZE);
+        startMultipart(file, PART_SIZE);
+        reservations.put(file.getId(), file.getFileSize());
+        when(fileStorage.exists(file.getStorageKey())).thenReturn(false);
+
+        assertThatThrownBy(() -> fileService.confirmUpload(file.getId().value(), uploader))
+                .isInstanceOf(MultipartUploadInProgressException.class);
+        BatchConfirmUploadResponse batch = fileService.confirmUploads(
+                new ConfirmBatchUploadRequest(List.of(file.getId().value())), uploader);
+
+        assertThat(batch.items()).extracting(BatchConfirmUploadResponse.Item::errorCode)
+                .containsExactly("MULTIPART_UPLOAD_IN_PROGRESS");
+        verify(storageQuota, never()).releaseReservation(any());
+        assertThat(rows.get(file.getId()).getStatus()).isEqualTo(StoredFile.FileStatus.PROCESSING);
+    }
+
+    @RepeatedTest(5)
+    void concurrentDeletionsRemoveUsageOnce() throws Exception {
+        StoredFile file = upload();
+        reservations.put(file.getId(), file.getFileSize());
+        fileService.confirmUpload(file.getId().value(), uploader);
+
+        List<Callable<Object>> deletions = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            deletions.add(ignoringNotFound(() -> fileService.deleteFile(file.getId().value(), uploader)));
+        }
+        runConcurrently(deletions);
+
+        assertThat(rows).doesNotContainKey(file.getId());
+        assertThat(used).hasValue(0);
+        verify(storageQuota, times(1)).removeUsed(familyId, FILE_SIZE);
+    }
+
+    @RepeatedTest(5)
+    void deletionRacingConfirmationLeavesNoUsage() throws Exception {
+        StoredFile file = upload();
+        reservations.put(file.getId(), file.getFileSize());
+
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            calls.add(ignoringNotFound(() -> fileService.confirmUpload(file.getId().value(), uploader)));
+            calls.add(ignoringNotFound(() -> fileService.deleteFile(file.getId().value(), uploader)));
+        }
+        runConcurrently(calls);
+
+        // Either the deletion released the reservation, or it removed what the confirmation charged
+        assertThat(rows).doesNotContainKey(file.getId());
+        assertThat(reservations).isEmpty();
+        assertThat(used).hasValue(0);
+    }
+
+    private static Callable<Object> ignoringNotFound(Runnable call) {
+        return () -> {
+            try {
+                call.run();
+            } catch (FileNotFoundException e) {
+                // Lost the race to a deletion
+            }
+            return null;
+        };
+    }
+
+    private void startMultipart(StoredFile file, long... partSizes) {
+        UploadSession session = new UploadSession(file.getId(), familyId, uploader, file.getStorageKey(),
+                "upload-1", PART_SIZE, partSizes.length, Instant.now(), Instant.now().plusSeconds(3600));
+        sessions.put(file.getId(), session);
+        List<UploadedPart> parts = new ArrayList<>();
+        for (int i = 0; i < partSizes.length; i++) {
+            parts.add(new UploadedPart(i + 1, "etag-" + (i + 1), partSizes[i]));
+        }
+        when(fileStorage.listUploadedParts(file.getStorageKey(), "upload-1")).thenReturn(parts);
+        doAnswer(call -> sessions.remove(call.<FileId>getArgument(0))).when(uploadSessions).delete(any());
+    }
+
+    private boolean activate(FileId fileId) {
+        AtomicBoolean changed = new AtomicBoolean();
+        rows.computeIfPresent(fileId, (id, file) -> {
+            if (file.getStatus() != StoredFile.FileStatus.PROCESSING) {
+                return file;
+            }
+            changed.set(true);
+            return file.markProcessed(null, null, null, null);
+        });
+        return changed.get();
+    }
+
+    private StoredFile upload() {
+        return upload(FILE_SIZE);
+    }
+
+    private StoredFile upload(long size) {
+        StoredFile file = StoredFile.create(familyId, null, uploader, "photo.jpg",
+                "families/" + familyId.value() + "/files/photo.jpg", "image/jpeg", size);
+        rows.put(file.getId(), file);
+        return file;
+    }
+
+    private boolean charge(long bytes) {
+        while (true) {
+            long current = used.get();
+            if (current + bytes > quota.get()) {
+                return false;
+            }
+            if (used.compareAndSet(current, current + bytes)) {
+                charges.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private List<FileResponse> confirmConcurrently(StoredFile file) throws Exception {
+        List<Callable<FileResponse>> confirmations = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            confirmations.add(() -> fileService.confirmUpload(file.getId().value(), uploader));
+        }
+        return runConcurrently(confirmations);
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import com.familyvault.infrastructure.media.MediaProbe.ByteSource;
+import com.familyvault.infrastructure.media.Mp4FastStart.Layout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Gives MP4 and QuickTime videos whose {@code moov} sits behind the media data, as many
+ * phones write them, a fast-start copy with the {@code moov} first, and records it as the
+ * file's playback key, which view URLs then point to.
+ * <p>
+ * The copy is streamed straight from ranged reads of the original into the upload; only the
+ * {@code moov} is held in memory, to adjust its chunk offsets (see {@link Mp4FastStart}).
+ * Files are claimed by stamping {@code fast_start_claimed_at} up front, so a rewrite never
+ * holds a row lock, and marked checked once they have an outcome. A rewrite that failed, or
+ * was cut short by a restart, is tried again once its claim is older than
+ * {@code retry-after}, up to {@code max-attempts} times. Files above {@code max-source-bytes}
+ * are left alone, a fixed number of {@code workers} bounds concurrent rewrites, and
+ * {@code max-bytes-per-second} caps the bandwidth they share on each node. A run goes
+ * through its batches on a thread of its own, so it never holds up the other scheduled jobs.
+ * The original is never modified.
+ */
+@Slf4j
+@Component
+public class FastStartRelocator {
+
+    private static final int HEAD_BYTES = 65536;
+
+    private static final String RELOCATED = "relocated";
+    private static final String FAILED = "failed";
+
+    private static final String CLAIM_SQL = """
+            UPDATE files
+            SET fast_start_claimed_at = NOW(), fast_start_attempts = fast_start_attempts + 1
+            WHERE id IN (
+                SELECT id
+                FROM files
+                WHERE fast_start_checked_at IS NULL
+                  AND (fast_start_claimed_at IS NULL OR fast_start_claimed_at < ?)
+                  AND fast_start_attempts < ?
+                  AND mime_type IN ('video/mp4', 'video/quicktime')
+                  AND status = 'ACTIVE'
+                  AND deleted_at IS NULL
+                  AND file_size <= ?
+                ORDER BY created_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, storage_key, mime_type, file_size
+            """;
+
+    private static final String SET_PLAYBACK_KEY_SQL = """
+            UPDATE files
+            SET playback_key = ?, fast_start_checked_at = NOW(), updated_at = NOW()
+            WHERE id = ? AND deleted_at IS NULL
+            """;
+
+    private static final String MARK_CHECKED_SQL = """
+            UPDATE files
+            SET fast_start_checked_at = NOW()
+            WHERE id = ?
+            """;
+
+    /**
+     * After a failure the claim is left to lapse, unless that was the last attempt.
+     */
+    private static final String GIVE_UP_SQL = """
+            UPDATE files
+            SET fast_start_checked_at = NOW()
+            WHERE id = ? AND fast_start_attempts >= ?
+            """;
+
+    private final FileStoragePort fileStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService executor;
+    private final ExecutorService coordinator;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration retryAfter;
+    private final int maxAttempts;
+    private final long maxSourceBytes;
+    private final int maxMoovBytes;
+    private final ByteRateLimiter rateLimiter;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer rewrite;
+    private final Map<String, Counter> files = new ConcurrentHashMap<>();
+
+    public FastStartRelocator(
+            FileStoragePort fileStorage,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${media.fast-start.workers:2}") int workers,
+            @Value("${media.fast-start.batch-size:20}") int batchSize,
+            @Value("${media.fast-start.max-batches-per-run:10}") int maxBatchesPerRun,
+            @Value("${media.fast-start.retry-after:1h}") Duration retryAfter,
+            @Value("${media.fast-start.max-attempts:3}") int maxAttempts,
+            @Value("${media.fast-start.max-source-bytes:2147483648}") long maxSourceBytes,
+            @Value("${media.fast-start.max-moov-bytes:16777216}") int maxMoovBytes,
+            @Value("${media.fast-start.max-bytes-per-second:52428800}") long maxBytesPerSecond
+    ) {
+        this.fileStorage = fileStorage;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.retryAfter = retryAfter;
+        this.maxAttempts = maxAttempts;
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxMoovBytes = maxMoovBytes;
+        this.rateLimiter = new ByteRateLimiter(maxBytesPerSecond);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "fast-start-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fast-start-run");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.meterRegistry = meterRegistry;
+        this.rewrite = Timer.builder("media.fast_start.rewrite")
+                .description("Time to write the fast-start copy of one video")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts a run unless the previous one is still going, and returns right away.
+     */
+    @Scheduled(fixedDelayString = "${media.fast-start.interval:1m}")
+    public void relocatePending() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            coordinator.execute(() -> {
+                try {
+                    relocateBatches();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false); // shutting down
+        }
+    }
+
+    private void relocateBatches() {
+        int total = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                List<PendingVideo> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new PendingVideo(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("storage_key"),
+                        rs.getString("mime_type"),
+                        rs.getLong("file_size")
+                ), Timestamp.from(Instant.now().minus(retryAfter)), maxAttempts, maxSourceBytes, batchSize);
+
+                List<Callable<String>> jobs = claimed.stream()
+                        .<Callable<String>>map(video -> () -> process(video))
+                        .toList();
+                for (Future<String> result : executor.invokeAll(jobs)) {
+                    count(result.get());
+                }
+
+                total += claimed.size();
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            log.warn("Fast-start relocation stopped after {} videos: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Checked {} videos for fast-start", total);
+        }
+    }
+
+    /**
+     * Relocates the video and records the outcome: checked, or to be tried again after a
+     * failure while attempts remain.
+     *
+     * @return the outcome, for metrics
+     */
+    private String process(PendingVideo video) {
+        String result = relocate(video);
+        try {
+            if (result.equals(FAILED)) {
+                jdbcTemplate.update(GIVE_UP_SQL, video.id(), maxAttempts);
+            } else if (!result.equals(RELOCATED)) {
+                jdbcTemplate.update(MARK_CHECKED_SQL, video.id());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Recording the fast-start outcome of file {} failed: {}", video.id(), e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * @return the outcome; {@code relocated} has been recorded with the playback key
+     */
+    private String relocate(PendingVideo video) {
+        try {
+            Optional<byte[]> head = fileStorage.downloadRange(video.storageKey(), 0, HEAD_BYTES);
+            if (head.isEmpty()) {
+                return "missing";
+            }
+            ByteSource source = (offset, length) -> offset + length <= head.get().length
+                    ? Arrays.copyOfRange(head.get(), (int) offset, (int) offset + length)
+                    : fileStorage.downloadRange(video.storageKey(), offset, length).orElse(new byte[0]);
+
+            Layout layout = Mp4FastStart.scan(source, video.fileSize());
+            if (layout == null) {
+                return "unsupported";
+            }
+            if (!layout.needsRelocation()) {
+                return "already_fast_start";
+            }
+            if (layout.moovSize() > maxMoovBytes) {
+                return "too_large";
+            }
+            byte[] moov = source.read(layout.moovOffset(), (int) layout.moovSize());
+            byte[] relocated = moov.length == layout.moovSize() ? Mp4FastStart.relocate(moov, layout) : null;
+            if (relocated == null) {
+                return "unsupported";
+            }
+
+            String playbackKey = playbackKeyFor(video.storageKey());
+            rewrite.recordCallable(() -> {
+                upload(video, playbackKey, head.get(), relocated, layout);
+                return null;
+            });
+            if (jdbcTemplate.update(SET_PLAYBACK_KEY_SQL, playbackKey, video.id()) == 0) {
+                fileStorage.delete(playbackKey); // deleted meanwhile
+                return "missing";
+            }
+            return RELOCATED;
+        } catch (Exception e) {
+            log.warn("Fast-start relocation of file {} failed: {}", video.id(), e.getMessage());
+            return FAILED;
+        }
+    }
+
+    /**
+     * Streams ftyp, the relocated moov and the remaining boxes into the copy, opening each
+     * range of the original only when the upload reaches it.
+     */
+    private void upload(PendingVideo video, String playbackKey, byte[] head, byte[] moov, Layout layout)
+            throws IOException {
+        String key = video.storageKey();
+        List<Supplier<InputStream>> segments = new ArrayList<>();
+        segments.add(() -> layout.insertAt() <= head.length
+                ? new ByteArrayInputStream(head, 0, (int) layout.insertAt())
+                : openRange(key, 0, layout.insertAt()));
+        segments.add(() -> new ByteArrayInputStream(moov));
+        segments.add(() -> openRange(key, layout.insertAt(), layout.moovOffset() - layout.insertAt()));
+        long tail = layout.moovOffset() + layout.moovSize();
+        segments.add(() -> openRange(key, tail, layout.fileSize() - tail));
+
+        try (InputStream content = new SegmentedInputStream(segments, rateLimiter)) {
+            fileStorage.upload(playbackKey, content, video.mimeType(), layout.fileSize());
+        }
+    }
+
+    private InputStream openRange(String storageKey, long offset, long length) {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return fileStorage.openRange(storageKey, offset, length)
+                .orElseThrow(() -> new IllegalStateException("Original removed during relocation"));
+    }
+
+    /**
+     * The copy sits next to the original: {@code .../clip.mp4} becomes {@code .../clip_faststart.mp4}.
+     */
+    private static String playbackKeyFor(String storageKey) {
+        int lastDot = storageKey.lastIndexOf('.');
+        return lastDot > 0
+                ? storageKey.substring(0, lastDot) + "_faststart" + storageKey.substring(lastDot)
+                : storageKey + "_faststart";
+    }
+
+    private void count(String result) {
+        files.computeIfAbsent(result, tag -> Counter.builder("media.fast_start.files")
+                        .tag("result", tag)
+                        .description("Videos checked for fast-start, by outcome")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private record PendingVideo(UUID id, String storageKey, String mimeType, long fileSize) {
+    }
+
+    /**
+     * Concatenation of lazily opened streams, read at no more than the limiter allows.
+     * Unlike {@link java.io.SequenceInputStream}, closing it doesn't open the segments that
+     * were never reached.
+     */
+    private static final class SegmentedInputStream extends InputStream {
+
+        private final Iterator<Supplier<InputStream>> segments;
+        private final ByteRateLimiter rateLimiter;
+        private InputStream current;
+
+        SegmentedInputStream(List<Supplier<InputStream>> segments, ByteRateLimiter rateLimiter) {
+            this.segments = segments.iterator();
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                if (current == null) {
+                    if (!segments.hasNext()) {
+                        return -1;
+                    }
+                    current = segments.next().get();
+                }
+                int read = current.read(buffer, offset, length);
+                if (read > 0) {
+                    rateLimiter.acquire(read);
+                    return read;
+                }
+                if (read == -1) {
+                    current.close();
+                    current = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Spaces reads out so their total stays at the configured rate; zero or less disables it.
+     */
+    private static final class ByteRateLimiter {
+
+        private final long bytesPerSecond;
+        private long nextFreeNanos;
+
+        ByteRateLimiter(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.nextFreeNanos = System.nanoTime();
+        }
+
+        void acquire(int bytes) throws InterruptedIOException {
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(now, nextFreeNanos);
+                nextFreeNanos = start + TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+                waitNanos = start - now;
+            }
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while throttled");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.familyvault.infrastructure.media;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Reads dimensions, EXIF and XMP from the first bytes of a JPEG or PNG, without decoding
+ * any pixels.
+ * <p>
+ * Only the fields the gallery uses are read: capture time, orientation, camera make and
+ * model, and GPS position. Every offset is bounds-checked against the buffer and the
+ * enclosing segment in long arithmetic, so truncated or hostile headers yield fewer fields
+ * rather than an exception.
+ */
+final class ImageHeaderParser {
+
+    private static final byte[] EXIF_ID = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] XMP_ID = "http://ns.adobe.com/xap/1.0/\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final int TAG_MAKE = 0x010F;
+    private static final int TAG_MODEL = 0x0110;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TAG_DATE_TIME = 0x0132;
+    private static final int TAG_EXIF_IFD = 0x8769;
+    private static final int TAG_GPS_IFD = 0x8825;
+    private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+    private static final int TAG_OFFSET_TIME_ORIGINAL = 0x9011;
+    private static final int TAG_PIXEL_X = 0xA002;
+    private static final int TAG_PIXEL_Y = 0xA003;
+    private static final int TAG_GPS_LATITUDE_REF = 1;
+    private static final int TAG_GPS_LATITUDE = 2;
+    private static final int TAG_GPS_LONGITUDE_REF = 3;
+    private static final int TAG_GPS_LONGITUDE = 4;
+    private static final int TAG_GPS_ALTITUDE_REF = 5;
+    private static final int TAG_GPS_ALTITUDE = 6;
+
+    private static final Pattern EXIF_DATE_TIME = Pattern.compile("(\\d{4}):(\\d{2}):(\\d{2}) (\\d{2}:\\d{2}:\\d{2})");
+    private static final Pattern UTC_OFFSET = Pattern.compile("[+-]\\d{2}:\\d{2}");
+    private static final Pattern XMP_ISO_DATE_TIME =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}(:\\d{2})?(\\.\\d+)?(Z|[+-]\\d{2}:\\d{2})?");
+    private static final Pattern XMP_ORIENTATION = Pattern.compile("[1-8]");
+
+    private static final List<String> XMP_DATE_FIELDS =
+            List.of("exif:DateTimeOriginal", "xmp:CreateDate", "photoshop:DateCreated");
+
+    /**
+     * Each XMP field read, in attribute or element form.
+     */
+    private static final Map<String, Pattern> XMP_FIELDS = List.of(
+                    "exif:DateTimeOriginal", "xmp:CreateDate", "photoshop:DateCreated",
+                    "tiff:Orientation", "tiff:Make", "tiff:Model").stream()
+            .collect(Collectors.toMap(Function.identity(), name -> Pattern.compile(
+                    Pattern.quote(name) + "\\s*=\\s*\"([^\"]{1,100})\"|<"
+                            + Pattern.quote(name) + ">([^<]{1,100})</" + Pattern.quote(name) + ">")));
+
+    private ImageHeaderParser() {
+    }
+
+    /**
+     * @param data the first bytes of the file
+     */
+    static ImageHeader parse(byte[] data) {
+        ImageHeader header = new ImageHeader();
+        if (startsWith(data, 0, data.length, new byte[]{(byte) 0xFF, (byte) 0xD8})) {
+            parseJpeg(data, header);
+        } else if (startsWith(data, 0, data.length, PNG_SIGNATURE)) {
+            parsePng(data, header);
+        }
+        return header;
+    }
+
+    /**
+     * Walks the marker segments up to the first frame header. EXIF and XMP live in APP1
+     * segments, which cameras write before the frame.
+     */
+    private static void parseJpeg(byte[] data, ImageHeader header) {
+        int pos = 2;
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                return;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++; // fill byte
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                pos += 2; // no length
+                continue;
+            }
+            if (marker == 0xDA || marker == 0xD9) {
+                return; // image data starts; no frame header before it
+            }
+
+            int length = u16(data, pos + 2, false);
+            if (length < 2) {
+                return; // the length counts itself
+            }
+            int start = pos + 4;
+            int end = pos + 2 + length;
+            if (end > data.length) {
+                header.neededBytes = end;
+                return;
+            }
+
+            boolean frame = marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (frame && start + 5 <= end) {
+                header.height = u16(data, start + 1, false);
+                header.width = u16(data, start + 3, false);
+                return;
+            }
+            if (marker == 0xE1) {
+                if (startsWith(data, start, end, EXIF_ID)) {
+                    parseTiff(data, start + EXIF_ID.length, end, header);
+                } else if (startsWith(data, start, end, XMP_ID)) {
+                    parseXmp(new String(data, start + XMP_ID.length, end - start - XMP_ID.length,
+                            StandardCharsets.UTF_8), header);
+                }
+            }
+            pos = end;
+        }
+        header.neededBytes = pos + 4;
+    }
+
+    /**
+     * Dimensions from IHDR, then EXIF from an eXIf chunk if one precedes the image data.
+     */
+    private static void parsePng(byte[] data, ImageHeader header) {
+        int pos = PNG_SIGNATURE.length;
+        while (pos + 8 <= data.length) {
+            long length = u32(data, pos, false);
+            String type = new String(data, pos + 4, 4, StandardCharsets.ISO_8859_1);
+            int start = pos + 8;
+            long end = start + length;
+            if (length > Integer.MAX_VALUE) {
+                return; // PNG caps chunk lengths at 2^31 - 1
+            }
+            if (end > data.length) {
+                header.neededBytes = (int) Math.min(end + 4, Integer.MAX_VALUE);
+                return;
+            }
+            switch (type) {
+                case "IHDR" -> {
+                    long width = length >= 8 ? u32(data, start, false) : 0;
+                    long height = length >= 8 ? u32(data, start + 4, false) : 0;
+                    if (width > 0 && width <= Integer.MAX_VALUE && height > 0 && height <= Integer.MAX_VALUE) {
+                        header.width = (int) width;
+                        header.height = (int) height;
+                    }
+                }
+                case "eXIf" -> parseTiff(data, start, (int) end, header);
+                case "IDAT", "IEND" -> {
+                    return;
+                }
+                default -> {
+                }
+            }
+            pos = (int) end + 4; // CRC
+        }
+    }
+
+    /**
+     * Reads IFD0 and the EXIF and GPS IFDs it points to; offsets are relative to the TIFF header.
+     */
+    private static void parseTiff(byte[] data, int tiff, int end, ImageHeader header) {
+        if (tiff + 8 > end) {
+            return;
+        }
+        boolean little;
+        if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            little = true;
+        } else if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            little = false;
+        } else {
+            return;
+        }
+        if (u16(data, tiff + 2, little) != 42) {
+            return;
+        }
+        Tiff t = new Tiff(data, tiff, end, little);
+
+        long exifIfd = -1;
+        long gpsIfd = -1;
+        String dateTime = null;
+        String dateTimeOriginal = null;
+        String offsetTimeOriginal = null;
+
+        for (int entry : t.entries(u32(data, tiff + 4, little))) {
+            switch (t.tag(entry)) {
+                case TAG_MAKE -> header.cameraMake = t.ascii(entry);
+                case TAG_MODEL -> header.cameraModel = t.ascii(entry);
+                case TAG_ORIENTATION -> header.orientation = t.integer(entry);
+                case TAG_DATE_TIME -> dateTime = t.ascii(entry);
+                case TAG_EXIF_IFD -> exifIfd = t.unsigned(entry);
+                case TAG_GPS_IFD -> gpsIfd = t.unsigned(entry);
+                default -> {
+                }
+            }
+        }
+
+        if (exifIfd > 0) {
+            for (int entry : t.entries(exifIfd)) {
+                switch (t.tag(entry)) {
+                    case TAG_DATE_TIME_ORIGINAL -> dateTimeOriginal = t.ascii(entry);
+                    case TAG_OFFSET_TIME_ORIGINAL -> offsetTimeOriginal = t.ascii(entry);
+                    case TAG_PIXEL_X -> header.exifWidth = t.integer(entry);
+                    case TAG_PIXEL_Y -> header.exifHeight = t.integer(entry);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        if (gpsIfd > 0) {
+            String latitudeRef = null;
+            String longitudeRef = null;
+            Double latitude = null;
+            Double longitude = null;
+            Integer altitudeRef = null;
+            Double altitude = null;
+            for (int entry : t.entries(gpsIfd)) {
+                switch (t.tag(entry)) {
+                    case TAG_GPS_LATITUDE_REF -> latitudeRef = t.ascii(entry);
+                    case TAG_GPS_LATITUDE -> latitude = t.degrees(entry);
+                    case TAG_GPS_LONGITUDE_REF -> longitudeRef = t.ascii(entry);
+                    case TAG_GPS_LONGITUDE -> longitude = t.degrees(entry);
+                    case TAG_GPS_ALTITUDE_REF -> altitudeRef = t.integer(entry);
+                    case TAG_GPS_ALTITUDE -> altitude = t.rational(entry, 0);
+                    default -> {
+                    }
+                }
+            }
+            if (latitude != null && longitude != null && Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180
+                    && !(latitude == 0 && longitude == 0)) {
+                header.latitude = "S".equalsIgnoreCase(latitudeRef) ? -latitude : latitude;
+                header.longitude = "W".equalsIgnoreCase(longitudeRef) ? -longitude : longitude;
+                if (altitude != null) {
+                    header.altitude = altitudeRef != null && altitudeRef == 1 ? -altitude : altitude;
+                }
+            }
+        }
+
+        String captured = exifDateTime(dateTimeOriginal != null ? dateTimeOriginal : dateTime, offsetTimeOriginal);
+        if (captured != null) {
+            header.capturedAt = captured;
+        }
+    }
+
+    /**
+     * "2024:07:14 18:03:27" and an optional "+02:00" as ISO-8601 local or offset date-time.
+     */
+    private static String exifDateTime(String value, String offset) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = EXIF_DATE_TIME.matcher(value.trim());
+        if (!matcher.matches() || matcher.group(1).equals("0000")) {
+            return null;
+        }
+        String iso = matcher.group(1) + "-" + matcher.group(2) + "-" + matcher.group(3) + "T" + matcher.group(4);
+        return offset != null && UTC_OFFSET.matcher(offset.trim()).matches() ? iso + offset.trim() : iso;
+    }
+
+    /**
+     * Fills what EXIF left empty from the XMP packet, in attribute or element form.
+     */
+    private static void parseXmp(String xmp, ImageHeader header) {
+        if (header.capturedAt == null) {
+            for (String name : XMP_DATE_FIELDS) {
+                String value = xmpValue(xmp, name);
+                if (value != null && XMP_ISO_DATE_TIME.matcher(value).matches()) {
+                    header.capturedAt = value;
+                    break;
+                }
+            }
+        }
+        if (header.orientation == null) {
+            String value = xmpValue(xmp, "tiff:Orientation");
+            if (value != null && XMP_ORIENTATION.matcher(value).matches()) {
+                header.orientation = Integer.parseInt(value);
+            }
+        }
+        if (header.cameraMake == null) {
+            header.cameraMake = xmpValue(xmp, "tiff:Make");
+        }
+        if (header.cameraModel == null) {
+            header.cameraModel = xmpValue(xmp, "tiff:Model");
+        }
+    }
+
+    private static String xmpValue(String xmp, String name) {
+        Matcher matcher = XMP_FIELDS.get(name).matcher(xmp);
+        if (!matcher.find()) {
+            return null;
+        }
+        String value = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        return value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Whether {@code prefix} is at {@code offset} and ends by {@code limit}, the end of the
+     * enclosing segment.
+     */
+    private static boolean startsWith(byte[] data, int offset, int limit, byte[] prefix) {
+        if (offset < 0 || (long) offset + prefix.length > Math.min(limit, data.length)) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u16(byte[] data, int offset, boolean little) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return little ? a | b << 8 : a << 8 | b;
+    }
+
+    private static long u32(byte[] data, int offset, boolean little) {
+        long a = data[offset] & 0xFF;
+        long b = data[offset + 1] & 0xFF;
+        long c = data[offset + 2] & 0xFF;
+        long d = data[offset + 3] & 0xFF;
+        return little ? a | b << 8 | c << 16 | d << 24 : a << 24 | b << 16 | c << 8 | d;
+    }
+
+    /**
+     * Bounds-checked view of one TIFF structure.
+     */
+    private record Tiff(byte[] data, int start, int end, boolean little) {
+
+        private static final int[] TYPE_SIZES = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8};
+        private static final int MAX_ENTRIES = 512;
+
+        /**
+         * Absolute offsets of the entries of the IFD at the given TIFF offset.
+         */
+        int[] entries(long ifdOffset) {
+            long ifd = start + ifdOffset;
+            if (ifdOffset < 8 || ifd + 2 > end) {
+                return new int[0];
+            }
+            int count = Math.min(u16(data, (int) ifd, little), MAX_ENTRIES);
+            int available = (int) Math.min(count, (end - ifd - 2) / 12);
+            int[] entries = new int[available];
+            for (int i = 0; i < available; i++) {
+                entries[i] = (int) ifd + 2 + i * 12;
+            }
+            return entries;
+        }
+
+        int tag(int entry) {
+            return u16(data, entry, little);
+        }
+
+        /**
+         * Absolute offset of the entry's value, or -1 if it lies outside the structure.
+         */
+        private int valueOffset(int entry, int minCount) {
+            int type = u16(data, entry + 2, little);
+            long count = u32(data, entry + 4, little);
+            if (type <= 0 || type >= TYPE_SIZES.length || count < minCount) {
+                return -1;
+            }
+            long size = TYPE_SIZES[type] * count;
+            long offset = size <= 4 ? entry + 8 : start + u32(data, entry + 8, little);
+            return offset + size <= end ? (int) offset : -1;
+        }
+
+        String ascii(int entry) {
+            int offset = valueOffset(entry, 1);
+            if (offset < 0 || u16(data, entry + 2, little) != 2) {
+                return null;
+            }
+            int length = (int) Math.min(u32(data, entry + 4, little), 256);
+            int stop = offset;
+            while (stop < offset + length && data[stop] != 0) {
+                stop++;
+            }
+            String value = new String(data, offset, stop - offset, StandardCharsets.UTF_8).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        /**
+         * BYTE, SHORT or LONG value as an int.
+         */
+        Integer integer(int entry) {
+            int offset = valueOffset(entry, 1);
+            if (offset < 0) {
+                return null;
+            }
+            return switch (u16(data, entry + 2, little)) {
+                case 1, 7 -> data[offset] & 0xFF;
+                case 3 -> u16(data, offset, little);
+                case 4 -> (int) Math.min(u32(data, offset, little), Integer.MAX_VALUE);
+                default -> null;
+            };
+        }
+
+        long unsigned(int entry) {
+            Integer value = integer(entry);
+            return value != null ? value : -1;
+        }
+
+        Double rational(int entry, int index) {
+            int offset = valueOffset(entry, index + 1);
+            if (offset < 0 || u16(data, entry + 2, little) != 5) {
+                return null;
+            }
+            long numerator = u32(data, offset + index * 8, little);
+            long denominator = u32(data, offset + index * 8 + 4, little);
+            return denominator == 0 ? null : (double) numerator / denominator;
+        }
+
+        /**
+         * Degrees, minutes and seconds as decimal degrees.
+         */
+        Double degrees(int entry) {
+            Double degrees = rational(entry, 0);
+            Double minutes = rational(entry, 1);
+            Double seconds = rational(entry, 2);
+            if (degrees == null || minutes == null || seconds == null) {
+                return null;
+            }
+            return degrees + minutes / 60 + seconds / 3600;
+        }
+    }
+
+    /**
+     * What was found in a header. {@code neededBytes} is set when the header continues past
+     * the bytes given, to the length that would let parsing go on.
+     */
+    static final class ImageHeader {
+        Integer width;
+        Integer height;
+        Integer exifWidth;
+        Integer exifHeight;
+        Integer orientation;
+        String capturedAt;
+        String cameraMake;
+        String cameraModel;
+        Double latitude;
+        Double longitude;
+        Double altitude;
+        int neededBytes;
+
+        Integer width() {
+            return width != null ? width : exifWidth;
+        }
+
+        Integer height() {
+            return height != null ? height : exifHeight;
+        }
+
+        boolean isEmpty() {
+            return width() == null && height() == null && orientation == null && capturedAt == null
+                    && cameraMake == null && cameraModel == null && latitude == null;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import com.familyvault.infrastructure.media.ImageHeaderParser.ImageHeader;
+import com.familyvault.infrastructure.media.MediaProbe.ByteSource;
+import com.familyvault.infrastructure.media.MediaProbe.MediaInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fills in the metadata of photos, videos and audio from their headers, read with ranged
+ * GETs instead of downloading the whole file: capture time, orientation, camera and GPS
+ * position of JPEG and PNG images ({@link ImageHeaderParser}), duration and codecs of
+ * videos and audio ({@link MediaProbe}), and the dimensions of both.
+ * <p>
+ * Files are claimed in batches by stamping {@code metadata_claimed_at} in one short
+ * statement, with SKIP LOCKED so nodes share the backlog. The headers of a batch are then
+ * read concurrently on virtual threads, with no transaction, row lock or connection held,
+ * and the results written in a second short transaction. A claim that saw no results within
+ * {@code claim-timeout}, because its node stopped, lapses and the file is claimed again.
+ * Most headers fit in the first
+ * {@code header-bytes}. An image header that continues past them is read once more, up to
+ * {@code max-header-bytes}; containers that keep their index elsewhere, such as an MP4
+ * {@code moov} behind the media data, are followed with ranged reads of at most
+ * {@code max-index-bytes}; the indexes held in memory at once on a node are capped at
+ * {@code max-index-bytes-in-flight}, so concurrent probes of long videos wait for each other. Each file is marked as extracted whatever was found, so
+ * uploads and the backfill of older files go through the same queue once. A batch in which
+ * every read failed is released and retried on the next run.
+ */
+@Slf4j
+@Component
+public class MediaMetadataExtractor {
+
+    private static final String FAILED = "failed";
+
+    private static final Set<String> IMAGE_TYPES = Set.of("image/jpeg", "image/png");
+
+    private static final String CLAIM_SQL = """
+            UPDATE files
+            SET metadata_claimed_at = NOW()
+            WHERE id IN (
+                SELECT id
+                FROM files
+                WHERE metadata_extracted_at IS NULL
+                  AND (metadata_claimed_at IS NULL OR metadata_claimed_at < ?)
+                  AND mime_type IN ('image/jpeg', 'image/png',
+                                    'video/mp4', 'video/quicktime', 'video/webm', 'video/x-matroska',
+                                    'audio/mpeg', 'audio/wav', 'audio/x-wav', 'audio/flac', 'audio/x-flac',
+                                    'audio/mp4', 'audio/x-m4a')
+                  AND status = 'ACTIVE'
+                  AND deleted_at IS NULL
+                ORDER BY created_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, storage_key, mime_type, file_size
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE files
+            SET metadata_claimed_at = NULL
+            WHERE id = ANY(?::uuid[]) AND metadata_extracted_at IS NULL
+            """;
+
+    /**
+     * Merges the found fields into the existing metadata; null fields are left out of the
+     * merge and dimensions and duration already set are kept when the header had none.
+     */
+    private static final String UPDATE_SQL = """
+            UPDATE files
+            SET metadata = COALESCE(metadata, '{}'::jsonb) || jsonb_strip_nulls(jsonb_build_object(
+                    'capturedAt', ?::text,
+                    'orientation', ?::integer,
+                    'cameraMake', ?::text,
+                    'cameraModel', ?::text,
+                    'gps', CASE WHEN ?::float8 IS NULL THEN NULL
+                                ELSE jsonb_build_object('latitude', ?::float8, 'longitude', ?::float8, 'altitude', ?::float8)
+                           END,
+                    'videoCodec', ?::text,
+                    'audioCodec', ?::text)),
+                width = COALESCE(?::integer, width),
+                height = COALESCE(?::integer, height),
+                duration_seconds = COALESCE(?::integer, duration_seconds),
+                metadata_extracted_at = NOW()
+            WHERE id = ?
+            """;
+
+    private final FileStoragePort fileStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration claimTimeout;
+    private final int concurrency;
+    private final int headerBytes;
+    private final int maxHeaderBytes;
+    private final int maxIndexBytes;
+    private final int maxIndexBytesInFlight;
+    private final Semaphore indexBytes;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer readTimer;
+    private final Map<String, Counter> files = new ConcurrentHashMap<>();
+
+    public MediaMetadataExtractor(
+            FileStoragePort fileStorage,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${media.metadata.batch-size:500}") int batchSize,
+            @Value("${media.metadata.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${media.metadata.claim-timeout:10m}") Duration claimTimeout,
+            @Value("${media.metadata.concurrency:32}") int concurrency,
+            @Value("${media.metadata.header-bytes:65536}") int headerBytes,
+            @Value("${media.metadata.max-header-bytes:262144}") int maxHeaderBytes,
+            @Value("${media.metadata.max-index-bytes:8388608}") int maxIndexBytes,
+            @Value("${media.metadata.max-index-bytes-in-flight:33554432}") int maxIndexBytesInFlight
+    ) {
+        this.fileStorage = fileStorage;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.claimTimeout = claimTimeout;
+        this.concurrency = concurrency;
+        this.headerBytes = headerBytes;
+        this.maxHeaderBytes = Math.max(maxHeaderBytes, headerBytes);
+        this.maxIndexBytes = maxIndexBytes;
+        this.maxIndexBytesInFlight = Math.max(maxIndexBytesInFlight, maxIndexBytes);
+        this.indexBytes = new Semaphore(this.maxIndexBytesInFlight, true);
+
+        this.meterRegistry = meterRegistry;
+        this.readTimer = Timer.builder("media.metadata.read")
+                .description("Time to read and parse the headers of one file")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${media.metadata.interval:30s}")
+    public void extractPending() {
+        int total = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int claimed = extractBatch();
+                total += claimed;
+                if (claimed < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Media metadata extraction stopped after {} files: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Extracted metadata of {} files", total);
+        }
+    }
+
+    /**
+     * @return the number of files claimed
+     */
+    private int extractBatch() {
+        // Commits on its own, so the claim holds no lock while the headers are read
+        List<PendingFile> pending = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new PendingFile(
+                rs.getObject("id", UUID.class),
+                rs.getString("storage_key"),
+                rs.getString("mime_type"),
+                rs.getLong("file_size")
+        ), Timestamp.from(Instant.now().minus(claimTimeout)), batchSize);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<HeaderRead> reads = readHeaders(pending);
+        reads.forEach(read -> count(read.result()));
+        if (reads.stream().allMatch(read -> read.result().equals(FAILED))) {
+            String[] ids = pending.stream().map(file -> file.id().toString()).toArray(String[]::new);
+            jdbcTemplate.update(RELEASE_SQL, (Object) ids);
+            throw new IllegalStateException("Reading media headers failed for the whole batch");
+        }
+
+        // Failed reads are marked as well, so one unreadable object can't hold up the queue
+        List<Object[]> updates = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            updates.add(reads.get(i).metadata().parameters(pending.get(i).id()));
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, updates));
+        return pending.size();
+    }
+
+    /**
+     * Reads in the order of {@code pending}, at most {@code concurrency} at a time.
+     */
+    private List<HeaderRead> readHeaders(List<PendingFile> pending) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<Callable<HeaderRead>> reads = pending.stream()
+                .<Callable<HeaderRead>>map(file -> () -> {
+                    permits.acquire();
+                    try {
+                        return readTimer.recordCallable(() -> readHeader(file));
+                    } catch (RuntimeException e) {
+                        log.debug("Reading the header of {} failed: {}", file.storageKey(), e.getMessage());
+                        return new HeaderRead(FAILED, Metadata.NONE);
+                    } finally {
+                        permits.release();
+                    }
+                })
+                .toList();
+
+        List<HeaderRead> results = new ArrayList<>(pending.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<HeaderRead> result : executor.invokeAll(reads)) {
+                results.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading media headers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Reading media headers failed", e.getCause());
+        }
+        return results;
+    }
+
+    private HeaderRead readHeader(PendingFile file) {
+        Optional<byte[]> head = fileStorage.downloadRange(file.storageKey(), 0, headerBytes);
+        if (head.isEmpty()) {
+            return new HeaderRead("missing", Metadata.NONE);
+        }
+        Metadata metadata;
+        if (IMAGE_TYPES.contains(file.mimeType())) {
+            metadata = Metadata.of(readImageHeader(file.storageKey(), head.get()));
+        } else {
+            try (BudgetedSource source = new BudgetedSource(file.storageKey())) {
+                metadata = Metadata.of(MediaProbe.probe(source, head.get(), file.fileSize(), maxIndexBytes));
+            }
+        }
+        return new HeaderRead(metadata.equals(Metadata.NONE) ? "empty" : "extracted", metadata);
+    }
+
+    private ImageHeader readImageHeader(String storageKey, byte[] data) {
+        ImageHeader header = ImageHeaderParser.parse(data);
+
+        // The header runs past the first read, e.g. behind a large embedded preview
+        if (header.neededBytes > data.length && data.length == headerBytes) {
+            int length = (int) Math.min((long) header.neededBytes + headerBytes, maxHeaderBytes) - data.length;
+            if (length > 0) {
+                Optional<byte[]> rest = fileStorage.downloadRange(storageKey, data.length, length);
+                if (rest.isPresent() && rest.get().length > 0) {
+                    byte[] combined = new byte[data.length + rest.get().length];
+                    System.arraycopy(data, 0, combined, 0, data.length);
+                    System.arraycopy(rest.get(), 0, combined, data.length, rest.get().length);
+                    header = ImageHeaderParser.parse(combined);
+                }
+            }
+        }
+        return header;
+    }
+
+    private void count(String result) {
+        files.computeIfAbsent(result, tag -> Counter.builder("media.metadata.files")
+                        .tag("result", tag)
+                        .description("Files whose header was read, by outcome")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private record PendingFile(UUID id, String storageKey, String mimeType, long fileSize) {
+    }
+
+    /**
+     * Ranged reads of one file, each holding permits of {@code indexBytes} for its length
+     * until the probe reads again or is done. The probe parses what it read before reading
+     * further, and a file never holds permits while waiting for more.
+     */
+    private final class BudgetedSource implements ByteSource, AutoCloseable {
+
+        private final String storageKey;
+        private int held;
+
+        BudgetedSource(String storageKey) {
+            this.storageKey = storageKey;
+        }
+
+        @Override
+        public byte[] read(long offset, int length) {
+            close();
+            int permits = Math.min(length, maxIndexBytesInFlight);
+            try {
+                indexBytes.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to read " + storageKey, e);
+            }
+            held = permits;
+            return fileStorage.downloadRange(storageKey, offset, length).orElse(new byte[0]);
+        }
+
+        @Override
+        public void close() {
+            indexBytes.release(held);
+            held = 0;
+        }
+    }
+
+    private record HeaderRead(String result, Metadata metadata) {
+    }
+
+    /**
+     * The columns and metadata fields written for one file.
+     */
+    private record Metadata(String capturedAt, Integer orientation, String cameraMake, String cameraModel,
+                            Double latitude, Double longitude, Double altitude,
+                            String videoCodec, String audioCodec,
+                            Integer width, Integer height, Integer durationSeconds) {
+
+        static final Metadata NONE = new Metadata(null, null, null, null, null, null, null, null, null, null, null, null);
+
+        static Metadata of(ImageHeader header) {
+            Integer orientation = header.orientation != null && header.orientation >= 1 && header.orientation <= 8
+                    ? header.orientation : null;
+            return new Metadata(header.capturedAt, orientation, header.cameraMake, header.cameraModel,
+                    header.latitude, header.longitude, header.altitude, null, null,
+                    header.width(), header.height(), null);
+        }
+
+        static Metadata of(MediaInfo info) {
+            // Clips shorter than half a second still count as one
+            Integer duration = info.durationSeconds() != null && info.durationSeconds() > 0
+                    && info.durationSeconds() < Integer.MAX_VALUE
+                    ? (int) Math.max(1, Math.round(info.durationSeconds())) : null;
+            return new Metadata(info.capturedAt(), null, null, null, null, null, null,
+                    info.videoCodec(), info.audioCodec(), info.width(), info.height(), duration);
+        }
+
+        Object[] parameters(UUID id) {
+            return new Object[]{
+                    capturedAt, orientation, cameraMake, cameraModel,
+                    latitude, latitude, longitude, altitude,
+                    videoCodec, audioCodec,
+                    width, height, durationSeconds,
+                    id
+            };
+        }
+    }
+}
@@ -0,0 +1,601 @@
+package com.familyvault.infrastructure.media;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Reads duration, dimensions and codecs of videos and audio from their container headers:
+ * the MP4/QuickTime box tree, Matroska/WebM elements, FLAC STREAMINFO, MP3 frame headers
+ * and WAV chunks.
+ * <p>
+ * Starts from the first bytes of the file and reads further ranges only where a container
+ * keeps what is needed elsewhere. An MP4 written without fast-start has its {@code moov}
+ * behind the media data; the top-level box sizes lead straight to it, so only the box
+ * headers on the way and the {@code moov} itself are read. Sizes from the file are checked
+ * against the bytes actually read, and no single read exceeds {@code maxReadBytes}.
+ */
+final class MediaProbe {
+
+    /**
+     * Random access to the file being probed.
+     */
+    @FunctionalInterface
+    interface ByteSource {
+
+        /**
+         * @return up to {@code length} bytes at {@code offset}, fewer at the end of the file
+         */
+        byte[] read(long offset, int length);
+    }
+
+    /**
+     * What was found; any field may be null.
+     */
+    record MediaInfo(Integer width, Integer height, Double durationSeconds,
+                     String videoCodec, String audioCodec, String capturedAt) {
+
+        static final MediaInfo EMPTY = new MediaInfo(null, null, null, null, null, null);
+
+        boolean isEmpty() {
+            return equals(EMPTY);
+        }
+    }
+
+    private static final int MAX_TOP_LEVEL_BOXES = 64;
+    private static final int MAX_RIFF_CHUNKS = 64;
+    private static final int FRAME_SCAN_BYTES = 4096;
+
+    /** Seconds from 1904-01-01, the MP4 epoch, to 1970-01-01. */
+    private static final long MP4_EPOCH_OFFSET = 2_082_844_800L;
+    /** 2100-01-01; later creation times are taken as garbage. */
+    private static final long MAX_EPOCH_SECOND = 4_102_444_800L;
+    /** Seconds from 1970-01-01 to 2001-01-01, the Matroska epoch. */
+    private static final long MATROSKA_EPOCH = 978_307_200L;
+
+    private static final long EBML = 0x1A45DFA3L;
+    private static final long SEGMENT = 0x18538067L;
+    private static final long CLUSTER = 0x1F43B675L;
+    private static final long INFO = 0x1549A966L;
+    private static final long TRACKS = 0x1654AE6BL;
+    private static final long TIMECODE_SCALE = 0x2AD7B1L;
+    private static final long DURATION = 0x4489L;
+    private static final long DATE_UTC = 0x4461L;
+    private static final long TRACK_ENTRY = 0xAEL;
+    private static final long TRACK_TYPE = 0x83L;
+    private static final long CODEC_ID = 0x86L;
+    private static final long VIDEO = 0xE0L;
+    private static final long PIXEL_WIDTH = 0xB0L;
+    private static final long PIXEL_HEIGHT = 0xBAL;
+
+    private static final int[][] MP3_BITRATES = {
+            // MPEG-1 layers I, II, III
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+            // MPEG-2 and 2.5 layer I, then layers II and III
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+    };
+    private static final int[] MP3_SAMPLE_RATES = {44100, 48000, 32000};
+
+    private final ByteSource source;
+    private final byte[] head;
+    private final long fileSize;
+    private final int maxReadBytes;
+
+    private MediaProbe(ByteSource source, byte[] head, long fileSize, int maxReadBytes) {
+        this.source = source;
+        this.head = head;
+        this.fileSize = fileSize;
+        this.maxReadBytes = maxReadBytes;
+    }
+
+    /**
+     * @param head         the first bytes of the file, already read from {@code source}
+     * @param fileSize     size of the file
+     * @param maxReadBytes largest single read, e.g. of an MP4 {@code moov}
+     */
+    static MediaInfo probe(ByteSource source, byte[] head, long fileSize, int maxReadBytes) {
+        MediaProbe probe = new MediaProbe(source, head, fileSize, maxReadBytes);
+        if (isMp4(head)) {
+            return probe.mp4();
+        }
+        if (head.length >= 4 && u32(head, 0) == EBML) {
+            return probe.matroska();
+        }
+        if (ascii(head, 0, 4).equals("RIFF") && ascii(head, 8, 4).equals("WAVE")) {
+            return probe.wav();
+        }
+
+        // FLAC and MP3 may both follow an ID3v2 tag, which can carry large cover art
+        long audioStart = 0;
+        if (ascii(head, 0, 3).equals("ID3") && head.length >= 10) {
+            audioStart = 10L + synchsafe(head, 6) + ((head[5] & 0x10) != 0 ? 10 : 0);
+        }
+        byte[] audio = probe.read(audioStart, FRAME_SCAN_BYTES);
+        if (ascii(audio, 0, 4).equals("fLaC")) {
+            return flac(audio);
+        }
+        return probe.mp3(audio, audioStart, audioStart > 0);
+    }
+
+    // MP4 / QuickTime
+
+    private static boolean isMp4(byte[] b) {
+        if (b.length < 8) {
+            return false;
+        }
+        return switch (ascii(b, 4, 4)) {
+            case "ftyp", "moov", "mdat", "wide", "free", "skip" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Follows the top-level boxes to {@code moov}, wherever it is.
+     */
+    private MediaInfo mp4() {
+        long pos = 0;
+        for (int i = 0; i < MAX_TOP_LEVEL_BOXES && pos + 8 <= fileSize; i++) {
+            byte[] header = read(pos, 16);
+            if (header.length < 8) {
+                break;
+            }
+            long size = u32(header, 0);
+            int headerSize = 8;
+            if (size == 1) {
+                if (header.length < 16) {
+                    break;
+                }
+                size = u64(header, 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - pos; // runs to the end of the file
+            }
+            if (size < headerSize) {
+                break;
+            }
+            if (ascii(header, 4, 4).equals("moov")) {
+                return size <= maxReadBytes ? moov(read(pos, (int) size)) : MediaInfo.EMPTY;
+            }
+            if (size > fileSize - pos) {
+                break; // a 64-bit size past the end would overflow pos
+            }
+            pos += size;
+        }
+        return MediaInfo.EMPTY;
+    }
+
+    private static MediaInfo moov(byte[] b) {
+        int end = b.length;
+        Integer width = null;
+        Integer height = null;
+        Double duration = null;
+        String videoCodec = null;
+        String audioCodec = null;
+        String capturedAt = null;
+
+        int[] mvhd = box(b, 8, end, "mvhd");
+        long timescale = 0;
+        if (mvhd != null) {
+            int s = mvhd[0];
+            boolean v1 = s < mvhd[1] && b[s] == 1;
+            if (s + (v1 ? 32 : 20) <= mvhd[1]) {
+                long created = v1 ? u64(b, s + 4) : u32(b, s + 4);
+                timescale = u32(b, s + (v1 ? 20 : 12));
+                long units = v1 ? u64(b, s + 24) : u32(b, s + 16);
+                // All ones means the duration is unknown
+                if (timescale > 0 && units > 0 && units != (v1 ? -1L : 0xFFFFFFFFL)) {
+                    duration = (double) units / timescale;
+                }
+                if (created > MP4_EPOCH_OFFSET && created - MP4_EPOCH_OFFSET < MAX_EPOCH_SECOND) {
+                    capturedAt = Instant.ofEpochSecond(created - MP4_EPOCH_OFFSET).toString();
+                }
+            }
+        }
+
+        // Fragmented files leave mvhd empty and give the total length in mvex/mehd
+        int[] mehd = path(b, 8, end, "mvex", "mehd");
+        if (duration == null && mehd != null && timescale > 0) {
+            int s = mehd[0];
+            boolean v1 = s < mehd[1] && b[s] == 1;
+            if (s + (v1 ? 12 : 8) <= mehd[1]) {
+                long units = v1 ? u64(b, s + 4) : u32(b, s + 4);
+                duration = units > 0 ? (double) units / timescale : null;
+            }
+        }
+
+        int p = 8;
+        int[] trak;
+        while ((trak = box(b, p, end, "trak")) != null) {
+            p = trak[1];
+            int[] hdlr = path(b, trak[0], trak[1], "mdia", "hdlr");
+            String handler = hdlr != null && hdlr[0] + 12 <= hdlr[1] ? ascii(b, hdlr[0] + 8, 4) : "";
+            int[] stsd = path(b, trak[0], trak[1], "mdia", "minf", "stbl", "stsd");
+            String codec = stsd != null && stsd[0] + 16 <= stsd[1] ? ascii(b, stsd[0] + 12, 4).trim() : null;
+
+            if (handler.equals("vide") && videoCodec == null) {
+                videoCodec = codec;
+                int[] tkhd = box(b, trak[0], trak[1], "tkhd");
+                if (tkhd != null) {
+                    int s = tkhd[0] + (tkhd[0] < tkhd[1] && b[tkhd[0]] == 1 ? 12 : 0);
+                    if (s + 84 <= tkhd[1]) {
+                        int w = (int) (u32(b, s + 76) >>> 16);
+                        int h = (int) (u32(b, s + 80) >>> 16);
+                        // A matrix that turns the track by 90 or 270 degrees swaps the displayed sides
+                        boolean quarterTurn = u32(b, s + 40) == 0 && Math.abs((int) u32(b, s + 44)) == 0x10000;
+                        if (w > 0 && h > 0) {
+                            width = quarterTurn ? h : w;
+                            height = quarterTurn ? w : h;
+                        }
+                    }
+                }
+            } else if (handler.equals("soun") && audioCodec == null) {
+                audioCodec = codec;
+            }
+        }
+        return new MediaInfo(width, height, duration, videoCodec, audioCodec, capturedAt);
+    }
+
+    /**
+     * Payload start and end of the first box of the given type in [start, end), or null.
+     */
+    static int[] box(byte[] b, int start, int end, String type) {
+        int p = start;
+        while (p + 8 <= end) {
+            long size = u32(b, p);
+            int headerSize = 8;
+            if (size == 1) {
+                if (p + 16 > end) {
+                    return null;
+                }
+                size = u64(b, p + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - p;
+            }
+            if (size < headerSize || size > end - p) {
+                return null;
+            }
+            if (ascii(b, p + 4, 4).equals(type)) {
+                return new int[]{p + headerSize, p + (int) size};
+            }
+            p += (int) size;
+        }
+        return null;
+    }
+
+    static int[] path(byte[] b, int start, int end, String... types) {
+        int[] current = {start, end};
+        for (String type : types) {
+            current = box(b, current[0], current[1], type);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    // Matroska / WebM
+
+    /**
+     * Follows the children of the Segment to Info and Tracks, which muxers put before the
+     * first Cluster, skipping SeekHead, Void and the like unread.
+     */
+    private MediaInfo matroska() {
+        long[] header = Matroska.element(head, 0);
+        if (header == null || header[0] != EBML || header[2] < 0) {
+            return MediaInfo.EMPTY;
+        }
+        long p = header[1] + header[2];
+        long[] segment = Matroska.element(read(p, 12), 0);
+        if (segment == null || segment[0] != SEGMENT) {
+            return MediaInfo.EMPTY;
+        }
+        long segmentEnd = segment[2] < 0 ? fileSize : p + segment[1] + segment[2];
+        p += segment[1];
+
+        Matroska m = new Matroska();
+        for (int i = 0; i < MAX_TOP_LEVEL_BOXES && p < segmentEnd && !(m.info && m.tracks); i++) {
+            long[] child = Matroska.element(read(p, 12), 0);
+            if (child == null || child[0] == CLUSTER || child[2] < 0) {
+                break;
+            }
+            long start = p + child[1];
+            if (child[0] == INFO || child[0] == TRACKS) {
+                if (child[2] > maxReadBytes) {
+                    break;
+                }
+                byte[] data = read(start, (int) child[2]);
+                if (child[0] == INFO) {
+                    m.info = true;
+                    m.readInfo(data, 0, data.length);
+                } else {
+                    m.tracks = true;
+                    m.readTracks(data, 0, data.length);
+                }
+            }
+            p = start + child[2];
+        }
+        return m.toMediaInfo();
+    }
+
+    private static final class Matroska {
+        long timecodeScale = 1_000_000;
+        Double duration;
+        Long dateUtc;
+        Integer width;
+        Integer height;
+        String videoCodec;
+        String audioCodec;
+        boolean info;
+        boolean tracks;
+
+        private void readInfo(byte[] b, int p, int end) {
+            long[] e;
+            while ((e = child(b, p, end)) != null) {
+                int s = (int) e[1];
+                int n = (int) e[2];
+                if (e[0] == TIMECODE_SCALE) {
+                    timecodeScale = uint(b, s, n);
+                } else if (e[0] == DURATION) {
+                    duration = n == 4 ? (double) Float.intBitsToFloat((int) u32(b, s))
+                            : n == 8 ? Double.longBitsToDouble(u64(b, s)) : null;
+                } else if (e[0] == DATE_UTC && n == 8) {
+                    dateUtc = u64(b, s);
+                }
+                p = s + n;
+            }
+        }
+
+        private void readTracks(byte[] b, int p, int end) {
+            long[] entry;
+            while ((entry = child(b, p, end)) != null) {
+                int entryEnd = (int) (entry[1] + entry[2]);
+                if (entry[0] == TRACK_ENTRY) {
+                    readTrackEntry(b, (int) entry[1], entryEnd);
+                }
+                p = entryEnd;
+            }
+        }
+
+        private void readTrackEntry(byte[] b, int p, int end) {
+            long type = 0;
+            String codec = null;
+            Integer pixelWidth = null;
+            Integer pixelHeight = null;
+            long[] e;
+            while ((e = child(b, p, end)) != null) {
+                int s = (int) e[1];
+                int n = (int) e[2];
+                if (e[0] == TRACK_TYPE) {
+                    type = uint(b, s, n);
+                } else if (e[0] == CODEC_ID) {
+                    // "V_VP9", "A_OPUS": the kind prefix repeats TrackType
+                    codec = new String(b, s, Math.min(n, 64), StandardCharsets.US_ASCII).trim();
+                    codec = codec.length() > 2 && codec.charAt(1) == '_' ? codec.substring(2).toLowerCase() : codec;
+                } else if (e[0] == VIDEO) {
+                    long[] v;
+                    int q = s;
+                    while ((v = child(b, q, s + n)) != null) {
+                        if (v[0] == PIXEL_WIDTH) {
+                            pixelWidth = (int) uint(b, (int) v[1], (int) v[2]);
+                        } else if (v[0] == PIXEL_HEIGHT) {
+                            pixelHeight = (int) uint(b, (int) v[1], (int) v[2]);
+                        }
+                        q = (int) (v[1] + v[2]);
+                    }
+                }
+                p = s + n;
+            }
+            if (type == 1 && videoCodec == null) {
+                videoCodec = codec;
+                width = pixelWidth;
+                height = pixelHeight;
+            } else if (type == 2 && audioCodec == null) {
+                audioCodec = codec;
+            }
+        }
+
+        MediaInfo toMediaInfo() {
+            Double seconds = duration != null && duration > 0 && !duration.isInfinite() && timecodeScale > 0
+                    ? duration * timecodeScale / 1e9 : null;
+            String capturedAt = dateUtc != null && dateUtc != 0
+                    ? Instant.ofEpochSecond(MATROSKA_EPOCH + Math.floorDiv(dateUtc, 1_000_000_000L)).toString()
+                    : null;
+            return new MediaInfo(width, height, seconds, videoCodec, audioCodec, capturedAt);
+        }
+
+        /**
+         * A child element that lies wholly within [p, end), or null.
+         */
+        private static long[] child(byte[] b, int p, int end) {
+            if (p >= end) {
+                return null;
+            }
+            long[] e = element(b, p);
+            return e != null && e[2] >= 0 && e[1] + e[2] <= end ? e : null;
+        }
+
+        /**
+         * ID, data offset and data size (-1 if unknown) of the element at p, or null if its
+         * header is invalid or runs past the buffer.
+         */
+        static long[] element(byte[] b, int p) {
+            if (p >= b.length) {
+                return null;
+            }
+            int idLength = vintLength(b[p]);
+            if (idLength == 0 || idLength > 4 || p + idLength >= b.length) {
+                return null;
+            }
+            long id = 0;
+            for (int i = 0; i < idLength; i++) {
+                id = id << 8 | (b[p + i] & 0xFF);
+            }
+            int q = p + idLength;
+            int sizeLength = vintLength(b[q]);
+            if (sizeLength == 0 || q + sizeLength > b.length) {
+                return null;
+            }
+            long size = b[q] & (0xFF >> sizeLength);
+            boolean unknown = size == (0xFF >> sizeLength);
+            for (int i = 1; i < sizeLength; i++) {
+                size = size << 8 | (b[q + i] & 0xFF);
+                unknown &= (b[q + i] & 0xFF) == 0xFF;
+            }
+            return new long[]{id, q + sizeLength, unknown ? -1 : size};
+        }
+
+        private static int vintLength(byte first) {
+            int leading = Integer.numberOfLeadingZeros(first & 0xFF) - 24;
+            return leading < 8 ? leading + 1 : 0;
+        }
+
+        private static long uint(byte[] b, int s, int n) {
+            long value = 0;
+            for (int i = 0; i < Math.min(n, 8); i++) {
+                value = value << 8 | (b[s + i] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+    // Audio
+
+    /**
+     * Duration from the sample rate and total sample count in STREAMINFO.
+     */
+    private static MediaInfo flac(byte[] b) {
+        int s = 8;
+        if (b.length < s + 18 || (b[4] & 0x7F) != 0) {
+            return new MediaInfo(null, null, null, null, "flac", null);
+        }
+        int sampleRate = (b[s + 10] & 0xFF) << 12 | (b[s + 11] & 0xFF) << 4 | (b[s + 12] & 0xFF) >> 4;
+        long samples = (long) (b[s + 13] & 0x0F) << 32 | u32(b, s + 14);
+        Double duration = sampleRate > 0 && samples > 0 ? (double) samples / sampleRate : null;
+        return new MediaInfo(null, null, duration, null, "flac", null);
+    }
+
+    /**
+     * Duration from the frame count in a Xing/Info or VBRI header, or from the bitrate of the
+     * first frame for constant-bitrate files without one.
+     *
+     * @param scan whether to look for the first frame past leftover tag bytes
+     */
+    private MediaInfo mp3(byte[] b, long audioStart, boolean scan) {
+        int limit = scan ? Math.min(b.length - 4, FRAME_SCAN_BYTES) : Math.min(b.length - 4, 1);
+        for (int i = 0; i < limit; i++) {
+            if ((b[i] & 0xFF) != 0xFF || (b[i + 1] & 0xE0) != 0xE0) {
+                continue;
+            }
+            int version = (b[i + 1] >> 3) & 3;      // 3: MPEG-1, 2: MPEG-2, 0: MPEG-2.5
+            int layer = 4 - ((b[i + 1] >> 1) & 3);  // 1..3, 4 is reserved
+            int bitrateIndex = (b[i + 2] >> 4) & 0x0F;
+            int sampleRateIndex = (b[i + 2] >> 2) & 3;
+            if (version == 1 || layer == 4 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                continue;
+            }
+            boolean mpeg1 = version == 3;
+            boolean mono = ((b[i + 3] >> 6) & 3) == 3;
+            int bitrate = MP3_BITRATES[mpeg1 ? layer - 1 : (layer == 1 ? 3 : 4)][bitrateIndex] * 1000;
+            int sampleRate = MP3_SAMPLE_RATES[sampleRateIndex] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+            int samplesPerFrame = layer == 1 ? 384 : layer == 2 || mpeg1 ? 1152 : 576;
+
+            long frames = 0;
+            int xing = i + 4 + (mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+            if (xing + 12 <= b.length && (ascii(b, xing, 4).equals("Xing") || ascii(b, xing, 4).equals("Info"))
+                    && (u32(b, xing + 4) & 1) != 0) {
+                frames = u32(b, xing + 8);
+            } else if (i + 36 + 18 <= b.length && ascii(b, i + 36, 4).equals("VBRI")) {
+                frames = u32(b, i + 36 + 14);
+            }
+
+            Double duration;
+            if (frames > 0) {
+                duration = (double) frames * samplesPerFrame / sampleRate;
+            } else {
+                long audioBytes = fileSize - audioStart - i;
+                duration = audioBytes > 0 ? audioBytes * 8.0 / bitrate : null;
+            }
+            return new MediaInfo(null, null, duration, null, "mp" + layer, null);
+        }
+        return MediaInfo.EMPTY;
+    }
+
+    /**
+     * Duration from the byte rate in {@code fmt } and the size of {@code data}, walking the
+     * chunk headers.
+     */
+    private MediaInfo wav() {
+        long pos = 12;
+        long byteRate = 0;
+        String codec = null;
+        for (int i = 0; i < MAX_RIFF_CHUNKS && pos + 8 <= fileSize; i++) {
+            byte[] header = read(pos, 24);
+            if (header.length < 8) {
+                break;
+            }
+            String id = ascii(header, 0, 4);
+            long size = u32le(header, 4);
+            if (id.equals("fmt ") && header.length >= 24) {
+                int format = (int) (u32le(header, 8) & 0xFFFF);
+                byteRate = u32le(header, 16);
+                codec = format == 1 || format == 0xFFFE ? "pcm" : format == 3 ? "pcm_float" : null;
+            } else if (id.equals("data")) {
+                // Streaming writers leave the size unset
+                long dataSize = size == 0 || size == 0xFFFFFFFFL ? fileSize - pos - 8 : size;
+                Double duration = byteRate > 0 ? (double) dataSize / byteRate : null;
+                return new MediaInfo(null, null, duration, null, codec, null);
+            }
+            pos += 8 + size + (size & 1);
+        }
+        return MediaInfo.EMPTY;
+    }
+
+    // Reading
+
+    /**
+     * Bytes at [offset, offset + length), served from the head where it covers them.
+     */
+    private byte[] read(long offset, int length) {
+        long end = Math.min(offset + length, fileSize);
+        if (end <= offset) {
+            return new byte[0];
+        }
+        if (end <= head.length) {
+            return Arrays.copyOfRange(head, (int) offset, (int) end);
+        }
+        if (offset >= head.length) {
+            return source.read(offset, (int) (end - offset));
+        }
+        byte[] rest = source.read(head.length, (int) (end - head.length));
+        byte[] combined = Arrays.copyOf(Arrays.copyOfRange(head, (int) offset, head.length),
+                head.length - (int) offset + rest.length);
+        System.arraycopy(rest, 0, combined, head.length - (int) offset, rest.length);
+        return combined;
+    }
+
+    static String ascii(byte[] b, int offset, int length) {
+        return offset + length <= b.length ? new String(b, offset, length, StandardCharsets.ISO_8859_1) : "";
+    }
+
+    static long u32(byte[] b, int offset) {
+        return (long) (b[offset] & 0xFF) << 24 | (b[offset + 1] & 0xFF) << 16
+                | (b[offset + 2] & 0xFF) << 8 | (b[offset + 3] & 0xFF);
+    }
+
+    static long u64(byte[] b, int offset) {
+        return u32(b, offset) << 32 | u32(b, offset + 4);
+    }
+
+    private static long u32le(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8
+                | (b[offset + 2] & 0xFF) << 16 | (long) (b[offset + 3] & 0xFF) << 24;
+    }
+
+    private static int synchsafe(byte[] b, int offset) {
+        return (b[offset] & 0x7F) << 21 | (b[offset + 1] & 0x7F) << 14 | (b[offset + 2] & 0x7F) << 7 | (b[offset + 3] & 0x7F);
+    }
+}
@@ -0,0 +1,154 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.infrastructure.media.MediaProbe.ByteSource;
+
+import static com.familyvault.infrastructure.media.MediaProbe.ascii;
+import static com.familyvault.infrastructure.media.MediaProbe.box;
+import static com.familyvault.infrastructure.media.MediaProbe.path;
+import static com.familyvault.infrastructure.media.MediaProbe.u32;
+import static com.familyvault.infrastructure.media.MediaProbe.u64;
+
+/**
+ * Plans moving the {@code moov} box of an MP4/QuickTime file in front of its media data, so
+ * playback can start before the whole file has loaded.
+ * <p>
+ * The relocated file is the original up to the end of {@code ftyp}, then the {@code moov},
+ * then the remaining boxes in their original order; it has the same size as the original.
+ * Media data that sat between {@code ftyp} and the old {@code moov} moves back by the size of
+ * the {@code moov}, so the chunk offsets in {@code stco}/{@code co64} that point there are
+ * shifted by that much. Data behind the old {@code moov} keeps its position.
+ */
+final class Mp4FastStart {
+
+    private static final int MAX_TOP_LEVEL_BOXES = 64;
+
+    private Mp4FastStart() {
+    }
+
+    /**
+     * Where the {@code moov} is and where it goes.
+     *
+     * @param insertAt         offset the {@code moov} moves to: the end of {@code ftyp}
+     * @param needsRelocation  whether media data precedes the {@code moov}
+     */
+    record Layout(long insertAt, long moovOffset, long moovSize, long fileSize, boolean needsRelocation) {
+    }
+
+    /**
+     * Follows the top-level box sizes to the {@code moov}.
+     *
+     * @return the layout, or null if there is no {@code moov} or its size is not recorded
+     */
+    static Layout scan(ByteSource source, long fileSize) {
+        long pos = 0;
+        long insertAt = 0;
+        boolean mediaBefore = false;
+        for (int i = 0; i < MAX_TOP_LEVEL_BOXES && pos + 8 <= fileSize; i++) {
+            byte[] header = source.read(pos, 16);
+            if (header.length < 8) {
+                return null;
+            }
+            long size = u32(header, 0);
+            int headerSize = 8;
+            if (size == 1) {
+                if (header.length < 16) {
+                    return null;
+                }
+                size = u64(header, 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                // Runs to the end of the file; a moov like that can't be moved as is
+                if (ascii(header, 4, 4).equals("moov")) {
+                    return null;
+                }
+                size = fileSize - pos;
+            }
+            // A 64-bit size past the end would overflow pos
+            if (size < headerSize || size > fileSize - pos) {
+                return null;
+            }
+
+            switch (ascii(header, 4, 4)) {
+                case "ftyp" -> insertAt = i == 0 ? size : insertAt;
+                case "mdat" -> mediaBefore = true;
+                case "moov" -> {
+                    return new Layout(insertAt, pos, size, fileSize, mediaBefore);
+                }
+                default -> {
+                }
+            }
+            pos += size;
+        }
+        return null;
+    }
+
+    /**
+     * The {@code moov} with its chunk offsets adjusted to the relocated layout.
+     *
+     * @return the patched copy, or null if the file can't be relocated this way: the movie is
+     *         compressed or fragmented, or a 32-bit offset would overflow
+     */
+    static byte[] relocate(byte[] moov, Layout layout) {
+        byte[] b = moov.clone();
+        int start = u32(b, 0) == 1 ? 16 : 8;
+        // Fragments address their data relative to moof boxes that would move as well
+        if (box(b, start, b.length, "cmov") != null || box(b, start, b.length, "mvex") != null) {
+            return null;
+        }
+
+        int p = start;
+        int[] trak;
+        while ((trak = box(b, p, b.length, "trak")) != null) {
+            p = trak[1];
+            int[] stbl = path(b, trak[0], trak[1], "mdia", "minf", "stbl");
+            if (stbl == null) {
+                continue;
+            }
+            for (String type : new String[]{"stco", "co64"}) {
+                int q = stbl[0];
+                int[] table;
+                while ((table = box(b, q, stbl[1], type)) != null) {
+                    q = table[1];
+                    if (!shiftOffsets(b, table[0], table[1], type.equals("co64"), layout)) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return b;
+    }
+
+    private static boolean shiftOffsets(byte[] b, int start, int end, boolean wide, Layout layout) {
+        if (start + 8 > end) {
+            return false;
+        }
+        long count = u32(b, start + 4);
+        int entrySize = wide ? 8 : 4;
+        if (start + 8 + count * entrySize > end) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            int at = start + 8 + i * entrySize;
+            long offset = wide ? u64(b, at) : u32(b, at);
+            if (offset >= layout.insertAt() && offset < layout.moovOffset()) {
+                offset += layout.moovSize();
+            }
+            if (wide) {
+                put32(b, at, offset >>> 32);
+                put32(b, at + 4, offset);
+            } else if (offset > 0xFFFFFFFFL) {
+                return false;
+            } else {
+                put32(b, at, offset);
+            }
+        }
+        return true;
+    }
+
+    private static void put32(byte[] b, int offset, long value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+}
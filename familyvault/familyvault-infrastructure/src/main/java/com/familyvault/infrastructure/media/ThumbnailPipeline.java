@@ -0,0 +1,402 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.core.application.port.out.media.ThumbnailGenerationPort;
+import com.familyvault.core.application.port.out.persistence.FileRepository;
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import com.familyvault.core.domain.model.file.StoredFile;
+import com.familyvault.core.domain.model.file.ThumbnailSize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the {@link ThumbnailSize} JPEGs of uploaded images on a fixed pool of workers
+ * fed by a bounded queue; images submitted while the queue is full are skipped.
+ * <p>
+ * The original is spooled to a temporary file and decoded with source subsampling, so a job
+ * never holds more than {@code max-decoded-pixels} of raster however large the photo is.
+ * Thumbnails are turned upright by the EXIF orientation, which ImageIO ignores. The file's
+ * thumbnail key and stored dimensions are written once every size has been uploaded.
+ * Formats without an ImageIO reader, such as HEIC, are skipped.
+ */
+@Slf4j
+@Component
+public class ThumbnailPipeline implements ThumbnailGenerationPort {
+
+    private static final List<ThumbnailSize> SIZES_LARGEST_FIRST = Arrays.stream(ThumbnailSize.values())
+            .sorted(Comparator.comparingInt(ThumbnailSize::getMaxEdge).reversed())
+            .toList();
+
+    /**
+     * Bytes read from the start of the original to find its EXIF orientation.
+     */
+    private static final int HEADER_BYTES = 256 * 1024;
+
+    private final FileStoragePort fileStorage;
+    private final FileRepository fileRepository;
+    private final ThreadPoolExecutor executor;
+    private final long maxSourceBytes;
+    private final long maxSourcePixels;
+    private final long maxDecodedPixels;
+    private final float jpegQuality;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer download;
+    private final Timer decode;
+    private final Timer encode;
+    private final Timer upload;
+    private final Map<String, Counter> jobs = new ConcurrentHashMap<>();
+
+    public ThumbnailPipeline(
+            FileStoragePort fileStorage,
+            FileRepository fileRepository,
+            MeterRegistry meterRegistry,
+            @Value("${media.thumbnails.workers:2}") int workers,
+            @Value("${media.thumbnails.queue-capacity:500}") int queueCapacity,
+            @Value("${media.thumbnails.max-source-bytes:104857600}") long maxSourceBytes,
+            @Value("${media.thumbnails.max-source-pixels:150000000}") long maxSourcePixels,
+            @Value("${media.thumbnails.max-decoded-pixels:8000000}") long maxDecodedPixels,
+            @Value("${media.thumbnails.jpeg-quality:0.82}") float jpegQuality
+    ) {
+        this.fileStorage = fileStorage;
+        this.fileRepository = fileRepository;
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxSourcePixels = maxSourcePixels;
+        this.maxDecodedPixels = maxDecodedPixels;
+        this.jpegQuality = jpegQuality;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.meterRegistry = meterRegistry;
+        this.download = stageTimer(meterRegistry, "download");
+        this.decode = stageTimer(meterRegistry, "decode");
+        this.encode = stageTimer(meterRegistry, "encode");
+        this.upload = stageTimer(meterRegistry, "upload");
+        meterRegistry.gaugeCollectionSize("media.thumbnails.queue", Tags.empty(), executor.getQueue());
+    }
+
+    @Override
+    public boolean submit(StoredFile file) {
+        if (file.getFileSize() > maxSourceBytes) {
+            count("too_large");
+            return false;
+        }
+        try {
+            executor.execute(() -> generate(file));
+            return true;
+        } catch (RejectedExecutionException e) {
+            count("rejected");
+            log.warn("Thumbnail queue is full, skipping file {}", file.getId());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(StoredFile file) {
+        Path original = null;
+        try {
+            original = Files.createTempFile("thumbnail-", ".src");
+            count(generate(file, original));
+        } catch (Exception e) {
+            count("failed");
+            log.warn("Generating thumbnails for file {} failed: {}", file.getId(), e.getMessage());
+        } finally {
+            if (original != null) {
+                try {
+                    Files.deleteIfExists(original);
+                } catch (IOException e) {
+                    log.debug("Could not delete {}", original);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the outcome for the jobs metric
+     */
+    private String generate(StoredFile file, Path original) throws Exception {
+        if (!spool(file, original)) {
+            return "missing";
+        }
+
+        Optional<Decoded> decoded = decode.recordCallable(() -> decode(original));
+        if (decoded.isEmpty()) {
+            return "unsupported";
+        }
+        BufferedImage image = decoded.get().image();
+        if (image == null) {
+            return "too_large";
+        }
+
+        List<Derivative> derivatives = encode.record(() -> encodeAll(image, decoded.get().orientation()));
+        upload.record(() -> derivatives.forEach(derivative -> fileStorage.upload(
+                derivative.size().keyFor(file.getStorageKey()),
+                new ByteArrayInputStream(derivative.jpeg()),
+                "image/jpeg",
+                derivative.jpeg().length)));
+
+        store(file, decoded.get());
+        return "success";
+    }
+
+    /**
+     * Copies the original to a temporary file, so decoding can seek in it without buffering
+     * the whole stream in memory. The declared size is not trusted for single PUT uploads,
+     * so the copy stops at {@code max-source-bytes}.
+     *
+     * @return false if the original is gone
+     */
+    private boolean spool(StoredFile file, Path target) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Optional<InputStream> content = fileStorage.download(file.getStorageKey());
+            if (content.isEmpty()) {
+                return false;
+            }
+            try (InputStream in = content.get(); OutputStream out = Files.newOutputStream(target)) {
+                byte[] buffer = new byte[64 * 1024];
+                long copied = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    copied += read;
+                    if (copied > maxSourceBytes) {
+                        throw new IOException("Original exceeds " + maxSourceBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            return true;
+        } finally {
+            sample.stop(download);
+        }
+    }
+
+    /**
+     * Decodes at the coarsest subsampling that still covers the largest thumbnail, then
+     * coarser still if needed to stay within the decoded pixel budget.
+     *
+     * @return empty if no reader handles the format; a null image if the original is too large
+     */
+    private Optional<Decoded> decode(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    return Optional.of(new Decoded(null, width, height, 1));
+                }
+
+                int largestEdge = SIZES_LARGEST_FIRST.get(0).getMaxEdge();
+                int subsampling = Math.max(1, Math.max(width, height) / largestEdge);
+                while (decodedPixels(width, height, subsampling) > maxDecodedPixels) {
+                    subsampling++;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return Optional.of(new Decoded(reader.read(0, param), width, height, orientation(original)));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * EXIF orientation of a JPEG or PNG, 1 (upright) if it has none.
+     */
+    private static int orientation(Path original) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(original)) {
+            head = in.readNBytes(HEADER_BYTES);
+        }
+        Integer orientation = ImageHeaderParser.parse(head).orientation;
+        return orientation != null && orientation >= 1 && orientation <= 8 ? orientation : 1;
+    }
+
+    private static long decodedPixels(int width, int height, int subsampling) {
+        return (long) ((width + subsampling - 1) / subsampling) * ((height + subsampling - 1) / subsampling);
+    }
+
+    /**
+     * Scales down size by size, each from the previous one, so every step is a small
+     * reduction from an already small raster. The largest size is turned upright before the
+     * others are scaled from it; fitting into a square doesn't depend on the orientation.
+     */
+    private List<Derivative> encodeAll(BufferedImage decoded, int orientation) {
+        List<Derivative> derivatives = new ArrayList<>();
+        BufferedImage source = decoded;
+        for (ThumbnailSize size : SIZES_LARGEST_FIRST) {
+            source = scale(source, size.getMaxEdge());
+            if (orientation != 1) {
+                source = orient(source, orientation);
+                orientation = 1;
+            }
+            derivatives.add(new Derivative(size, writeJpeg(source)));
+        }
+        return derivatives;
+    }
+
+    /**
+     * Turns an image upright: the stored pixels are mirrored and rotated as the EXIF
+     * orientation (2 to 8) says they should be displayed.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // Arguments are m00, m10, m01, m11, m02, m12: (x, y) moves to (m00 x + m01 y + m02, m10 x + m11 y + m12)
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // mirror horizontally
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // rotate 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // mirror vertically
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transpose
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // rotate 90° clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transverse
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);   // rotate 90° counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swapped = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(swapped ? h : w, swapped ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    /**
+     * Fits the image within a square of {@code maxEdge}, flattened onto white since JPEG has
+     * no alpha.
+     */
+    private static BufferedImage scale(BufferedImage image, int maxEdge) {
+        double factor = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] writeJpeg(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new IllegalStateException("Encoding thumbnail failed", e);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Stores the thumbnail key, and the dimensions of the stored pixels as the metadata
+     * extractor does. If the file was deleted in the meantime, its thumbnails are deleted too.
+     */
+    private void store(StoredFile file, Decoded decoded) {
+        boolean stored = fileRepository.storeThumbnail(file.getId(),
+                ThumbnailSize.SMALL.keyFor(file.getStorageKey()), decoded.width(), decoded.height());
+        if (!stored) {
+            for (ThumbnailSize size : ThumbnailSize.values()) {
+                fileStorage.delete(size.keyFor(file.getStorageKey()));
+            }
+        }
+    }
+
+    private void count(String result) {
+        jobs.computeIfAbsent(result, tag -> Counter.builder("media.thumbnails.jobs")
+                        .tag("result", tag)
+                        .description("Thumbnail jobs by outcome")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("media.thumbnails.stage")
+                .tag("stage", stage)
+                .description("Time spent per thumbnail job in each stage")
+                .register(meterRegistry);
+    }
+
+    private record Decoded(BufferedImage image, int width, int height, int orientation) {
+    }
+
+    private record Derivative(ThumbnailSize size, byte[] jpeg) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.familyvault.infrastructure.persistence.adapter;
+
+import com.familyvault.core.application.port.out.persistence.FamilyRepository;
+import com.familyvault.core.domain.model.family.Family;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyMember;
+import com.familyvault.core.domain.model.user.UserId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link FamilyRepository} decorator that caches membership lookups per (family, user).
+ * <p>
+ * {@link #findMember} and {@link #isMember} share one entry, so a request that checks
+ * membership and then reads the role hits the database at most once. Misses are cached
+ * too, with a shorter TTL. Writes through this repository evict the affected entries right
+ * away and again once the surrounding transaction completes, so a lookup that raced the
+ * write cannot leave the old membership behind. Writes made by other nodes become visible
+ * here within the TTL.
+ */
+public class CachingFamilyRepository implements FamilyRepository {
+
+    private final FamilyRepository delegate;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maxSize;
+    private final Map<MemberKey, CachedMember> members = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter misses;
+
+    public CachingFamilyRepository(
+            FamilyRepository delegate,
+            MeterRegistry meterRegistry,
+            Duration ttl,
+            Duration negativeTtl,
+            int maxSize
+    ) {
+        this.delegate = delegate;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.maxSize = maxSize;
+
+        this.hits = Counter.builder("family.membership.cache.requests")
+                .tag("result", "hit")
+                .description("Membership lookups answered from the cache")
+                .register(meterRegistry);
+        this.negativeHits = Counter.builder("family.membership.cache.requests")
+                .tag("result", "negative_hit")
+                .description("Lookups answered from a cached non-membership")
+                .register(meterRegistry);
+        this.misses = Counter.builder("family.membership.cache.requests")
+                .tag("result", "miss")
+                .description("Membership lookups that went to the database")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("family.membership.cache.size", Tags.empty(), members);
+    }
+
+    @Override
+    public Family save(Family family) {
+        return delegate.save(family);
+    }
+
+    @Override
+    public Optional<Family> findById(FamilyId id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Optional<Family> findByInviteCode(String inviteCode) {
+        return delegate.findByInviteCode(inviteCode);
+    }
+
+    @Override
+    public void delete(FamilyId id) {
+        delegate.delete(id);
+        evictFamily(id);
+    }
+
+    @Override
+    public FamilyMember saveMember(FamilyMember member) {
+        FamilyMember saved = delegate.saveMember(member);
+        evict(new MemberKey(member.getFamilyId(), member.getUserId()));
+        return saved;
+    }
+
+    @Override
+    public Optional<FamilyMember> findMember(FamilyId familyId, UserId userId) {
+        return lookup(new MemberKey(familyId, userId));
+    }
+
+    @Override
+    public List<FamilyMember> findMembersByFamily(FamilyId familyId) {
+        return delegate.findMembersByFamily(familyId);
+    }
+
+    @Override
+    public List<FamilyMember> findFamiliesByUser(UserId userId) {
+        return delegate.findFamiliesByUser(userId);
+    }
+
+    @Override
+    public List<FamilySummary> findFamilySummariesByUser(UserId userId) {
+        return delegate.findFamilySummariesByUser(userId);
+    }
+
+    @Override
+    public boolean isMember(FamilyId familyId, UserId userId) {
+        return lookup(new MemberKey(familyId, userId)).isPresent();
+    }
+
+    @Override
+    public void deleteMember(FamilyId familyId, UserId userId) {
+        delegate.deleteMember(familyId, userId);
+        evict(new MemberKey(familyId, userId));
+    }
+
+    private Optional<FamilyMember> lookup(MemberKey key) {
+        long now = System.currentTimeMillis();
+        CachedMember cached = members.get(key);
+        if (cached != null && now < cached.expiresAtMillis()) {
+            (cached.member().isPresent() ? hits : negativeHits).increment();
+            return cached.member();
+        }
+
+        misses.increment();
+        Optional<FamilyMember> member = delegate.findMember(key.familyId(), key.userId());
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // May be reading this transaction's own uncommitted writes
+            return member;
+        }
+
+        if (members.size() >= maxSize) {
+            members.values().removeIf(entry -> now >= entry.expiresAtMillis());
+        }
+        if (members.size() < maxSize) {
+            long ttl = member.isPresent() ? ttlMillis : negativeTtlMillis;
+            members.put(key, new CachedMember(member, now + ttl));
+        }
+        return member;
+    }
+
+    private void evict(MemberKey key) {
+        members.remove(key);
+        afterCompletion(() -> members.remove(key));
+    }
+
+    private void evictFamily(FamilyId familyId) {
+        members.keySet().removeIf(key -> key.familyId().equals(familyId));
+        afterCompletion(() -> members.keySet().removeIf(key -> key.familyId().equals(familyId)));
+    }
+
+    private static void afterCompletion(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
+    }
+
+    private record MemberKey(FamilyId familyId, UserId userId) {
+    }
+
+    private record CachedMember(Optional<FamilyMember> member, long expiresAtMillis) {
+    }
+}
@@ -4,6 +4,8 @@ import com.familyvault.core.application.port.out.persistence.FamilyRepository;
 import com.familyvault.core.domain.model.family.Family;
 import com.familyvault.core.domain.model.family.FamilyId;
 import com.familyvault.core.domain.model.family.FamilyMember;
+import com.familyvault.core.domain.model.family.FamilyRole;
+import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.core.domain.model.user.UserId;
 import com.familyvault.infrastructure.persistence.entity.FamilyEntity;
 import com.familyvault.infrastructure.persistence.entity.FamilyMemberEntity;
@@ -11,20 +13,59 @@ import com.familyvault.infrastructure.persistence.mapper.FamilyMapper;
 import com.familyvault.infrastructure.persistence.repository.JpaFamilyMemberRepository;
 import com.familyvault.infrastructure.persistence.repository.JpaFamilyRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class FamilyRepositoryAdapter implements FamilyRepository {
 
+    /**
+     * One row per family the user actively belongs to. File statistics are aggregated per
+     * family in a lateral subquery with one FILTER column per file type, so the result needs
+     * no second pass and the driving scan stays on idx_family_members_user.
+     */
+    private static final String FAMILY_SUMMARIES_SQL = """
+            SELECT f.id, f.name, f.description, f.family_picture, f.invite_code, f.invite_enabled,
+                   f.storage_limit_bytes, f.storage_used_bytes, f.created_by, f.created_at, f.updated_at,
+                   m.role,
+                   (SELECT COUNT(*)
+                    FROM family_members am
+                    WHERE am.family_id = f.id AND am.status = 'ACTIVE' AND am.deleted_at IS NULL) AS member_count,
+                   fs.file_count, %s
+            FROM family_members m
+            JOIN families f ON f.id = m.family_id AND f.deleted_at IS NULL
+            CROSS JOIN LATERAL (
+                SELECT COUNT(*) AS file_count, %s
+                FROM files fl
+                WHERE fl.family_id = f.id AND fl.status = 'ACTIVE' AND fl.deleted_at IS NULL
+            ) fs
+            WHERE m.user_id = ? AND m.status = 'ACTIVE' AND m.deleted_at IS NULL
+            ORDER BY f.created_at
+            """.formatted(
+            Arrays.stream(FileType.values())
+                    .map(type -> "fs." + bytesColumn(type))
+                    .collect(Collectors.joining(", ")),
+            Arrays.stream(FileType.values())
+                    .map(type -> "COALESCE(SUM(fl.file_size) FILTER (WHERE fl.file_type = '%s'), 0) AS %s"
+                            .formatted(type.name(), bytesColumn(type)))
+                    .collect(Collectors.joining(", ")));
+
     private final JpaFamilyRepository jpaFamilyRepository;
     private final JpaFamilyMemberRepository jpaFamilyMemberRepository;
     private final FamilyMapper familyMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     @Transactional
@@ -94,6 +135,12 @@ public class FamilyRepositoryAdapter implements FamilyRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<FamilySummary> findFamilySummariesByUser(UserId userId) {
+        return jdbcTemplate.query(FAMILY_SUMMARIES_SQL, this::toFamilySummary, userId.value());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean isMember(FamilyId familyId, UserId userId) {
@@ -110,4 +157,37 @@ public class FamilyRepositoryAdapter implements FamilyRepository {
                         userId.getValue())
                 .ifPresent(jpaFamilyMemberRepository::delete);
     }
+
+    private FamilySummary toFamilySummary(ResultSet rs, int rowNum) throws SQLException {
+        Family family = Family.builder()
+                .id(FamilyId.of(rs.getObject("id", UUID.class)))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .familyPicture(rs.getString("family_picture"))
+                .inviteCode(rs.getString("invite_code"))
+                .inviteEnabled(rs.getBoolean("invite_enabled"))
+                .storageLimitBytes(rs.getLong("storage_limit_bytes"))
+                .storageUsedBytes(rs.getLong("storage_used_bytes"))
+                .createdBy(UserId.of(rs.getObject("created_by", UUID.class)))
+                .createdAt(rs.getTimestamp("created_at").toInstant())
+                .updatedAt(rs.getTimestamp("updated_at").toInstant())
+                .build();
+
+        Map<FileType, Long> bytesByType = new EnumMap<>(FileType.class);
+        for (FileType type : FileType.values()) {
+            bytesByType.put(type, rs.getLong(bytesColumn(type)));
+        }
+
+        return new FamilySummary(
+                family,
+                FamilyRole.valueOf(rs.getString("role")),
+                rs.getInt("member_count"),
+                rs.getLong("file_count"),
+                bytesByType
+        );
+    }
+
+    private static String bytesColumn(FileType type) {
+        return type.name().toLowerCase() + "_bytes";
+    }
 }
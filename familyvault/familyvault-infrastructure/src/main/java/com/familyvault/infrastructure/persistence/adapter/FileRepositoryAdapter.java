@@ -1,11 +1,14 @@
 package com.familyvault.infrastructure.persistence.adapter;
 
 import com.familyvault.core.application.port.out.persistence.FileRepository;
+import com.familyvault.core.application.port.out.persistence.FileRepository.FilePosition;
 import com.familyvault.core.domain.model.family.FamilyId;
 import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.FileSort;
 import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.core.domain.model.file.Folder;
 import com.familyvault.core.domain.model.file.StoredFile;
+import com.familyvault.core.domain.model.user.UserId;
 import com.familyvault.infrastructure.persistence.entity.FileEntity;
 import com.familyvault.infrastructure.persistence.entity.FolderEntity;
 import com.familyvault.infrastructure.persistence.mapper.FileMapper;
@@ -13,23 +16,83 @@ import com.familyvault.infrastructure.persistence.mapper.FolderMapper;
 import com.familyvault.infrastructure.persistence.repository.JpaFileRepository;
 import com.familyvault.infrastructure.persistence.repository.JpaFolderRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class FileRepositoryAdapter implements FileRepository {
 
+    // Everything but metadata, which neither listings nor batch operations return
+    private static final String FILE_COLUMNS = """
+            id, family_id, folder_id, uploaded_by, original_name, storage_key, mime_type,
+            file_size, file_type, thumbnail_key, width, height, duration_seconds, playback_key,
+            status, created_at, updated_at""";
+
+    /**
+     * Active files of a family; {@link #findFiles} appends the filters, keyset condition
+     * and order.
+     */
+    private static final String LIST_FILES_SQL = "SELECT " + FILE_COLUMNS
+            + " FROM files WHERE family_id = ? AND status = 'ACTIVE' AND deleted_at IS NULL";
+
+    private static final String FIND_FILES_BY_IDS_SQL = "SELECT " + FILE_COLUMNS
+            + " FROM files WHERE id = ANY(?::uuid[]) AND deleted_at IS NULL";
+
+    private static final String INSERT_FILE_SQL = """
+            INSERT INTO files (id, family_id, folder_id, uploaded_by, original_name, storage_key, mime_type,
+                               file_size, file_type, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_FILE_STATE_SQL = """
+            UPDATE files
+            SET status = ?, thumbnail_key = ?, width = ?, height = ?, duration_seconds = ?, updated_at = ?
+            WHERE id = ?
+            """;
+
+    private static final String ACTIVATE_FILE_SQL = """
+            UPDATE files
+            SET status = 'ACTIVE', updated_at = NOW()
+            WHERE id = ? AND status = 'PROCESSING'
+            """;
+
+    private static final String ACTIVATE_FILES_SQL = """
+            UPDATE files
+            SET status = 'ACTIVE', updated_at = NOW()
+            WHERE id = ANY(?::uuid[]) AND status = 'PROCESSING'
+            RETURNING id
+            """;
+
+    private static final String DELETE_FILE_SQL = """
+            DELETE FROM files
+            WHERE id = ? AND status = ?
+            """;
+
+    private static final String STORE_THUMBNAIL_SQL = """
+            UPDATE files
+            SET thumbnail_key = ?, width = COALESCE(width, ?), height = COALESCE(height, ?), updated_at = NOW()
+            WHERE id = ? AND deleted_at IS NULL
+            """;
+
     private final JpaFileRepository jpaFileRepository;
     private final JpaFolderRepository jpaFolderRepository;
     private final FileMapper fileMapper;
     private final FolderMapper folderMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     @Transactional
@@ -39,6 +102,66 @@ public class FileRepositoryAdapter implements FileRepository {
         return fileMapper.toDomain(saved);
     }
 
+    @Override
+    @Transactional
+    public void insertFiles(List<StoredFile> files) {
+        List<Object[]> rows = files.stream()
+                .map(file -> new Object[]{
+                        file.getId().value(),
+                        file.getFamilyId().value(),
+                        file.getFolderId(),
+                        file.getUploadedBy().value(),
+                        file.getOriginalName(),
+                        file.getStorageKey(),
+                        file.getMimeType(),
+                        file.getFileSize(),
+                        file.getFileType().name(),
+                        file.getStatus().name(),
+                        Timestamp.from(file.getCreatedAt()),
+                        Timestamp.from(file.getUpdatedAt())
+                })
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_FILE_SQL, rows);
+    }
+
+    @Override
+    @Transactional
+    public void updateFileStates(List<StoredFile> files) {
+        List<Object[]> rows = files.stream()
+                .map(file -> new Object[]{
+                        file.getStatus().name(),
+                        file.getThumbnailKey(),
+                        file.getWidth(),
+                        file.getHeight(),
+                        file.getDurationSeconds(),
+                        Timestamp.from(file.getUpdatedAt()),
+                        file.getId().value()
+                })
+                .toList();
+        jdbcTemplate.batchUpdate(UPDATE_FILE_STATE_SQL, rows);
+    }
+
+    @Override
+    public boolean activateFile(FileId id) {
+        return jdbcTemplate.update(ACTIVATE_FILE_SQL, id.value()) == 1;
+    }
+
+    @Override
+    public Set<FileId> activateFiles(Collection<FileId> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String[] values = ids.stream().map(id -> id.value().toString()).toArray(String[]::new);
+        return jdbcTemplate.queryForList(ACTIVATE_FILES_SQL, UUID.class, (Object) values).stream()
+                .map(FileId::of)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean storeThumbnail(FileId id, String thumbnailKey, int width, int height) {
+        return jdbcTemplate.update(STORE_THUMBNAIL_SQL, thumbnailKey, width, height, id.value()) == 1;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<StoredFile> findFileById(FileId id) {
@@ -46,6 +169,16 @@ public class FileRepositoryAdapter implements FileRepository {
                 .map(fileMapper::toDomain);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<StoredFile> findFilesByIds(Collection<FileId> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String[] values = ids.stream().map(id -> id.value().toString()).toArray(String[]::new);
+        return jdbcTemplate.query(FIND_FILES_BY_IDS_SQL, this::toStoredFile, (Object) values);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<StoredFile> findFilesByFamily(FamilyId familyId) {
@@ -75,18 +208,40 @@ public class FileRepositoryAdapter implements FileRepository {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<StoredFile> findFiles(FamilyId familyId, FileId folderId, FileType fileType, Pageable pageable) {
-        Page<FileEntity> entities;
+    public List<StoredFile> findFiles(FamilyId familyId, UUID folderId, FileType fileType, FileSort sort,
+                                      FilePosition after, int limit) {
+        StringBuilder sql = new StringBuilder(LIST_FILES_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(familyId.value());
 
         if (folderId != null) {
-            entities = jpaFileRepository.findByFolderId(folderId.getValue(), pageable);
-        } else if (fileType != null) {
-            entities = jpaFileRepository.findByFamilyIdAndFileType(familyId.getValue(), fileType, pageable);
-        } else {
-            entities = jpaFileRepository.findByFamilyId(familyId.getValue(), pageable);
+            sql.append(" AND folder_id = ?");
+            args.add(folderId);
+        }
+        if (fileType != null) {
+            sql.append(" AND file_type = ?");
+            args.add(fileType.name());
+        }
+
+        // Row comparison on the sort column and id, matching the column order of the index
+        String column = sortColumn(sort);
+        boolean descending = sort != FileSort.NAME;
+        if (after != null) {
+            sql.append(" AND (").append(column).append(", id) ").append(descending ? "<" : ">").append(" (?, ?)");
+            args.add(switch (sort) {
+                case CREATED -> Timestamp.from(after.createdAt());
+                case NAME -> after.name();
+                case SIZE -> after.size();
+            });
+            args.add(after.id());
         }
 
-        return entities.map(fileMapper::toDomain);
+        String direction = descending ? " DESC" : "";
+        sql.append(" ORDER BY ").append(column).append(direction).append(", id").append(direction);
+        sql.append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), this::toStoredFile, args.toArray());
     }
 
     @Override
@@ -104,8 +259,8 @@ public class FileRepositoryAdapter implements FileRepository {
 
     @Override
     @Transactional
-    public void deleteFile(FileId id) {
-        jpaFileRepository.deleteById(id.getValue());
+    public boolean deleteFile(FileId id, StoredFile.FileStatus status) {
+        return jdbcTemplate.update(DELETE_FILE_SQL, id.value(), status.name()) == 1;
     }
 
     @Override
@@ -153,4 +308,35 @@ public class FileRepositoryAdapter implements FileRepository {
     public void deleteFolder(FileId id) {
         jpaFolderRepository.deleteById(id.getValue());
     }
+
+    private StoredFile toStoredFile(ResultSet rs, int rowNum) throws SQLException {
+        return StoredFile.builder()
+                .id(FileId.of(rs.getObject("id", UUID.class)))
+                .familyId(FamilyId.of(rs.getObject("family_id", UUID.class)))
+                .folderId(rs.getObject("folder_id", UUID.class))
+                .uploadedBy(UserId.of(rs.getObject("uploaded_by", UUID.class)))
+                .originalName(rs.getString("original_name"))
+                .storageKey(rs.getString("storage_key"))
+                .mimeType(rs.getString("mime_type"))
+                .fileSize(rs.getLong("file_size"))
+                .fileType(FileType.valueOf(rs.getString("file_type")))
+                .thumbnailKey(rs.getString("thumbnail_key"))
+                .width(rs.getObject("width", Integer.class))
+                .height(rs.getObject("height", Integer.class))
+                .durationSeconds(rs.getObject("duration_seconds", Integer.class))
+                .playbackKey(rs.getString("playback_key"))
+                .metadata(Map.of())
+                .status(StoredFile.FileStatus.valueOf(rs.getString("status")))
+                .createdAt(rs.getTimestamp("created_at").toInstant())
+                .updatedAt(rs.getTimestamp("updated_at").toInstant())
+                .build();
+    }
+
+    private static String sortColumn(FileSort sort) {
+        return switch (sort) {
+            case CREATED -> "created_at";
+            case NAME -> "original_name";
+            case SIZE -> "file_size";
+        };
+    }
 }
@@ -1,14 +1,19 @@
 package com.familyvault.infrastructure.persistence.adapter;
 
 import com.familyvault.core.application.port.out.persistence.RefreshTokenRepository;
+import com.familyvault.core.domain.model.user.User;
 import com.familyvault.core.domain.model.user.UserId;
 import com.familyvault.infrastructure.persistence.entity.RefreshTokenEntity;
+import com.familyvault.infrastructure.persistence.entity.UserEntity;
+import com.familyvault.infrastructure.persistence.mapper.UserMapper;
 import com.familyvault.infrastructure.persistence.repository.JpaRefreshTokenRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,7 +21,55 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RefreshTokenRepositoryAdapter implements RefreshTokenRepository {
 
+    /**
+     * Revokes the old token, inserts its replacement for active users and returns the
+     * owning user in one statement. All parts see the same snapshot, so the returned
+     * account status tells the caller whether the replacement was stored. Concurrent
+     * rotations of the same token serialize on the row lock and only one wins.
+     */
+    private static final String ROTATE_SQL = """
+            WITH revoked AS (
+                UPDATE refresh_tokens
+                SET revoked_at = :now
+                WHERE token_hash = :oldTokenHash
+                  AND user_id = :userId
+                  AND revoked_at IS NULL
+                  AND expires_at > :now
+                RETURNING user_id, device_info, ip_address
+            ), issued AS (
+                INSERT INTO refresh_tokens (id, user_id, token_hash, device_info, ip_address, expires_at, created_at)
+                SELECT :newId, r.user_id, :newTokenHash, r.device_info, r.ip_address, :expiresAt, :now
+                FROM revoked r
+                JOIN users u ON u.id = r.user_id
+                WHERE u.account_status = 'ACTIVE' AND u.deleted_at IS NULL
+                RETURNING id
+            )
+            SELECT u.*
+            FROM users u
+            JOIN revoked r ON u.id = r.user_id
+            WHERE u.deleted_at IS NULL
+            """;
+
+    /**
+     * Deletes one bounded chunk. Each branch of the filter matches one of the partial
+     * indexes on expires_at and revoked_at; SKIP LOCKED keeps the purge from waiting on
+     * tokens that are being rotated.
+     */
+    private static final String DELETE_EXPIRED_SQL = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (
+                SELECT id
+                FROM refresh_tokens
+                WHERE (revoked_at IS NULL AND expires_at < :expiredBefore)
+                   OR revoked_at < :revokedBefore
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+
     private final JpaRefreshTokenRepository jpaRepository;
+    private final EntityManager entityManager;
+    private final UserMapper userMapper;
 
     @Override
     @Transactional
@@ -51,6 +104,24 @@ public class RefreshTokenRepositoryAdapter implements RefreshTokenRepository {
         jpaRepository.revokeByTokenHash(tokenHash, Instant.now());
     }
 
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Optional<User> rotate(String oldTokenHash, UserId userId, UUID newId, String newTokenHash, Instant expiresAt) {
+        List<UserEntity> users = entityManager.createNativeQuery(ROTATE_SQL, UserEntity.class)
+                .setParameter("now", Instant.now())
+                .setParameter("oldTokenHash", oldTokenHash)
+                .setParameter("userId", userId.value())
+                .setParameter("newId", newId)
+                .setParameter("newTokenHash", newTokenHash)
+                .setParameter("expiresAt", expiresAt)
+                .getResultList();
+
+        return users.stream()
+                .findFirst()
+                .map(userMapper::toDomain);
+    }
+
     @Override
     @Transactional
     public void revokeAllForUser(UserId userId) {
@@ -59,7 +130,11 @@ public class RefreshTokenRepositoryAdapter implements RefreshTokenRepository {
 
     @Override
     @Transactional
-    public void deleteExpired() {
-        jpaRepository.deleteExpired(Instant.now());
+    public int deleteExpired(Instant expiredBefore, Instant revokedBefore, int limit) {
+        return entityManager.createNativeQuery(DELETE_EXPIRED_SQL)
+                .setParameter("expiredBefore", expiredBefore)
+                .setParameter("revokedBefore", revokedBefore)
+                .setParameter("limit", limit)
+                .executeUpdate();
     }
 }
@@ -0,0 +1,231 @@
+package com.familyvault.infrastructure.persistence.adapter;
+
+import com.familyvault.core.application.port.out.persistence.StorageQuotaRepository;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.file.FileId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Storage accounting with single-statement updates of the counters on {@code families}.
+ * The row lock taken by each UPDATE serializes concurrent changes to the same family
+ * without reading the counters into the application first.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageQuotaRepositoryAdapter implements StorageQuotaRepository {
+
+    private static final String RESERVE_SQL = """
+            WITH reserved AS (
+                UPDATE families
+                SET storage_reserved_bytes = storage_reserved_bytes + ?
+                WHERE id = ?
+                  AND deleted_at IS NULL
+                  AND storage_used_bytes + storage_reserved_bytes + ? <= storage_limit_bytes
+                RETURNING id
+            )
+            INSERT INTO storage_reservations (file_id, family_id, bytes, expires_at)
+            SELECT ?, id, ?, ? FROM reserved
+            """;
+
+    /**
+     * Same limit check as {@link #RESERVE_SQL} on the combined size, then one reservation row
+     * per file from the unnested ID and size arrays.
+     */
+    private static final String RESERVE_ALL_SQL = """
+            WITH reserved AS (
+                UPDATE families
+                SET storage_reserved_bytes = storage_reserved_bytes + ?
+                WHERE id = ?
+                  AND deleted_at IS NULL
+                  AND storage_used_bytes + storage_reserved_bytes + ? <= storage_limit_bytes
+                RETURNING id
+            )
+            INSERT INTO storage_reservations (file_id, family_id, bytes, expires_at)
+            SELECT r.file_id, reserved.id, r.bytes, ?
+            FROM reserved
+            CROSS JOIN UNNEST(?::uuid[], ?::bigint[]) AS r(file_id, bytes)
+            """;
+
+    private static final String COMMIT_SQL = """
+            WITH committed AS (
+                DELETE FROM storage_reservations
+                WHERE file_id = ?
+                RETURNING family_id, bytes
+            )
+            UPDATE families f
+            SET storage_reserved_bytes = GREATEST(0, f.storage_reserved_bytes - c.bytes),
+                storage_used_bytes = f.storage_used_bytes + c.bytes
+            FROM committed c
+            WHERE f.id = c.family_id
+            """;
+
+    private static final String COMMIT_ALL_SQL = """
+            WITH committed AS (
+                DELETE FROM storage_reservations
+                WHERE file_id = ANY(?::uuid[])
+                RETURNING file_id, family_id, bytes
+            ), charged AS (
+                UPDATE families f
+                SET storage_reserved_bytes = GREATEST(0, f.storage_reserved_bytes - t.bytes),
+                    storage_used_bytes = f.storage_used_bytes + t.bytes
+                FROM (SELECT family_id, SUM(bytes) AS bytes FROM committed GROUP BY family_id) t
+                WHERE f.id = t.family_id
+                RETURNING f.id
+            )
+            SELECT file_id FROM committed
+            """;
+
+    private static final String RELEASE_SQL = """
+            WITH released AS (
+                DELETE FROM storage_reservations
+                WHERE file_id = ?
+                RETURNING family_id, bytes
+            )
+            UPDATE families f
+            SET storage_reserved_bytes = GREATEST(0, f.storage_reserved_bytes - r.bytes)
+            FROM released r
+            WHERE f.id = r.family_id
+            """;
+
+    /**
+     * Releases one chunk of expired reservations. Totals are summed per family first so
+     * each family row is updated once, and SKIP LOCKED leaves reservations that are being
+     * confirmed right now to their confirmation.
+     */
+    private static final String RELEASE_EXPIRED_SQL = """
+            WITH expired AS (
+                DELETE FROM storage_reservations
+                WHERE file_id IN (
+                    SELECT file_id
+                    FROM storage_reservations
+                    WHERE expires_at < ?
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING family_id, bytes
+            ), released AS (
+                UPDATE families f
+                SET storage_reserved_bytes = GREATEST(0, f.storage_reserved_bytes - t.bytes)
+                FROM (SELECT family_id, SUM(bytes) AS bytes FROM expired GROUP BY family_id) t
+                WHERE f.id = t.family_id
+                RETURNING f.id
+            )
+            SELECT COUNT(*) FROM expired
+            """;
+
+    private static final String ADD_USED_SQL = """
+            UPDATE families
+            SET storage_used_bytes = storage_used_bytes + ?
+            WHERE id = ?
+              AND deleted_at IS NULL
+              AND storage_used_bytes + storage_reserved_bytes + ? <= storage_limit_bytes
+            """;
+
+    private static final String REMOVE_USED_SQL = """
+            UPDATE families
+            SET storage_used_bytes = GREATEST(0, storage_used_bytes - ?)
+            WHERE id = ?
+            """;
+
+    private static final String AVAILABLE_SQL = """
+            SELECT GREATEST(0, storage_limit_bytes - storage_used_bytes - storage_reserved_bytes)
+            FROM families
+            WHERE id = ? AND deleted_at IS NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public boolean reserve(FamilyId familyId, FileId fileId, long bytes, Instant expiresAt) {
+        return jdbcTemplate.update(RESERVE_SQL,
+                bytes, familyId.value(), bytes,
+                fileId.value(), bytes, Timestamp.from(expiresAt)) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean reserveAll(FamilyId familyId, Map<FileId, Long> bytesByFile, Instant expiresAt) {
+        if (bytesByFile.isEmpty()) {
+            return true;
+        }
+        String[] fileIds = new String[bytesByFile.size()];
+        Long[] sizes = new Long[bytesByFile.size()];
+        long total = 0;
+        int i = 0;
+        for (Map.Entry<FileId, Long> entry : bytesByFile.entrySet()) {
+            fileIds[i] = entry.getKey().value().toString();
+            sizes[i] = entry.getValue();
+            total += entry.getValue();
+            i++;
+        }
+        return jdbcTemplate.update(RESERVE_ALL_SQL,
+                total, familyId.value(), total,
+                Timestamp.from(expiresAt), fileIds, sizes) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean commitReservation(FileId fileId) {
+        return jdbcTemplate.update(COMMIT_SQL, fileId.value()) > 0;
+    }
+
+    @Override
+    @Transactional
+    public Set<FileId> commitReservations(Collection<FileId> fileIds) {
+        if (fileIds.isEmpty()) {
+            return Set.of();
+        }
+        String[] ids = fileIds.stream().map(id -> id.value().toString()).toArray(String[]::new);
+        return jdbcTemplate.queryForList(COMMIT_ALL_SQL, UUID.class, (Object) ids)
+                .stream()
+                .map(FileId::of)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    @Transactional
+    public void releaseReservation(FileId fileId) {
+        jdbcTemplate.update(RELEASE_SQL, fileId.value());
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpiredReservations(Instant now, int limit) {
+        Integer released = jdbcTemplate.queryForObject(RELEASE_EXPIRED_SQL, Integer.class,
+                Timestamp.from(now), limit);
+        return released != null ? released : 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean addUsed(FamilyId familyId, long bytes) {
+        return jdbcTemplate.update(ADD_USED_SQL, bytes, familyId.value(), bytes) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void removeUsed(FamilyId familyId, long bytes) {
+        jdbcTemplate.update(REMOVE_USED_SQL, bytes, familyId.value());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OptionalLong findAvailableBytes(FamilyId familyId) {
+        List<Long> available = jdbcTemplate.queryForList(AVAILABLE_SQL, Long.class, familyId.value());
+        return available.isEmpty() ? OptionalLong.empty() : OptionalLong.of(available.get(0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.familyvault.infrastructure.persistence.adapter;
+
+import com.familyvault.core.application.port.out.persistence.UploadSessionRepository;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.UploadSession;
+import com.familyvault.core.domain.model.user.UserId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class UploadSessionRepositoryAdapter implements UploadSessionRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO upload_sessions (file_id, family_id, uploaded_by, storage_key, upload_id, part_size,
+                                         part_count, created_at, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String FIND_BY_FILE_SQL = """
+            SELECT file_id, family_id, uploaded_by, storage_key, upload_id, part_size, part_count,
+                   created_at, expires_at
+            FROM upload_sessions
+            WHERE file_id = ?
+            """;
+
+    private static final String FIND_FILE_IDS_SQL =
+            "SELECT file_id FROM upload_sessions WHERE file_id = ANY(?::uuid[])";
+
+    private static final String FIND_EXPIRED_SQL = """
+            SELECT file_id, family_id, uploaded_by, storage_key, upload_id, part_size, part_count,
+                   created_at, expires_at
+            FROM upload_sessions
+            WHERE expires_at < ?
+            ORDER BY expires_at
+            LIMIT ?
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM upload_sessions WHERE file_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void save(UploadSession session) {
+        jdbcTemplate.update(INSERT_SQL,
+                session.fileId().value(),
+                session.familyId().value(),
+                session.uploadedBy().value(),
+                session.storageKey(),
+                session.uploadId(),
+                session.partSize(),
+                session.partCount(),
+                Timestamp.from(session.createdAt()),
+                Timestamp.from(session.expiresAt()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UploadSession> findByFileId(FileId fileId) {
+        return jdbcTemplate.query(FIND_BY_FILE_SQL, this::toSession, fileId.value())
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<FileId> findFileIdsWithSession(Collection<FileId> fileIds) {
+        if (fileIds.isEmpty()) {
+            return Set.of();
+        }
+        String[] values = fileIds.stream().map(id -> id.value().toString()).toArray(String[]::new);
+        return jdbcTemplate.queryForList(FIND_FILE_IDS_SQL, UUID.class, (Object) values).stream()
+                .map(FileId::of)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UploadSession> findExpired(Instant now, int limit) {
+        return jdbcTemplate.query(FIND_EXPIRED_SQL, this::toSession, Timestamp.from(now), limit);
+    }
+
+    @Override
+    @Transactional
+    public void delete(FileId fileId) {
+        jdbcTemplate.update(DELETE_SQL, fileId.value());
+    }
+
+    private UploadSession toSession(ResultSet rs, int rowNum) throws SQLException {
+        return new UploadSession(
+                FileId.of(rs.getObject("file_id", UUID.class)),
+                FamilyId.of(rs.getObject("family_id", UUID.class)),
+                UserId.of(rs.getObject("uploaded_by", UUID.class)),
+                rs.getString("storage_key"),
+                rs.getString("upload_id"),
+                rs.getLong("part_size"),
+                rs.getInt("part_count"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getTimestamp("expires_at").toInstant()
+        );
+    }
+}
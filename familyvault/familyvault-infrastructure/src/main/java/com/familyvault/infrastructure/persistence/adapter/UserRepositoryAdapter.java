@@ -12,7 +12,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
@@ -37,6 +40,22 @@ public class UserRepositoryAdapter implements UserRepository {
                 .map(mapper::toDomain);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findAllByIds(Collection<UserId> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> uuids = ids.stream()
+                .map(UserId::value)
+                .distinct()
+                .toList();
+        return jpaRepository.findByIdInAndDeletedAtIsNull(uuids)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<User> findByEmail(Email email) {
@@ -50,6 +69,24 @@ public class UserRepositoryAdapter implements UserRepository {
         return jpaRepository.existsByEmailAndDeletedAtIsNull(email.value());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findMembershipEpoch(UserId id) {
+        return jpaRepository.findMembershipEpoch(id.value());
+    }
+
+    @Override
+    @Transactional
+    public void incrementMembershipEpoch(UserId id) {
+        jpaRepository.incrementMembershipEpoch(id.value());
+    }
+
+    @Override
+    @Transactional
+    public void lockAccount(UserId id, int failedLoginAttempts, Instant lockedUntil) {
+        jpaRepository.lockAccount(id.value(), failedLoginAttempts, lockedUntil, Instant.now());
+    }
+
     @Override
     @Transactional
     public void delete(UserId id) {
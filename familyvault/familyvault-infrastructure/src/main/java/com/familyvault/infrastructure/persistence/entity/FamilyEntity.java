@@ -38,7 +38,8 @@ public class FamilyEntity {
     @Column(name = "storage_limit_bytes", nullable = false)
     private Long storageLimitBytes;
 
-    @Column(name = "storage_used_bytes", nullable = false)
+    // Only changed through StorageQuotaRepositoryAdapter, never by saving a stale entity
+    @Column(name = "storage_used_bytes", nullable = false, updatable = false)
     private Long storageUsedBytes;
 
     @Column(name = "created_by", nullable = false, length = 36)
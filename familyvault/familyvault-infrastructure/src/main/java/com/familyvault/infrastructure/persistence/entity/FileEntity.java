@@ -61,6 +61,9 @@ public class FileEntity {
     @Column(name = "duration_seconds")
     private Integer durationSeconds;
 
+    @Column(name = "playback_key")
+    private String playbackKey;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
     private Map<String, Object> metadata;
@@ -52,6 +52,10 @@ public class UserEntity {
     @Column(name = "last_login_at")
     private Instant lastLoginAt;
 
+    // Only changed through JpaUserRepository.incrementMembershipEpoch, never by saving a stale entity
+    @Column(name = "membership_epoch", nullable = false, updatable = false)
+    private long membershipEpoch;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
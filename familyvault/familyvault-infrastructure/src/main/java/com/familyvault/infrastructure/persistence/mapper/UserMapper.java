@@ -26,6 +26,7 @@ public class UserMapper {
                 .failedLoginAttempts(entity.getFailedLoginAttempts())
                 .lockedUntil(entity.getLockedUntil())
                 .lastLoginAt(entity.getLastLoginAt())
+                .membershipEpoch(entity.getMembershipEpoch())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .build();
@@ -48,6 +49,7 @@ public class UserMapper {
                 .failedLoginAttempts(domain.getFailedLoginAttempts())
                 .lockedUntil(domain.getLockedUntil())
                 .lastLoginAt(domain.getLastLoginAt())
+                .membershipEpoch(domain.getMembershipEpoch())
                 .createdAt(domain.getCreatedAt())
                 .updatedAt(domain.getUpdatedAt())
                 .build();
@@ -2,8 +2,6 @@ package com.familyvault.infrastructure.persistence.repository;
 
 import com.familyvault.core.domain.model.file.FileType;
 import com.familyvault.infrastructure.persistence.entity.FileEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,12 +19,6 @@ public interface JpaFileRepository extends JpaRepository<FileEntity, String> {
 
     List<FileEntity> findByFamilyIdAndFileType(String familyId, FileType fileType);
 
-    Page<FileEntity> findByFamilyId(String familyId, Pageable pageable);
-
-    Page<FileEntity> findByFamilyIdAndFileType(String familyId, FileType fileType, Pageable pageable);
-
-    Page<FileEntity> findByFolderId(String folderId, Pageable pageable);
-
     long countByFamilyId(String familyId);
 
     @Query("SELECT COALESCE(SUM(f.fileSize), 0) FROM FileEntity f WHERE f.familyId = :familyId")
@@ -21,8 +21,4 @@ public interface JpaRefreshTokenRepository extends JpaRepository<RefreshTokenEnt
     @Modifying
     @Query("UPDATE RefreshTokenEntity r SET r.revokedAt = :now WHERE r.userId = :userId AND r.revokedAt IS NULL")
     void revokeAllByUserId(@Param("userId") UUID userId, @Param("now") Instant now);
-
-    @Modifying
-    @Query("DELETE FROM RefreshTokenEntity r WHERE r.expiresAt < :now")
-    void deleteExpired(@Param("now") Instant now);
 }
@@ -2,7 +2,13 @@ package com.familyvault.infrastructure.persistence.repository;
 
 import com.familyvault.infrastructure.persistence.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,5 +16,19 @@ public interface JpaUserRepository extends JpaRepository<UserEntity, UUID> {
 
     Optional<UserEntity> findByEmailAndDeletedAtIsNull(String email);
 
+    List<UserEntity> findByIdInAndDeletedAtIsNull(Collection<UUID> ids);
+
     boolean existsByEmailAndDeletedAtIsNull(String email);
+
+    @Query("SELECT u.membershipEpoch FROM UserEntity u WHERE u.id = :id")
+    Optional<Long> findMembershipEpoch(@Param("id") UUID id);
+
+    @Modifying
+    @Query(value = "UPDATE users SET membership_epoch = membership_epoch + 1 WHERE id = :id", nativeQuery = true)
+    void incrementMembershipEpoch(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.failedLoginAttempts = :attempts, u.lockedUntil = :lockedUntil, u.updatedAt = :now WHERE u.id = :id")
+    void lockAccount(@Param("id") UUID id, @Param("attempts") int attempts,
+                     @Param("lockedUntil") Instant lockedUntil, @Param("now") Instant now);
 }
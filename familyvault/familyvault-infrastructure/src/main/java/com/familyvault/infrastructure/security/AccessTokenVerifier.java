@@ -0,0 +1,524 @@
+package com.familyvault.infrastructure.security;
+
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocation-light verifier for the access tokens this service issues.
+ * <p>
+ * Only handles compact tokens whose header segment is byte-identical to one we produce,
+ * so the signing key is found with a single hash lookup on that segment, made in place on
+ * the token without copying it. Headers are
+ * learned by minting a probe token for each key we hold privately, or after the full
+ * jjwt parser has verified a token signed with a known {@code kid}. Anything else is
+ * reported as unsupported so the caller can fall back to the full parser.
+ */
+final class AccessTokenVerifier {
+
+    private static final Base64.Decoder BASE64_URL = Base64.getUrlDecoder();
+    private static final int MAX_LEARNED_HEADERS = 64;
+
+    private final HeaderTable checksByHeader;
+    private final Map<String, SignatureCheck> checksByKeyId;
+    private final ThreadLocal<byte[]> signingInputBuffers = ThreadLocal.withInitial(() -> new byte[512]);
+
+    /**
+     * @param secretKey HMAC key for tokens without {@code kid}, or null
+     * @param keySet    asymmetric keys by {@code kid}
+     */
+    AccessTokenVerifier(SecretKey secretKey, SigningKeySet keySet) {
+        this.checksByHeader = new HeaderTable(1 + keySet.all().size() + MAX_LEARNED_HEADERS);
+        if (secretKey != null) {
+            checksByHeader.putIfAbsent(headerSegment(Jwts.builder().subject("probe").signWith(secretKey).compact()),
+                    new HmacCheck(secretKey));
+        }
+
+        Map<String, SignatureCheck> byKeyId = new HashMap<>();
+        keySet.all().forEach((keyId, key) -> {
+            SignatureCheck check = new PublicKeyCheck(key.jcaAlgorithm(), key.publicKey());
+            byKeyId.put(keyId, check);
+            if (key.privateKey() != null) {
+                String probe = Jwts.builder().header().keyId(keyId).and()
+                        .subject("probe")
+                        .signWith(key.privateKey(), key.jwsAlgorithm())
+                        .compact();
+                checksByHeader.putIfAbsent(headerSegment(probe), check);
+            }
+        });
+        this.checksByKeyId = Map.copyOf(byKeyId);
+    }
+
+    /**
+     * Whether the token carries a header we know and can take the fast path.
+     */
+    boolean supports(String token) {
+        return checkFor(token) != null;
+    }
+
+    /**
+     * Remember the header of a token the full parser verified with a configured key,
+     * so later tokens signed with verification-only keys take the fast path too.
+     */
+    void learn(String token, String keyId) {
+        SignatureCheck check = checksByKeyId.get(keyId);
+        int dot = token.indexOf('.');
+        if (check != null && dot > 0) {
+            checksByHeader.putIfAbsent(token.substring(0, dot), check);
+        }
+    }
+
+    /**
+     * Verify signature and expiry of a supported token.
+     *
+     * @return the extracted claims, or null if the token is malformed, forged or expired
+     */
+    VerifiedClaims verify(String token, long nowMillis) {
+        SignatureCheck check = checkFor(token);
+        if (check == null) {
+            return null;
+        }
+
+        int payloadStart = token.indexOf('.') + 1;
+        int signatureDot = token.indexOf('.', payloadStart);
+        if (signatureDot < 0 || token.indexOf('.', signatureDot + 1) >= 0) {
+            return null;
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = BASE64_URL.decode(token.substring(payloadStart, signatureDot));
+            signature = BASE64_URL.decode(token.substring(signatureDot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (!check.verify(signingInput(token, signatureDot), signatureDot, signature)) {
+            return null;
+        }
+
+        VerifiedClaims claims = ClaimsScanner.scan(payload);
+        if (claims == null || claims.subject() == null || claims.expiresAtEpochSeconds() == null) {
+            return null;
+        }
+        if (nowMillis > claims.expiresAtEpochSeconds() * 1000) {
+            return null;
+        }
+        if (claims.notBeforeEpochSeconds() != null && nowMillis < claims.notBeforeEpochSeconds() * 1000) {
+            return null;
+        }
+        return claims;
+    }
+
+    private SignatureCheck checkFor(String token) {
+        int dot = token.indexOf('.');
+        return dot > 0 ? checksByHeader.get(token, dot) : null;
+    }
+
+    private byte[] signingInput(String token, int length) {
+        byte[] buffer = signingInputBuffers.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            signingInputBuffers.set(buffer);
+        }
+        for (int i = 0; i < length; i++) {
+            // Compact JWS segments are base64url plus '.', so every char is a single ASCII byte
+            buffer[i] = (byte) token.charAt(i);
+        }
+        return buffer;
+    }
+
+    private static String headerSegment(String token) {
+        return token.substring(0, token.indexOf('.'));
+    }
+
+    /**
+     * Open-addressing table from header segment to signature check, looked up by a prefix of
+     * the token. Writers copy the table, so readers never lock; it only grows at startup and
+     * when a header is learned, up to a fixed number of entries.
+     */
+    private static final class HeaderTable {
+
+        private final int maxEntries;
+        private volatile Entry[] entries;
+        private int size;
+
+        HeaderTable(int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.entries = new Entry[Integer.highestOneBit(maxEntries * 2 - 1) * 2];
+        }
+
+        /**
+         * @return the check for the header {@code token[0, length)}, or null
+         */
+        SignatureCheck get(String token, int length) {
+            int hash = hash(token, length);
+            Entry[] table = entries;
+            int mask = table.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                Entry entry = table[i];
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.hash == hash && entry.header.length() == length
+                        && token.regionMatches(0, entry.header, 0, length)) {
+                    return entry.check;
+                }
+            }
+        }
+
+        synchronized void putIfAbsent(String header, SignatureCheck check) {
+            if (size >= maxEntries || get(header, header.length()) != null) {
+                return;
+            }
+            Entry[] table = entries.clone();
+            int mask = table.length - 1;
+            int hash = hash(header, header.length());
+            int i = hash & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = new Entry(header, hash, check);
+            size++;
+            entries = table;
+        }
+
+        private static int hash(String s, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + s.charAt(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private record Entry(String header, int hash, SignatureCheck check) {
+        }
+    }
+
+    /**
+     * Signature verification for one key, reusing per-thread JCA instances.
+     */
+    private interface SignatureCheck {
+
+        boolean verify(byte[] input, int length, byte[] signature);
+    }
+
+    private static final class HmacCheck implements SignatureCheck {
+
+        private final SecretKey key;
+        private final ThreadLocal<Mac> macs;
+
+        HmacCheck(SecretKey key) {
+            this.key = key;
+            this.macs = ThreadLocal.withInitial(this::newMac);
+            newMac(); // fail fast if the JCA provider lacks the algorithm
+        }
+
+        @Override
+        public boolean verify(byte[] input, int length, byte[] signature) {
+            Mac mac = macs.get();
+            mac.update(input, 0, length);
+            return MessageDigest.isEqual(mac.doFinal(), signature);
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(key.getAlgorithm());
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC algorithm not available: " + key.getAlgorithm(), e);
+            }
+        }
+    }
+
+    private static final class PublicKeyCheck implements SignatureCheck {
+
+        private final String algorithm;
+        private final PublicKey key;
+        private final ThreadLocal<Signature> signatures;
+
+        PublicKeyCheck(String algorithm, PublicKey key) {
+            this.algorithm = algorithm;
+            this.key = key;
+            this.signatures = ThreadLocal.withInitial(this::newSignature);
+            newSignature(); // fail fast if the JCA provider lacks the algorithm
+        }
+
+        @Override
+        public boolean verify(byte[] input, int length, byte[] signature) {
+            // A completed verify() leaves the instance initialized for the same key
+            Signature verifier = signatures.get();
+            try {
+                verifier.update(input, 0, length);
+                return verifier.verify(signature);
+            } catch (SignatureException e) {
+                signatures.remove();
+                return false;
+            }
+        }
+
+        private Signature newSignature() {
+            try {
+                Signature signature = Signature.getInstance(algorithm);
+                signature.initVerify(key);
+                return signature;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Signature algorithm not available: " + algorithm, e);
+            }
+        }
+    }
+
+    /**
+     * The handful of claims the authentication filter needs.
+     */
+    record VerifiedClaims(
+            String subject,
+            boolean accessType,
+            Long expiresAtEpochSeconds,
+            Long notBeforeEpochSeconds,
+            List<String> families,
+            Long membershipEpoch
+    ) {
+    }
+
+    /**
+     * Single-pass scanner over the UTF-8 JSON payload. Reads the claims we care about
+     * and skips everything else without building a map.
+     */
+    static final class ClaimsScanner {
+
+        private static final byte[] SUB = "sub".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] TYPE = "type".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] EXP = "exp".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] NBF = "nbf".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] FAM = MembershipClaimsCodec.FAMILIES_CLAIM.getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] MEV = MembershipClaimsCodec.EPOCH_CLAIM.getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] ACCESS = "access".getBytes(StandardCharsets.US_ASCII);
+
+        private final byte[] json;
+        private int pos;
+
+        private ClaimsScanner(byte[] json) {
+            this.json = json;
+        }
+
+        static VerifiedClaims scan(byte[] json) {
+            try {
+                return new ClaimsScanner(json).readClaims();
+            } catch (IllegalStateException | ArrayIndexOutOfBoundsException | ArithmeticException e) {
+                return null;
+            }
+        }
+
+        private VerifiedClaims readClaims() {
+            String subject = null;
+            boolean accessType = false;
+            Long exp = null;
+            Long nbf = null;
+            List<String> families = null;
+            Long membershipEpoch = null;
+
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return null;
+            }
+
+            while (true) {
+                skipWhitespace();
+                int nameStart = pos + 1;
+                int nameEnd = skipString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+
+                if (nameEquals(nameStart, nameEnd, SUB)) {
+                    subject = readString();
+                } else if (nameEquals(nameStart, nameEnd, TYPE)) {
+                    int valueStart = pos + 1;
+                    int valueEnd = skipString();
+                    accessType = nameEquals(valueStart, valueEnd, ACCESS);
+                } else if (nameEquals(nameStart, nameEnd, EXP)) {
+                    exp = readLong();
+                } else if (nameEquals(nameStart, nameEnd, NBF)) {
+                    nbf = readLong();
+                } else if (nameEquals(nameStart, nameEnd, FAM)) {
+                    families = readStringArray();
+                } else if (nameEquals(nameStart, nameEnd, MEV)) {
+                    membershipEpoch = readLong();
+                } else {
+                    skipValue();
+                }
+
+                skipWhitespace();
+                byte next = json[pos++];
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw new IllegalStateException("Expected ',' or '}'");
+                }
+            }
+
+            skipWhitespace();
+            if (pos != json.length) {
+                throw new IllegalStateException("Trailing data");
+            }
+            return new VerifiedClaims(subject, accessType, exp, nbf, families, membershipEpoch);
+        }
+
+        private boolean nameEquals(int start, int end, byte[] expected) {
+            if (end - start != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (json[start + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Skips a string and returns the index of its closing quote.
+         */
+        private int skipString() {
+            expect('"');
+            while (true) {
+                byte b = json[pos++];
+                if (b == '"') {
+                    return pos - 1;
+                }
+                if (b == '\\') {
+                    pos++;
+                }
+            }
+        }
+
+        private String readString() {
+            int start = pos + 1;
+            int end = skipString();
+            for (int i = start; i < end; i++) {
+                if (json[i] == '\\') {
+                    // Our own subjects are UUIDs; escaped strings are not worth a fast path
+                    throw new IllegalStateException("Escaped string");
+                }
+            }
+            return new String(json, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        private List<String> readStringArray() {
+            expect('[');
+            List<String> values = new ArrayList<>();
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return values;
+            }
+            while (true) {
+                skipWhitespace();
+                values.add(readString());
+                skipWhitespace();
+                byte next = json[pos++];
+                if (next == ']') {
+                    return values;
+                }
+                if (next != ',') {
+                    throw new IllegalStateException("Expected ',' or ']'");
+                }
+            }
+        }
+
+        private long readLong() {
+            boolean negative = peek() == '-';
+            if (negative) {
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+                value = Math.addExact(Math.multiplyExact(value, 10), json[pos++] - '0');
+            }
+            if (pos == start || (pos < json.length && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E'))) {
+                throw new IllegalStateException("Expected integer");
+            }
+            return negative ? -value : value;
+        }
+
+        private void skipValue() {
+            byte b = peek();
+            switch (b) {
+                case '"' -> skipString();
+                case '{' -> skipContainer('{', '}');
+                case '[' -> skipContainer('[', ']');
+                default -> {
+                    // number, true, false or null
+                    int start = pos;
+                    while (pos < json.length) {
+                        byte c = json[pos];
+                        if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                            break;
+                        }
+                        pos++;
+                    }
+                    if (pos == start) {
+                        throw new IllegalStateException("Expected value");
+                    }
+                }
+            }
+        }
+
+        private void skipContainer(char open, char close) {
+            int depth = 0;
+            while (true) {
+                byte b = peek();
+                if (b == '"') {
+                    skipString();
+                    continue;
+                }
+                pos++;
+                if (b == open) {
+                    depth++;
+                } else if (b == close && --depth == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void expect(char c) {
+            if (json[pos++] != c) {
+                throw new IllegalStateException("Expected '" + c + "'");
+            }
+        }
+
+        private byte peek() {
+            return json[pos];
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length && isWhitespace(json[pos])) {
+                pos++;
+            }
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+        }
+    }
+}
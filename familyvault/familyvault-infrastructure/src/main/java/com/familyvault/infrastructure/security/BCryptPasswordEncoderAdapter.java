@@ -1,26 +1,210 @@
 package com.familyvault.infrastructure.security;
 
+import com.familyvault.core.application.exception.ServiceOverloadedException;
 import com.familyvault.core.application.port.out.security.PasswordEncoderPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt encoder that runs hashing on a dedicated, bounded pool instead of the request thread.
+ * <p>
+ * When the pool and its queue are full, callers get a {@link ServiceOverloadedException}
+ * right away rather than piling up servlet threads behind CPU-bound work. A caller that has
+ * waited {@code max-wait} for its hash to start is rejected the same way and its hash is
+ * dropped from the queue; a hash that has started always runs to completion, since BCrypt
+ * can't be interrupted, and the caller waits for it. Work is thus bounded by the pool and
+ * queue sizes. Unless a fixed strength is configured, the cost factor is calibrated at
+ * startup so that one hash takes roughly the target latency on this node, but never below
+ * {@code min-strength}. Existing hashes keep verifying regardless of the chosen strength
+ * because BCrypt stores the cost in the hash itself.
+ */
+@Slf4j
 @Component
 public class BCryptPasswordEncoderAdapter implements PasswordEncoderPort {
 
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
     private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    public BCryptPasswordEncoderAdapter(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.strength:0}") int strength,
+            @Value("${security.password.target-latency:250ms}") Duration targetLatency,
+            @Value("${security.password.min-strength:12}") int minStrength,
+            @Value("${security.password.max-strength:14}") int maxStrength,
+            @Value("${security.password.pool-size:0}") int poolSize,
+            @Value("${security.password.queue-capacity:32}") int queueCapacity,
+            @Value("${security.password.max-wait:2s}") Duration maxWait,
+            @Value("${security.password.retry-after:1s}") Duration retryAfter
+    ) {
+        int effectiveStrength = strength > 0 ? strength : calibrate(targetLatency, minStrength, maxStrength);
+        this.encoder = new BCryptPasswordEncoder(effectiveStrength);
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
 
-    public BCryptPasswordEncoderAdapter() {
-        // Strength 12 is a good balance between security and performance
-        this.encoder = new BCryptPasswordEncoder(12);
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("auth.password.rejections")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        log.info("BCrypt strength {} on {} threads, queue capacity {}", effectiveStrength, threads, queueCapacity);
     }
 
     @Override
     public String encode(String rawPassword) {
-        return encoder.encode(rawPassword);
+        return submit(encodeTimer, () -> encoder.encode(rawPassword));
     }
 
     @Override
     public boolean matches(String rawPassword, String encodedPassword) {
-        return encoder.matches(rawPassword, encodedPassword);
+        return submit(matchesTimer, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Timer timer, Callable<T> task) {
+        HashTask<T> hash = new HashTask<>(() -> timer.recordCallable(task));
+        Future<T> future;
+        try {
+            future = executor.submit(hash);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceOverloadedException("Too many authentication requests, please retry", retryAfter);
+        }
+
+        try {
+            try {
+                return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (hash.abandon()) {
+                    // Free its queue slot now rather than when a worker gets to it
+                    executor.remove((Runnable) future);
+                    rejections.increment();
+                    throw new ServiceOverloadedException("Too many authentication requests, please retry", retryAfter);
+                }
+                // Already hashing; finishing costs at most one hash and wastes nothing
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            if (hash.abandon()) {
+                executor.remove((Runnable) future);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Pick the highest strength whose estimated hash time stays within the target.
+     * Each strength step doubles the work, so one measurement at the minimum is enough.
+     */
+    private static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_PASSWORD); // warm up
+
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        int strength = minStrength;
+        long estimatedNanos = bestNanos;
+        while (strength < maxStrength && estimatedNanos * 2 <= targetLatency.toNanos()) {
+            strength++;
+            estimatedNanos *= 2;
+        }
+
+        log.info("Calibrated BCrypt strength {} (~{} ms per hash, target {} ms)",
+                strength, TimeUnit.NANOSECONDS.toMillis(estimatedNanos), targetLatency.toMillis());
+        return strength;
+    }
+
+    /**
+     * A queued hash that its caller can still call off. Once a worker has started it, it
+     * can no longer be abandoned.
+     */
+    private static final class HashTask<T> implements Callable<T> {
+
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Callable<T> work;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        HashTask(Callable<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!state.compareAndSet(QUEUED, STARTED)) {
+                return null; // the caller has given up
+            }
+            return work.call();
+        }
+
+        /**
+         * @return true if the hash will not run, false if it is already running or done
+         */
+        boolean abandon() {
+            return state.compareAndSet(QUEUED, ABANDONED);
+        }
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
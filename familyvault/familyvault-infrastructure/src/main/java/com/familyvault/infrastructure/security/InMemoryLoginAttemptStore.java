@@ -0,0 +1,144 @@
+package com.familyvault.infrastructure.security;
+
+import com.familyvault.core.application.port.out.security.LoginAttemptStore;
+import com.familyvault.core.domain.model.user.Email;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps failed login counters in memory and writes them to {@code users} in periodic batches.
+ * <p>
+ * Each email has its own counter; updates go through {@link ConcurrentHashMap#compute}, so they
+ * only contend with other attempts on the same account. Lockouts are not handled here: the
+ * caller calls {@link #reset(Email)} and then persists the lockout or the successful login.
+ * A reset waits for a flush in progress, so increments buffered before the reset are never
+ * added on top of what the caller writes after it.
+ */
+@Slf4j
+@Component
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private static final String FLUSH_SQL = """
+            UPDATE users
+            SET failed_login_attempts = failed_login_attempts + ?, updated_at = NOW()
+            WHERE email = ? AND deleted_at IS NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long idleTimeoutMillis;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    // Resets share the lock; a flush holds it exclusively from collecting increments to writing them
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    public InMemoryLoginAttemptStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${security.login-attempts.idle-timeout:15m}") Duration idleTimeout
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    @Override
+    public int recordFailure(Email email, int persistedAttempts) {
+        long now = System.currentTimeMillis();
+        int[] attempts = new int[1];
+        counters.compute(email.value(), (key, existing) -> {
+            Counter c = existing != null ? existing : new Counter(persistedAttempts);
+            attempts[0] = ++c.attempts;
+            c.lastFailureAt = now;
+            return c;
+        });
+        return attempts[0];
+    }
+
+    @Override
+    public void reset(Email email) {
+        flushLock.readLock().lock();
+        try {
+            counters.remove(email.value());
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write pending increments in one JDBC batch and drop counters that have gone quiet.
+     */
+    @Scheduled(fixedDelayString = "${security.login-attempts.flush-interval:5s}")
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void flushPending() {
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>();
+
+        for (String email : counters.keySet()) {
+            counters.computeIfPresent(email, (key, c) -> {
+                int pending = c.attempts - c.flushed;
+                if (pending > 0) {
+                    batch.add(new Object[]{pending, key});
+                    c.flushed = c.attempts;
+                    return c;
+                }
+                return now - c.lastFailureAt > idleTimeoutMillis ? null : c;
+            });
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            log.debug("Flushed failed login attempts for {} accounts", batch.size());
+        } catch (RuntimeException e) {
+            // Hand the increments back so the next run retries them
+            for (Object[] row : batch) {
+                counters.computeIfPresent((String) row[1], (key, c) -> {
+                    c.flushed -= (Integer) row[0];
+                    return c;
+                });
+            }
+            log.warn("Failed to flush failed login attempts: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Mutated only inside map compute functions, which serialize access per key.
+     */
+    private static final class Counter {
+
+        private int attempts;
+        private int flushed;
+        private long lastFailureAt;
+
+        private Counter(int persistedAttempts) {
+            this.attempts = persistedAttempts;
+            this.flushed = persistedAttempts;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.familyvault.infrastructure.security;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Loads the JWT signing keys once at startup.
+ */
+@Configuration
+@EnableConfigurationProperties(JwtSigningProperties.class)
+public class JwtSigningConfig {
+
+    @Bean
+    public SigningKeySet signingKeySet(JwtSigningProperties properties) {
+        return SigningKeySet.from(properties);
+    }
+}
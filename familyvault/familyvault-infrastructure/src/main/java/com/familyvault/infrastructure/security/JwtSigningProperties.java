@@ -0,0 +1,36 @@
+package com.familyvault.infrastructure.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Asymmetric JWT signing keys, keyed by {@code kid}.
+ * <p>
+ * Tokens are signed with {@code activeKeyId}; every listed key is accepted for verification,
+ * so retired keys stay in the list until the last token signed with them has expired.
+ * Nodes that only verify tokens can omit private keys. Without an active key, tokens are
+ * signed with the HMAC secret from {@code jwt.secret}.
+ */
+@ConfigurationProperties(prefix = "jwt.signing")
+public record JwtSigningProperties(
+        String activeKeyId,
+        Map<String, Key> keys
+) {
+
+    public JwtSigningProperties {
+        keys = keys != null ? Map.copyOf(keys) : Map.of();
+    }
+
+    /**
+     * @param algorithm  {@code ES256} or {@code EdDSA}
+     * @param publicKey  base64 X.509 (SubjectPublicKeyInfo) DER
+     * @param privateKey base64 PKCS#8 DER, only needed on nodes that issue tokens
+     */
+    public record Key(
+            String algorithm,
+            String publicKey,
+            String privateKey
+    ) {
+    }
+}
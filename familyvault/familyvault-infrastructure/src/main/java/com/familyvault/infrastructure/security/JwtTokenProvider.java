@@ -2,6 +2,7 @@ package com.familyvault.infrastructure.security;
 
 import com.familyvault.core.application.port.out.persistence.RefreshTokenRepository;
 import com.familyvault.core.application.port.out.security.TokenPort;
+import com.familyvault.core.domain.model.user.User;
 import com.familyvault.core.domain.model.user.UserId;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
@@ -11,12 +12,14 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,101 +27,208 @@ import java.util.UUID;
 @Component
 public class JwtTokenProvider implements TokenPort {
 
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
     private final SecretKey secretKey;
+    private final SigningKeySet signingKeySet;
+    private final JwtParser parser;
+    private final AccessTokenVerifier accessTokenVerifier;
     private final Duration accessTokenExpiration;
     private final Duration refreshTokenExpiration;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenIndex refreshTokenIndex;
+    private final boolean membershipClaimsEnabled;
+    private final int maxMembershipClaims;
 
     public JwtTokenProvider(
-            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.secret:}") String secret,
             @Value("${jwt.access-token-expiration:15m}") Duration accessTokenExpiration,
             @Value("${jwt.refresh-token-expiration:7d}") Duration refreshTokenExpiration,
-            RefreshTokenRepository refreshTokenRepository
+            @Value("${jwt.membership-claims.enabled:true}") boolean membershipClaimsEnabled,
+            @Value("${jwt.membership-claims.max-families:20}") int maxMembershipClaims,
+            RefreshTokenRepository refreshTokenRepository,
+            RefreshTokenIndex refreshTokenIndex,
+            SigningKeySet signingKeySet
     ) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        // The HMAC secret stays accepted for verification so tokens issued before switching keys keep working
+        this.secretKey = secret.isBlank() ? null : Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        if (secretKey == null && signingKeySet.active().isEmpty()) {
+            throw new IllegalStateException("Either jwt.secret or jwt.signing.active-key-id must be configured");
+        }
+        this.signingKeySet = signingKeySet;
+        this.parser = Jwts.parser().keyLocator(new SigningKeyLocator()).build();
+        this.accessTokenVerifier = new AccessTokenVerifier(secretKey, signingKeySet);
         this.accessTokenExpiration = accessTokenExpiration;
         this.refreshTokenExpiration = refreshTokenExpiration;
         this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenIndex = refreshTokenIndex;
+        this.membershipClaimsEnabled = membershipClaimsEnabled;
+        this.maxMembershipClaims = maxMembershipClaims;
     }
 
     @Override
     public String generateAccessToken(UserId userId, String email) {
+        return generateAccessToken(userId, email, null);
+    }
+
+    @Override
+    public String generateAccessToken(UserId userId, String email, MembershipClaims memberships) {
         Instant now = Instant.now();
         Instant expiry = now.plus(accessTokenExpiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(userId.toString())
                 .claim("email", email)
-                .claim("type", "access")
+                .claim("type", "access");
+
+        // Users in many families fall back to repository checks instead of carrying a huge token
+        if (membershipClaimsEnabled && memberships != null && memberships.roles().size() <= maxMembershipClaims) {
+            builder.claim(MembershipClaimsCodec.FAMILIES_CLAIM, MembershipClaimsCodec.encode(memberships))
+                    .claim(MembershipClaimsCodec.EPOCH_CLAIM, memberships.epoch());
+        }
+
+        return sign(builder
                 .issuedAt(Date.from(now))
-                .expiration(Date.from(expiry))
-                .signWith(secretKey)
-                .compact();
+                .expiration(Date.from(expiry)));
     }
 
     @Override
     public String generateRefreshToken(UserId userId) {
+        NewRefreshToken refreshToken = newRefreshToken(userId);
+
+        // Store token hash in database
+        refreshTokenRepository.save(refreshToken.id(), userId, refreshToken.hash(), null, null, refreshToken.expiresAt());
+
+        return refreshToken.token();
+    }
+
+    @Override
+    public Optional<RefreshTokenRotation> rotateRefreshToken(String token) {
+        Optional<RefreshTokenClaims> claims = parseRefreshToken(token);
+        if (claims.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UserId userId = claims.get().userId();
+        String oldHash = hashToken(token);
+        if (refreshTokenIndex.isKnownInvalid(oldHash)) {
+            log.debug("Refresh token already revoked");
+            return Optional.empty();
+        }
+
+        NewRefreshToken refreshToken = newRefreshToken(userId);
+        Optional<User> user = refreshTokenRepository.rotate(
+                oldHash, userId, refreshToken.id(), refreshToken.hash(), refreshToken.expiresAt());
+        refreshTokenIndex.recordRevoked(oldHash, claims.get().expiresAt());
+
+        if (user.isEmpty()) {
+            log.debug("Refresh token not found or revoked");
+            return Optional.empty();
+        }
+
+        return Optional.of(new RefreshTokenRotation(user.get(), refreshToken.token()));
+    }
+
+    private NewRefreshToken newRefreshToken(UserId userId) {
         UUID tokenId = UUID.randomUUID();
         Instant now = Instant.now();
         Instant expiry = now.plus(refreshTokenExpiration);
 
-        String token = Jwts.builder()
+        String token = sign(Jwts.builder()
                 .id(tokenId.toString())
                 .subject(userId.toString())
                 .claim("type", "refresh")
                 .issuedAt(Date.from(now))
-                .expiration(Date.from(expiry))
-                .signWith(secretKey)
-                .compact();
-
-        // Store token hash in database
-        String tokenHash = hashToken(token);
-        refreshTokenRepository.save(tokenId, userId, tokenHash, null, null, expiry);
+                .expiration(Date.from(expiry)));
 
-        return token;
+        return new NewRefreshToken(tokenId, token, hashToken(token), expiry);
     }
 
     @Override
     public Optional<UserId> validateAccessToken(String token) {
+        return parseAccessToken(token).map(AccessTokenClaims::userId);
+    }
+
+    @Override
+    public Optional<AccessTokenClaims> parseAccessToken(String token) {
+        if (accessTokenVerifier.supports(token)) {
+            return verifyAccessTokenFast(token);
+        }
+
         try {
-            Claims claims = parseToken(token);
+            Jws<Claims> jws = parser.parseSignedClaims(token);
+            Claims claims = jws.getPayload();
+            if (jws.getHeader().getKeyId() != null) {
+                accessTokenVerifier.learn(token, jws.getHeader().getKeyId());
+            }
 
             String type = claims.get("type", String.class);
             if (!"access".equals(type)) {
                 log.debug("Invalid token type: {}", type);
                 return Optional.empty();
             }
+            if (claims.getExpiration() == null) {
+                log.debug("Access token without expiration");
+                return Optional.empty();
+            }
 
-            return Optional.of(UserId.of(claims.getSubject()));
-        } catch (JwtException e) {
+            return Optional.of(new AccessTokenClaims(
+                    UserId.of(claims.getSubject()),
+                    claims.getExpiration().toInstant(),
+                    MembershipClaimsCodec.decode(
+                            claims.get(MembershipClaimsCodec.FAMILIES_CLAIM, List.class),
+                            claims.get(MembershipClaimsCodec.EPOCH_CLAIM, Long.class))
+            ));
+        } catch (JwtException | IllegalArgumentException e) {
             log.debug("Invalid access token: {}", e.getMessage());
             return Optional.empty();
         }
     }
 
-    @Override
-    public Optional<UserId> validateRefreshToken(String token) {
+    private Optional<AccessTokenClaims> verifyAccessTokenFast(String token) {
+        AccessTokenVerifier.VerifiedClaims claims = accessTokenVerifier.verify(token, System.currentTimeMillis());
+        if (claims == null) {
+            log.debug("Invalid access token");
+            return Optional.empty();
+        }
+        if (!claims.accessType()) {
+            log.debug("Invalid token type for access token");
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new AccessTokenClaims(
+                    UserId.of(claims.subject()),
+                    Instant.ofEpochSecond(claims.expiresAtEpochSeconds()),
+                    MembershipClaimsCodec.decode(claims.families(), claims.membershipEpoch())
+            ));
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid access token subject: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<RefreshTokenClaims> parseRefreshToken(String token) {
         try {
             Claims claims = parseToken(token);
 
             String type = claims.get("type", String.class);
-            if (!"refresh".equals(type)) {
+            if (!"refresh".equals(type) || claims.getExpiration() == null) {
                 log.debug("Invalid token type: {}", type);
                 return Optional.empty();
             }
 
-            // Check if token is in database and not revoked
-            String tokenHash = hashToken(token);
-            Optional<RefreshTokenRepository.RefreshTokenData> tokenData =
-                    refreshTokenRepository.findByTokenHash(tokenHash);
-
-            if (tokenData.isEmpty() || !tokenData.get().isValid()) {
-                log.debug("Refresh token not found or revoked");
-                return Optional.empty();
-            }
-
-            return Optional.of(UserId.of(claims.getSubject()));
-        } catch (JwtException e) {
+            return Optional.of(new RefreshTokenClaims(
+                    UserId.of(claims.getSubject()),
+                    claims.getExpiration().toInstant()
+            ));
+        } catch (JwtException | IllegalArgumentException e) {
             log.debug("Invalid refresh token: {}", e.getMessage());
             return Optional.empty();
         }
@@ -133,6 +243,7 @@ public class JwtTokenProvider implements TokenPort {
     public void revokeRefreshToken(String token) {
         String tokenHash = hashToken(token);
         refreshTokenRepository.revoke(tokenHash);
+        refreshTokenIndex.recordRevoked(tokenHash, null);
     }
 
     @Override
@@ -140,21 +251,50 @@ public class JwtTokenProvider implements TokenPort {
         refreshTokenRepository.revokeAllForUser(userId);
     }
 
+    private String sign(JwtBuilder builder) {
+        Optional<SigningKeySet.SigningKey> activeKey = signingKeySet.active();
+        if (activeKey.isPresent()) {
+            SigningKeySet.SigningKey key = activeKey.get();
+            return builder.header().keyId(key.keyId()).and()
+                    .signWith(key.privateKey(), key.jwsAlgorithm())
+                    .compact();
+        }
+        return builder.signWith(secretKey).compact();
+    }
+
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload();
     }
 
     private String hashToken(String token) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private record RefreshTokenClaims(UserId userId, Instant expiresAt) {
+    }
+
+    private record NewRefreshToken(UUID id, String token, String hash, Instant expiresAt) {
+    }
+
+    /**
+     * Picks the verification key from the {@code kid} header; tokens without one are HMAC signed.
+     */
+    private class SigningKeyLocator extends LocatorAdapter<Key> {
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String keyId = header.getKeyId();
+            if (keyId == null) {
+                if (secretKey == null) {
+                    throw new UnsupportedJwtException("Token without key id");
+                }
+                return secretKey;
+            }
+            return signingKeySet.find(keyId)
+                    .<Key>map(SigningKeySet.SigningKey::publicKey)
+                    .orElseThrow(() -> new UnsupportedJwtException("Unknown signing key: " + keyId));
         }
     }
 }
@@ -0,0 +1,76 @@
+package com.familyvault.infrastructure.security;
+
+import com.familyvault.core.application.port.out.security.TokenPort.MembershipClaims;
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.family.FamilyRole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact JWT encoding of family memberships: {@code "fam": ["<family uuid>:<role letter>", ...]}
+ * plus the membership epoch in {@code "mev"}.
+ */
+final class MembershipClaimsCodec {
+
+    static final String FAMILIES_CLAIM = "fam";
+    static final String EPOCH_CLAIM = "mev";
+
+    private MembershipClaimsCodec() {
+    }
+
+    static List<String> encode(MembershipClaims claims) {
+        List<String> encoded = new ArrayList<>(claims.roles().size());
+        claims.roles().forEach((familyId, role) -> encoded.add(familyId.value() + ":" + roleCode(role)));
+        return encoded;
+    }
+
+    /**
+     * @return the decoded claims, or null if either claim is missing or any entry is malformed
+     */
+    static MembershipClaims decode(List<?> families, Long epoch) {
+        if (families == null || epoch == null) {
+            return null;
+        }
+
+        Map<FamilyId, FamilyRole> roles = new HashMap<>(families.size() * 2);
+        for (Object entry : families) {
+            if (!(entry instanceof String value)) {
+                return null;
+            }
+            int separator = value.lastIndexOf(':');
+            if (separator < 0 || separator != value.length() - 2) {
+                return null;
+            }
+            FamilyRole role = role(value.charAt(separator + 1));
+            if (role == null) {
+                return null;
+            }
+            try {
+                roles.put(FamilyId.of(value.substring(0, separator)), role);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return new MembershipClaims(epoch, roles);
+    }
+
+    private static char roleCode(FamilyRole role) {
+        return switch (role) {
+            case OWNER -> 'O';
+            case ADMIN -> 'A';
+            case MEMBER -> 'M';
+        };
+    }
+
+    private static FamilyRole role(char code) {
+        return switch (code) {
+            case 'O' -> FamilyRole.OWNER;
+            case 'A' -> FamilyRole.ADMIN;
+            case 'M' -> FamilyRole.MEMBER;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.familyvault.infrastructure.security;
+
+import com.familyvault.core.application.port.out.persistence.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of revoked refresh tokens that sits in front of {@link RefreshTokenRepository}.
+ * <p>
+ * Revoked token hashes are remembered until the token itself expires, so replays are rejected
+ * without a database round trip. Nothing here ever vouches for a token: a hash that is not in
+ * the index still goes to the database, so revocations made on another node are never missed.
+ */
+@Slf4j
+@Component
+public class RefreshTokenIndex {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final long maxTokenLifetimeMillis;
+    private final int maxSize;
+
+    private final Map<String, Long> invalid = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+    public RefreshTokenIndex(
+            @Value("${security.refresh-token-index.max-size:100000}") int maxSize,
+            @Value("${jwt.refresh-token-expiration:7d}") Duration refreshTokenExpiration
+    ) {
+        this.maxSize = maxSize;
+        this.maxTokenLifetimeMillis = refreshTokenExpiration.toMillis();
+    }
+
+    /**
+     * Whether the token is already known to be revoked, without touching the database.
+     */
+    public boolean isKnownInvalid(String tokenHash) {
+        Long invalidUntil = invalid.get(tokenHash);
+        return invalidUntil != null && System.currentTimeMillis() < invalidUntil;
+    }
+
+    /**
+     * Remember a token that was just revoked.
+     *
+     * @param expiresAt expiry claim of the token, or {@code null} if unknown
+     */
+    public void recordRevoked(String tokenHash, Instant expiresAt) {
+        long now = System.currentTimeMillis();
+        long until = expiresAt != null ? expiresAt.toEpochMilli() : now + maxTokenLifetimeMillis;
+        if (until <= now) {
+            return;
+        }
+        sweepIfNeeded(now);
+        if (invalid.size() < maxSize) {
+            invalid.put(tokenHash, until);
+        }
+    }
+
+    private void sweepIfNeeded(long now) {
+        long last = lastSweep.get();
+        if ((invalid.size() >= maxSize || now - last >= SWEEP_INTERVAL_MILLIS) && lastSweep.compareAndSet(last, now)) {
+            invalid.values().removeIf(until -> until <= now);
+            log.debug("Refresh token index: {} revoked", invalid.size());
+        }
+    }
+}
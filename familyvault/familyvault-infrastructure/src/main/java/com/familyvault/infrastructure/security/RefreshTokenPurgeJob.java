@@ -0,0 +1,98 @@
+package com.familyvault.infrastructure.security;
+
+import com.familyvault.core.application.port.out.persistence.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes expired and long-revoked refresh tokens in bounded chunks.
+ * <p>
+ * Every chunk is its own short transaction, so the purge never holds many row locks or a
+ * long snapshot. A run stops when a chunk comes back short or its time budget is spent;
+ * whatever is left is picked up by the next run. Revoked tokens are kept for
+ * {@code revoked-retention} so reuse of a rotated token can still be recognised.
+ */
+@Slf4j
+@Component
+public class RefreshTokenPurgeJob {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final int batchSize;
+    private final Duration revokedRetention;
+    private final long maxRunNanos;
+    private final long pauseMillis;
+
+    private final Counter purged;
+    private final Timer runs;
+
+    public RefreshTokenPurgeJob(
+            RefreshTokenRepository refreshTokenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${security.refresh-token-purge.batch-size:1000}") int batchSize,
+            @Value("${security.refresh-token-purge.revoked-retention:1d}") Duration revokedRetention,
+            @Value("${security.refresh-token-purge.max-run-time:30s}") Duration maxRunTime,
+            @Value("${security.refresh-token-purge.pause:50ms}") Duration pause
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.batchSize = batchSize;
+        this.revokedRetention = revokedRetention;
+        this.maxRunNanos = maxRunTime.toNanos();
+        this.pauseMillis = pause.toMillis();
+
+        this.purged = Counter.builder("auth.refresh_tokens.purged")
+                .description("Expired or revoked refresh tokens deleted")
+                .register(meterRegistry);
+        this.runs = Timer.builder("auth.refresh_tokens.purge")
+                .description("Duration of refresh token purge runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${security.refresh-token-purge.initial-delay:5m}",
+            fixedDelayString = "${security.refresh-token-purge.interval:1h}"
+    )
+    public void purge() {
+        Instant now = Instant.now();
+        Instant revokedBefore = now.minus(revokedRetention);
+        long start = System.nanoTime();
+        long removed = 0;
+        int chunks = 0;
+
+        try {
+            while (true) {
+                int deleted = refreshTokenRepository.deleteExpired(now, revokedBefore, batchSize);
+                removed += deleted;
+                chunks++;
+                purged.increment(deleted);
+
+                if (deleted < batchSize || System.nanoTime() - start >= maxRunNanos) {
+                    break;
+                }
+                if (pauseMillis > 0) {
+                    // Give replication and autovacuum room between chunks
+                    Thread.sleep(pauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Refresh token purge stopped after {} tokens: {}", removed, e.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            runs.record(elapsed, TimeUnit.NANOSECONDS);
+            if (removed > 0) {
+                log.info("Purged {} refresh tokens in {} chunks ({} ms)",
+                        removed, chunks, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.familyvault.infrastructure.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable set of asymmetric JWT keys, decoded once and looked up by {@code kid}.
+ */
+public final class SigningKeySet {
+
+    private final Map<String, SigningKey> keys;
+    private final SigningKey active;
+
+    private SigningKeySet(Map<String, SigningKey> keys, SigningKey active) {
+        this.keys = Map.copyOf(keys);
+        this.active = active;
+    }
+
+    static SigningKeySet from(JwtSigningProperties properties) {
+        Map<String, SigningKey> keys = new HashMap<>();
+        properties.keys().forEach((keyId, key) -> keys.put(keyId, decode(keyId, key)));
+
+        SigningKey active = null;
+        String activeKeyId = properties.activeKeyId();
+        if (activeKeyId != null && !activeKeyId.isBlank()) {
+            active = keys.get(activeKeyId);
+            if (active == null) {
+                throw new IllegalStateException("Active JWT key not configured: " + activeKeyId);
+            }
+            if (active.privateKey() == null) {
+                throw new IllegalStateException("Active JWT key has no private key: " + activeKeyId);
+            }
+        }
+        return new SigningKeySet(keys, active);
+    }
+
+    /**
+     * Key used to sign new tokens, or empty when signing falls back to HMAC.
+     */
+    Optional<SigningKey> active() {
+        return Optional.ofNullable(active);
+    }
+
+    Optional<SigningKey> find(String keyId) {
+        return Optional.ofNullable(keys.get(keyId));
+    }
+
+    Map<String, SigningKey> all() {
+        return keys;
+    }
+
+    private static SigningKey decode(String keyId, JwtSigningProperties.Key key) {
+        Algorithm algorithm = Algorithm.of(key.algorithm());
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.keyFactoryAlgorithm);
+            PublicKey publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(key.publicKey())));
+            PrivateKey privateKey = key.privateKey() == null || key.privateKey().isBlank()
+                    ? null
+                    : keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.privateKey())));
+            return new SigningKey(keyId, algorithm.jwsAlgorithm, algorithm.jcaSignatureAlgorithm, publicKey, privateKey);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid JWT key " + keyId, e);
+        }
+    }
+
+    /**
+     * @param jcaAlgorithm signature algorithm accepting the raw JWS signature bytes
+     */
+    record SigningKey(
+            String keyId,
+            SignatureAlgorithm jwsAlgorithm,
+            String jcaAlgorithm,
+            PublicKey publicKey,
+            PrivateKey privateKey
+    ) {
+    }
+
+    private enum Algorithm {
+        // JWS carries ECDSA signatures as R || S, which is what the P1363 variant expects
+        ES256(Jwts.SIG.ES256, "EC", "SHA256withECDSAinP1363Format"),
+        EDDSA(Jwts.SIG.EdDSA, "EdDSA", "EdDSA");
+
+        private final SignatureAlgorithm jwsAlgorithm;
+        private final String keyFactoryAlgorithm;
+        private final String jcaSignatureAlgorithm;
+
+        Algorithm(SignatureAlgorithm jwsAlgorithm, String keyFactoryAlgorithm, String jcaSignatureAlgorithm) {
+            this.jwsAlgorithm = jwsAlgorithm;
+            this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+            this.jcaSignatureAlgorithm = jcaSignatureAlgorithm;
+        }
+
+        static Algorithm of(String name) {
+            if ("ES256".equalsIgnoreCase(name)) {
+                return ES256;
+            }
+            if ("EdDSA".equalsIgnoreCase(name)) {
+                return EDDSA;
+            }
+            throw new IllegalStateException("Unsupported JWT algorithm: " + name);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.familyvault.infrastructure.storage;
+
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link FileStoragePort} decorator that hands out the same presigned GET URL for an object
+ * for the length of a reuse window.
+ * <p>
+ * Windows are aligned to the epoch and URLs are signed as of the start of their window, so
+ * every node produces the same URL for a key until the window rolls over. A window is at
+ * most a quarter of the URL's lifetime, which leaves a URL at least three quarters of its
+ * validity when it is handed out. Besides saving a signature per thumbnail, stable URLs let
+ * browsers serve repeated gallery views from their HTTP cache. Upload and part URLs are
+ * always freshly signed.
+ */
+public class PresignedUrlCache implements FileStoragePort {
+
+    private final ReproducibleUrlStoragePort delegate;
+    private final long reuseWindowMillis;
+    private final int maxSize;
+    private final Map<UrlKey, CachedUrl> urls = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PresignedUrlCache(ReproducibleUrlStoragePort delegate, MeterRegistry meterRegistry, Duration reuseWindow, int maxSize) {
+        this.delegate = delegate;
+        this.reuseWindowMillis = reuseWindow.toMillis();
+        this.maxSize = maxSize;
+
+        this.hits = Counter.builder("storage.presign.cache.requests")
+                .tag("result", "hit")
+                .description("Presigned URLs reused within their window")
+                .register(meterRegistry);
+        this.misses = Counter.builder("storage.presign.cache.requests")
+                .tag("result", "miss")
+                .description("Presigned URLs that had to be signed")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("storage.presign.cache.size", Tags.empty(), urls);
+    }
+
+    @Override
+    public String generateUploadUrl(String storageKey, String contentType, Duration expiration) {
+        return delegate.generateUploadUrl(storageKey, contentType, expiration);
+    }
+
+    @Override
+    public String generateDownloadUrl(String storageKey, Duration expiration) {
+        return cached(new UrlKey(UrlKind.DOWNLOAD, storageKey, null, expiration.toMillis()),
+                signedAt -> delegate.generateDownloadUrl(storageKey, signedAt, expiration));
+    }
+
+    @Override
+    public String generateViewUrl(String storageKey, String contentType, Duration expiration) {
+        return cached(new UrlKey(UrlKind.VIEW, storageKey, contentType, expiration.toMillis()),
+                signedAt -> delegate.generateViewUrl(storageKey, contentType, signedAt, expiration));
+    }
+
+    @Override
+    public String createMultipartUpload(String storageKey, String contentType) {
+        return delegate.createMultipartUpload(storageKey, contentType);
+    }
+
+    @Override
+    public String generateUploadPartUrl(String storageKey, String uploadId, int partNumber, Duration expiration) {
+        return delegate.generateUploadPartUrl(storageKey, uploadId, partNumber, expiration);
+    }
+
+    @Override
+    public List<UploadedPart> listUploadedParts(String storageKey, String uploadId) {
+        return delegate.listUploadedParts(storageKey, uploadId);
+    }
+
+    @Override
+    public void completeMultipartUpload(String storageKey, String uploadId, List<UploadedPart> parts) {
+        delegate.completeMultipartUpload(storageKey, uploadId, parts);
+    }
+
+    @Override
+    public void abortMultipartUpload(String storageKey, String uploadId) {
+        delegate.abortMultipartUpload(storageKey, uploadId);
+    }
+
+    @Override
+    public void upload(String storageKey, InputStream content, String contentType, long size) {
+        delegate.upload(storageKey, content, contentType, size);
+    }
+
+    @Override
+    public Optional<InputStream> download(String storageKey) {
+        return delegate.download(storageKey);
+    }
+
+    @Override
+    public Optional<byte[]> downloadRange(String storageKey, long offset, int length) {
+        return delegate.downloadRange(storageKey, offset, length);
+    }
+
+    @Override
+    public Optional<InputStream> openRange(String storageKey, long offset, long length) {
+        return delegate.openRange(storageKey, offset, length);
+    }
+
+    @Override
+    public void delete(String storageKey) {
+        // Cached URLs of a deleted object simply return 404 until their window ends
+        delegate.delete(storageKey);
+    }
+
+    @Override
+    public boolean exists(String storageKey) {
+        return delegate.exists(storageKey);
+    }
+
+    @Override
+    public Set<String> findExisting(Collection<String> storageKeys) {
+        return delegate.findExisting(storageKeys);
+    }
+
+    @Override
+    public void copy(String sourceKey, String destinationKey) {
+        delegate.copy(sourceKey, destinationKey);
+    }
+
+    private String cached(UrlKey key, Function<Instant, String> signer) {
+        long now = System.currentTimeMillis();
+        long window = Math.min(reuseWindowMillis, key.expirationMillis() / 4);
+        if (window <= 0) {
+            return signer.apply(Instant.ofEpochMilli(now));
+        }
+
+        long windowStart = now - Math.floorMod(now, window);
+        long windowEnd = windowStart + window;
+
+        CachedUrl cached = urls.get(key);
+        if (cached != null && now < cached.windowEndMillis()) {
+            hits.increment();
+            return cached.url();
+        }
+
+        misses.increment();
+        String url = signer.apply(Instant.ofEpochMilli(windowStart));
+        if (urls.size() >= maxSize) {
+            urls.values().removeIf(entry -> now >= entry.windowEndMillis());
+        }
+        if (urls.size() < maxSize) {
+            urls.put(key, new CachedUrl(url, windowEnd));
+        }
+        return url;
+    }
+
+    private enum UrlKind {
+        VIEW,
+        DOWNLOAD
+    }
+
+    private record UrlKey(UrlKind kind, String storageKey, String contentType, long expirationMillis) {
+    }
+
+    private record CachedUrl(String url, long windowEndMillis) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.familyvault.infrastructure.storage;
+
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link FileStoragePort} that also signs GET URLs as of a given time, so equal arguments give
+ * an equal URL on every node. {@link PresignedUrlCache} signs at the start of each reuse window.
+ */
+public interface ReproducibleUrlStoragePort extends FileStoragePort {
+
+    /**
+     * Download URL signed as of {@code signedAt}.
+     */
+    String generateDownloadUrl(String storageKey, Instant signedAt, Duration expiration);
+
+    /**
+     * View URL signed as of {@code signedAt}.
+     */
+    String generateViewUrl(String storageKey, String contentType, Instant signedAt, Duration expiration);
+}
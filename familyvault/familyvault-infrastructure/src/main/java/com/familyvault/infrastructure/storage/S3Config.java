@@ -1,6 +1,7 @@
 package com.familyvault.infrastructure.storage;
 
 import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,9 +10,9 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
+import java.time.Duration;
 
 /**
  * Configuration for S3-compatible storage (R2, S3, Backblaze, MinIO).
@@ -34,6 +35,15 @@ public class S3Config {
     @Value("${storage.s3.bucket}")
     private String bucket;
 
+    @Value("${storage.presigned-urls.reuse-window:1h}")
+    private Duration presignedUrlReuseWindow;
+
+    @Value("${storage.presigned-urls.max-cached:100000}")
+    private int presignedUrlMaxCached;
+
+    @Value("${storage.existence-check.list-threshold:50}")
+    private int existenceCheckListThreshold;
+
     @Bean
     public S3Client s3Client() {
         return S3Client.builder()
@@ -48,20 +58,10 @@ public class S3Config {
     }
 
     @Bean
-    public S3Presigner s3Presigner() {
-        return S3Presigner.builder()
-                .endpointOverride(URI.create(endpoint))
-                .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(accessKey, secretKey)))
-                .serviceConfiguration(S3Configuration.builder()
-                        .pathStyleAccessEnabled(true)
-                        .build())
-                .build();
-    }
-
-    @Bean
-    public FileStoragePort fileStoragePort(S3Client s3Client, S3Presigner s3Presigner) {
-        return new S3StorageAdapter(s3Client, s3Presigner, bucket);
+    public FileStoragePort fileStoragePort(S3Client s3Client, MeterRegistry meterRegistry) {
+        SigV4QueryPresigner presigner = new SigV4QueryPresigner(
+                URI.create(endpoint), region, accessKey, secretKey, bucket);
+        S3StorageAdapter adapter = new S3StorageAdapter(s3Client, presigner, bucket, existenceCheckListThreshold);
+        return new PresignedUrlCache(adapter, meterRegistry, presignedUrlReuseWindow, presignedUrlMaxCached);
     }
 }
@@ -1,78 +1,138 @@
 package com.familyvault.infrastructure.storage;
 
-import com.familyvault.core.application.port.out.storage.FileStoragePort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.InputStream;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * S3-compatible storage adapter.
  * Works with AWS S3, Cloudflare R2, Backblaze B2, MinIO, etc.
+ * Presigned URLs are built by {@link SigV4QueryPresigner} rather than the SDK presigner.
  */
 @Slf4j
 @RequiredArgsConstructor
-public class S3StorageAdapter implements FileStoragePort {
+public class S3StorageAdapter implements ReproducibleUrlStoragePort {
+
+    private static final int LIST_PAGE_SIZE = 1000;
 
     private final S3Client s3Client;
-    private final S3Presigner s3Presigner;
+    private final SigV4QueryPresigner presigner;
     private final String bucketName;
+    // From this many keys in one directory on, findExisting lists their range instead of one HEAD per key
+    private final int listThreshold;
 
     @Override
     public String generateUploadUrl(String storageKey, String contentType, Duration expiration) {
-        PutObjectRequest putRequest = PutObjectRequest.builder()
+        return presigner.presignPut(storageKey, contentType, Instant.now(), expiration);
+    }
+
+    @Override
+    public String generateDownloadUrl(String storageKey, Duration expiration) {
+        return generateDownloadUrl(storageKey, Instant.now(), expiration);
+    }
+
+    @Override
+    public String generateViewUrl(String storageKey, String contentType, Duration expiration) {
+        return generateViewUrl(storageKey, contentType, Instant.now(), expiration);
+    }
+
+    @Override
+    public String generateDownloadUrl(String storageKey, Instant signedAt, Duration expiration) {
+        return presigner.presignGet(storageKey, null, "attachment", signedAt, expiration);
+    }
+
+    @Override
+    public String generateViewUrl(String storageKey, String contentType, Instant signedAt, Duration expiration) {
+        return presigner.presignGet(storageKey, contentType, "inline", signedAt, expiration);
+    }
+
+    @Override
+    public String createMultipartUpload(String storageKey, String contentType) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
                 .bucket(bucketName)
                 .key(storageKey)
                 .contentType(contentType)
                 .build();
 
-        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
-                .signatureDuration(expiration)
-                .putObjectRequest(putRequest)
-                .build();
+        String uploadId = s3Client.createMultipartUpload(request).uploadId();
+        log.debug("Started multipart upload {} for {}/{}", uploadId, bucketName, storageKey);
+        return uploadId;
+    }
 
-        return s3Presigner.presignPutObject(presignRequest).url().toString();
+    @Override
+    public String generateUploadPartUrl(String storageKey, String uploadId, int partNumber, Duration expiration) {
+        return presigner.presignUploadPart(storageKey, uploadId, partNumber, Instant.now(), expiration);
     }
 
     @Override
-    public String generateDownloadUrl(String storageKey, Duration expiration) {
-        GetObjectRequest getRequest = GetObjectRequest.builder()
+    public List<UploadedPart> listUploadedParts(String storageKey, String uploadId) {
+        ListPartsRequest request = ListPartsRequest.builder()
                 .bucket(bucketName)
                 .key(storageKey)
-                .responseContentDisposition("attachment")
-                .build();
-
-        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(expiration)
-                .getObjectRequest(getRequest)
+                .uploadId(uploadId)
                 .build();
 
-        return s3Presigner.presignGetObject(presignRequest).url().toString();
+        List<UploadedPart> parts = new ArrayList<>();
+        for (Part part : s3Client.listPartsPaginator(request).parts()) {
+            parts.add(new UploadedPart(part.partNumber(), part.eTag(), part.size()));
+        }
+        return parts;
     }
 
     @Override
-    public String generateViewUrl(String storageKey, String contentType, Duration expiration) {
-        GetObjectRequest getRequest = GetObjectRequest.builder()
+    public void completeMultipartUpload(String storageKey, String uploadId, List<UploadedPart> parts) {
+        List<CompletedPart> completedParts = parts.stream()
+                .map(part -> CompletedPart.builder()
+                        .partNumber(part.partNumber())
+                        .eTag(part.eTag())
+                        .build())
+                .toList();
+
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
                 .bucket(bucketName)
                 .key(storageKey)
-                .responseContentType(contentType)
-                .responseContentDisposition("inline")
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
                 .build();
 
-        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(expiration)
-                .getObjectRequest(getRequest)
+        s3Client.completeMultipartUpload(request);
+        log.debug("Completed multipart upload {} of {}/{} from {} parts", uploadId, bucketName, storageKey, parts.size());
+    }
+
+    @Override
+    public void abortMultipartUpload(String storageKey, String uploadId) {
+        AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(storageKey)
+                .uploadId(uploadId)
                 .build();
 
-        return s3Presigner.presignGetObject(presignRequest).url().toString();
+        try {
+            s3Client.abortMultipartUpload(request);
+            log.debug("Aborted multipart upload {} of {}/{}", uploadId, bucketName, storageKey);
+        } catch (NoSuchUploadException e) {
+            log.debug("Multipart upload {} of {}/{} no longer exists", uploadId, bucketName, storageKey);
+        }
     }
 
     @Override
@@ -103,6 +163,43 @@ public class S3StorageAdapter implements FileStoragePort {
         }
     }
 
+    @Override
+    public Optional<byte[]> downloadRange(String storageKey, long offset, int length) {
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(storageKey)
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
+                    .build();
+
+            return Optional.of(s3Client.getObjectAsBytes(request).asByteArray());
+        } catch (NoSuchKeyException e) {
+            log.warn("File not found: {}/{}", bucketName, storageKey);
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 416) {
+                return Optional.of(new byte[0]); // range starts past the end of the object
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<InputStream> openRange(String storageKey, long offset, long length) {
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(storageKey)
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
+                    .build();
+
+            return Optional.of(s3Client.getObject(request));
+        } catch (NoSuchKeyException e) {
+            log.warn("File not found: {}/{}", bucketName, storageKey);
+            return Optional.empty();
+        }
+    }
+
     @Override
     public void delete(String storageKey) {
         DeleteObjectRequest request = DeleteObjectRequest.builder()
@@ -129,6 +226,118 @@ public class S3StorageAdapter implements FileStoragePort {
         }
     }
 
+    @Override
+    public Set<String> findExisting(Collection<String> storageKeys) {
+        if (storageKeys.isEmpty()) {
+            return Set.of();
+        }
+        // Keys of one upload directory (a family's files) share a prefix and list together
+        Map<String, TreeSet<String>> byDirectory = new HashMap<>();
+        for (String key : storageKeys) {
+            byDirectory.computeIfAbsent(key.substring(0, key.lastIndexOf('/') + 1), directory -> new TreeSet<>())
+                    .add(key);
+        }
+
+        Set<String> existing = new HashSet<>();
+        List<String> headed = new ArrayList<>();
+        for (TreeSet<String> keys : byDirectory.values()) {
+            if (keys.size() >= listThreshold) {
+                existing.addAll(listExisting(keys));
+            } else {
+                headed.addAll(keys);
+            }
+        }
+        if (!headed.isEmpty()) {
+            existing.addAll(headExisting(headed));
+        }
+        return existing;
+    }
+
+    /**
+     * One HEAD per key, each on its own virtual thread; the client's connection pool bounds
+     * how many are in flight.
+     */
+    private Set<String> headExisting(Collection<String> storageKeys) {
+        List<Callable<String>> checks = storageKeys.stream()
+                .distinct()
+                .<Callable<String>>map(key -> () -> exists(key) ? key : null)
+                .toList();
+
+        Set<String> existing = new HashSet<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<String> check : executor.invokeAll(checks)) {
+                String key = check.get();
+                if (key != null) {
+                    existing.add(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking files in storage", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Checking files in storage failed", e.getCause());
+        }
+        return existing;
+    }
+
+    /**
+     * Lists the key range from the smallest to the largest requested key of one directory.
+     * Keys of one batch start with close timestamps, so the listing usually stays narrow.
+     * When it is not, e.g. because an old upload is confirmed together with new ones, the
+     * listing stops after about one page per thousand requested keys and the keys beyond
+     * it are checked one by one. Storage keys are ASCII, where String order matches the
+     * byte order of the listing.
+     */
+    private Set<String> listExisting(TreeSet<String> wanted) {
+        String first = wanted.first();
+        String last = wanted.last();
+
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(commonPrefix(first, last))
+                // A proper prefix of the first key sorts right before it
+                .startAfter(first.substring(0, first.length() - 1))
+                .maxKeys(LIST_PAGE_SIZE);
+        int maxPages = wanted.size() / LIST_PAGE_SIZE + 2;
+
+        Set<String> existing = new HashSet<>();
+        String listedUpTo = null;
+        for (int page = 0; page < maxPages; page++) {
+            ListObjectsV2Response response = s3Client.listObjectsV2(request.build());
+            for (S3Object object : response.contents()) {
+                String key = object.key();
+                if (key.compareTo(last) > 0) {
+                    return existing;
+                }
+                if (wanted.contains(key)) {
+                    existing.add(key);
+                }
+                listedUpTo = key;
+            }
+            if (!Boolean.TRUE.equals(response.isTruncated())) {
+                return existing;
+            }
+            request.continuationToken(response.nextContinuationToken());
+        }
+
+        log.debug("Listing {} keys under {} exceeded {} pages, checking the rest one by one",
+                wanted.size(), commonPrefix(first, last), maxPages);
+        existing.addAll(headExisting(listedUpTo != null ? wanted.tailSet(listedUpTo, false) : wanted));
+        return existing;
+    }
+
+    private static String commonPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return a.substring(0, i);
+    }
+
     @Override
     public void copy(String sourceKey, String destinationKey) {
         CopyObjectRequest request = CopyObjectRequest.builder()
@@ -0,0 +1,238 @@
+package com.familyvault.infrastructure.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * SigV4 query-string presigner for the URL shapes the storage adapter hands out: inline GET,
+ * attachment GET, PUT with a content type and multipart part PUT.
+ * <p>
+ * Produces the same URLs as the SDK presigner for path-style endpoints with static
+ * credentials, without building a request, interceptor chain and auth scheme per URL.
+ * The daily signing key is derived once per date, and each thread keeps its own
+ * {@link Mac} and {@link MessageDigest}.
+ */
+final class SigV4QueryPresigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    // Longest validity SigV4 accepts for a presigned URL
+    private static final long MAX_EXPIRES_SECONDS = Duration.ofDays(7).toSeconds();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(SigV4QueryPresigner::newMac);
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(SigV4QueryPresigner::newDigest);
+
+    private final String accessKey;
+    private final byte[] secretKey;
+    private final String region;
+    private final String baseUrl;
+    private final String host;
+    private final String bucketPath;
+
+    private volatile SigningKey signingKey;
+
+    /**
+     * @param bucket bucket addressed in the path, or null when the endpoint host already names it
+     */
+    SigV4QueryPresigner(URI endpoint, String region, String accessKey, String secretKey, String bucket) {
+        this.accessKey = accessKey;
+        this.secretKey = ("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8);
+        this.region = region;
+
+        int port = endpoint.getPort();
+        boolean defaultPort = port == -1
+                || ("https".equals(endpoint.getScheme()) && port == 443)
+                || ("http".equals(endpoint.getScheme()) && port == 80);
+        this.host = defaultPort ? endpoint.getHost() : endpoint.getHost() + ":" + port;
+        this.baseUrl = endpoint.getScheme() + "://" + host;
+        this.bucketPath = bucket != null ? "/" + encode(bucket, false) : "";
+    }
+
+    /**
+     * @param responseContentType        overrides Content-Type of the response, or null
+     * @param responseContentDisposition overrides Content-Disposition of the response, or null
+     */
+    String presignGet(String storageKey, String responseContentType, String responseContentDisposition,
+                      Instant signedAt, Duration expiration) {
+        StringBuilder query = new StringBuilder(256);
+        if (responseContentDisposition != null) {
+            query.append("response-content-disposition=").append(encode(responseContentDisposition, true)).append('&');
+        }
+        if (responseContentType != null) {
+            query.append("response-content-type=").append(encode(responseContentType, true)).append('&');
+        }
+        return presign("GET", storageKey, query, null, signedAt, expiration);
+    }
+
+    String presignPut(String storageKey, String contentType, Instant signedAt, Duration expiration) {
+        return presign("PUT", storageKey, new StringBuilder(256), contentType, signedAt, expiration);
+    }
+
+    /**
+     * URL for one part of a multipart upload; the part carries no content type of its own.
+     */
+    String presignUploadPart(String storageKey, String uploadId, int partNumber, Instant signedAt, Duration expiration) {
+        StringBuilder query = new StringBuilder(256)
+                .append("partNumber=").append(partNumber).append('&')
+                .append("uploadId=").append(encode(uploadId, true)).append('&');
+        return presign("PUT", storageKey, query, null, signedAt, expiration);
+    }
+
+    /**
+     * @param query       parameters that precede the X-Amz-* ones in the URL, in byte order and
+     *                    each followed by '&'
+     * @param contentType signed content-type header, or null to sign only host
+     * @param expiration  validity of the URL, capped at the seven days SigV4 allows
+     */
+    private String presign(String method, String storageKey, StringBuilder query, String contentType,
+                           Instant signedAt, Duration expiration) {
+        String amzDate = DATE_TIME.format(signedAt);
+        String dateStamp = amzDate.substring(0, 8);
+        String scope = dateStamp + "/" + region + "/" + SERVICE + "/aws4_request";
+        String path = bucketPath + "/" + encode(storageKey, false);
+
+        // Same parameter order as the SDK puts in the URL
+        query.append("X-Amz-Algorithm=").append(ALGORITHM)
+                .append("&X-Amz-Date=").append(amzDate)
+                .append("&X-Amz-SignedHeaders=").append(contentType != null ? "content-type%3Bhost" : "host")
+                .append("&X-Amz-Credential=").append(encode(accessKey, true)).append("%2F").append(encode(scope, true))
+                .append("&X-Amz-Expires=").append(Math.min(expiration.toSeconds(), MAX_EXPIRES_SECONDS));
+
+        String canonicalRequest = method + '\n'
+                + path + '\n'
+                + canonicalQuery(query) + '\n'
+                + (contentType != null ? "content-type:" + contentType.trim() + '\n' : "")
+                + "host:" + host + '\n'
+                + '\n'
+                + (contentType != null ? "content-type;host" : "host") + '\n'
+                + UNSIGNED_PAYLOAD;
+
+        String stringToSign = ALGORITHM + '\n'
+                + amzDate + '\n'
+                + scope + '\n'
+                + hex(DIGESTS.get().digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] signature = hmac(signingKey(dateStamp), stringToSign);
+
+        return baseUrl + path + '?' + query + "&X-Amz-Signature=" + hex(signature);
+    }
+
+    /**
+     * The canonical query sorts by parameter name in byte order: the X-Amz-* names sort
+     * before the lowercase parameters, which the URL lists first.
+     */
+    private static String canonicalQuery(StringBuilder query) {
+        int amz = query.indexOf("X-Amz-");
+        if (amz == 0) {
+            return sortAmzParameters(query.toString());
+        }
+        // Lowercase parameters, each followed by '&'
+        String overrides = query.substring(0, amz - 1);
+        return sortAmzParameters(query.substring(amz)) + '&' + overrides;
+    }
+
+    /**
+     * Reorders the fixed X-Amz-* parameters (Algorithm, Date, SignedHeaders, Credential,
+     * Expires) into byte order: Algorithm, Credential, Date, Expires, SignedHeaders.
+     */
+    private static String sortAmzParameters(String amzParameters) {
+        String[] p = amzParameters.split("&", 5);
+        return p[0] + '&' + p[3] + '&' + p[1] + '&' + p[4] + '&' + p[2];
+    }
+
+    private byte[] signingKey(String dateStamp) {
+        SigningKey current = signingKey;
+        if (current != null && current.dateStamp().equals(dateStamp)) {
+            return current.key();
+        }
+        byte[] key = hmac(secretKey, dateStamp);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        // Requests signed for another date (e.g. around midnight) derive their own key
+        if (current == null || current.dateStamp().compareTo(dateStamp) < 0) {
+            signingKey = new SigningKey(dateStamp, key);
+        }
+        return key;
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        Mac mac = MACS.get();
+        try {
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid signing key", e);
+        }
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * RFC 3986 encoding as SigV4 expects: unreserved characters are kept, everything else is
+     * percent-encoded from UTF-8, and '/' is kept in paths.
+     */
+    static String encode(String value, boolean encodeSlash) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder out = null;
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xff;
+            boolean unreserved = (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+                    || b == '-' || b == '_' || b == '.' || b == '~' || (b == '/' && !encodeSlash);
+            if (unreserved) {
+                if (out != null) {
+                    out.append((char) b);
+                }
+                continue;
+            }
+            if (out == null) {
+                out = new StringBuilder(bytes.length + 16);
+                for (int j = 0; j < i; j++) {
+                    out.append((char) bytes[j]);
+                }
+            }
+            out.append('%').append(Character.toUpperCase(HEX[b >> 4])).append(Character.toUpperCase(HEX[b & 0xf]));
+        }
+        return out != null ? out.toString() : value;
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            out[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(out);
+    }
+
+    private static Mac newMac() {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record SigningKey(String dateStamp, byte[] key) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.familyvault.infrastructure.storage;
+
+import com.familyvault.core.application.port.out.persistence.StorageQuotaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Hands the quota held by abandoned uploads back to their families.
+ * <p>
+ * Reservations are released in chunks, each in its own transaction, until a chunk comes
+ * back short. An upload confirmed after its reservation expired is charged directly
+ * against the remaining quota instead.
+ */
+@Slf4j
+@Component
+public class StorageReservationExpiryJob {
+
+    private final StorageQuotaRepository storageQuotaRepository;
+    private final int batchSize;
+    private final Counter released;
+
+    public StorageReservationExpiryJob(
+            StorageQuotaRepository storageQuotaRepository,
+            MeterRegistry meterRegistry,
+            @Value("${storage.reservations.batch-size:500}") int batchSize
+    ) {
+        this.storageQuotaRepository = storageQuotaRepository;
+        this.batchSize = batchSize;
+        this.released = Counter.builder("storage.reservations.expired")
+                .description("Upload reservations released after they expired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.reservations.expiry-interval:1m}")
+    public void releaseExpired() {
+        Instant now = Instant.now();
+        long total = 0;
+        try {
+            int count;
+            do {
+                count = storageQuotaRepository.releaseExpiredReservations(now, batchSize);
+                total += count;
+                released.increment(count);
+            } while (count == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Releasing expired storage reservations failed after {}: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Released {} expired storage reservations", total);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.familyvault.infrastructure.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Walks families in ID order and corrects {@code storage_used_bytes} where it no longer
+ * matches the size of the family's active files.
+ * <p>
+ * Uploads and deletes change the counter and the file row in separate steps, so a single
+ * mismatch may just be an operation in flight. A counter is therefore only corrected when
+ * the same recorded and actual values were already seen on the previous pass, and only if
+ * it still holds the recorded value. The cursor and those observations live in the
+ * database, so a run resumes where the last one stopped on any node, and the row lock on
+ * the cursor keeps nodes from reconciling at the same time.
+ */
+@Slf4j
+@Component
+public class StorageUsageReconciler {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private static final String LOCK_CURSOR_SQL = """
+            SELECT last_family_id
+            FROM storage_reconciliation
+            WHERE id = 1
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String BATCH_SQL = """
+            SELECT f.id, COALESCE(f.storage_used_bytes, 0) AS recorded,
+                   COALESCE(s.actual, 0) AS actual,
+                   d.recorded_bytes AS previous_recorded, d.actual_bytes AS previous_actual
+            FROM families f
+            CROSS JOIN LATERAL (
+                SELECT SUM(fl.file_size) AS actual
+                FROM files fl
+                WHERE fl.family_id = f.id AND fl.status = 'ACTIVE' AND fl.deleted_at IS NULL
+            ) s
+            LEFT JOIN storage_drift d ON d.family_id = f.id
+            WHERE f.deleted_at IS NULL AND f.id > ?
+            ORDER BY f.id
+            LIMIT ?
+            """;
+
+    // The column is nullable; NULL is read as 0 above and has to match as 0 here
+    private static final String CORRECT_SQL = """
+            UPDATE families
+            SET storage_used_bytes = ?
+            WHERE id = ? AND COALESCE(storage_used_bytes, 0) = ?
+            """;
+
+    private static final String RECORD_DRIFT_SQL = """
+            INSERT INTO storage_drift (family_id, recorded_bytes, actual_bytes, observed_at)
+            VALUES (?, ?, ?, NOW())
+            ON CONFLICT (family_id) DO UPDATE
+            SET recorded_bytes = EXCLUDED.recorded_bytes,
+                actual_bytes = EXCLUDED.actual_bytes,
+                observed_at = EXCLUDED.observed_at
+            """;
+
+    private static final String CLEAR_DRIFT_SQL = "DELETE FROM storage_drift WHERE family_id = ?";
+
+    private static final String SAVE_CURSOR_SQL = """
+            UPDATE storage_reconciliation
+            SET last_family_id = ?, updated_at = NOW()
+            WHERE id = 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long pauseMillis;
+
+    private final Counter checked;
+    private final Counter observed;
+    private final Counter corrected;
+    private final DistributionSummary correctedDrift;
+
+    public StorageUsageReconciler(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${storage.reconciliation.batch-size:200}") int batchSize,
+            @Value("${storage.reconciliation.max-batches-per-run:50}") int maxBatchesPerRun,
+            @Value("${storage.reconciliation.pause:100ms}") Duration pause
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseMillis = pause.toMillis();
+
+        this.checked = Counter.builder("storage.reconciliation.families")
+                .description("Families whose storage usage was checked")
+                .register(meterRegistry);
+        this.observed = Counter.builder("storage.reconciliation.drift.observed")
+                .description("Families seen with a counter that differs from their files")
+                .register(meterRegistry);
+        this.corrected = Counter.builder("storage.reconciliation.corrections")
+                .description("Storage counters corrected after drift was confirmed")
+                .register(meterRegistry);
+        this.correctedDrift = DistributionSummary.builder("storage.reconciliation.drift")
+                .baseUnit("bytes")
+                .description("Absolute drift of corrected storage counters")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${storage.reconciliation.initial-delay:10m}",
+            fixedDelayString = "${storage.reconciliation.interval:15m}"
+    )
+    public void reconcile() {
+        int families = 0;
+        int corrections = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                BatchResult result = transactionTemplate.execute(status -> reconcileBatch());
+                if (result == null) {
+                    log.debug("Storage reconciliation is running on another node");
+                    return;
+                }
+                families += result.checked();
+                corrections += result.corrected();
+                if (result.wrapped()) {
+                    break;
+                }
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Storage reconciliation stopped after {} families: {}", families, e.getMessage());
+        }
+
+        if (corrections > 0) {
+            log.info("Corrected storage usage of {} of {} families checked", corrections, families);
+        }
+    }
+
+    /**
+     * @return the outcome, or null if another node holds the cursor
+     */
+    private BatchResult reconcileBatch() {
+        List<UUID> cursor = jdbcTemplate.queryForList(LOCK_CURSOR_SQL, UUID.class);
+        if (cursor.isEmpty()) {
+            return null;
+        }
+        UUID after = cursor.get(0) != null ? cursor.get(0) : FIRST_ID;
+
+        List<FamilyUsage> usages = jdbcTemplate.query(BATCH_SQL, (rs, rowNum) -> new FamilyUsage(
+                rs.getObject("id", UUID.class),
+                rs.getLong("recorded"),
+                rs.getLong("actual"),
+                rs.getObject("previous_recorded", Long.class),
+                rs.getObject("previous_actual", Long.class)
+        ), after, batchSize);
+
+        List<Object[]> drifts = new ArrayList<>();
+        List<Object[]> cleared = new ArrayList<>();
+        int corrections = 0;
+
+        for (FamilyUsage usage : usages) {
+            if (usage.recorded() == usage.actual()) {
+                if (usage.previousRecorded() != null) {
+                    cleared.add(new Object[]{usage.familyId()});
+                }
+            } else if (usage.isConfirmed()) {
+                if (jdbcTemplate.update(CORRECT_SQL, usage.actual(), usage.familyId(), usage.recorded()) > 0) {
+                    corrections++;
+                    corrected.increment();
+                    correctedDrift.record(Math.abs(usage.actual() - usage.recorded()));
+                    log.info("Corrected storage usage of family {} from {} to {} bytes",
+                            usage.familyId(), usage.recorded(), usage.actual());
+                }
+                cleared.add(new Object[]{usage.familyId()});
+            } else {
+                observed.increment();
+                drifts.add(new Object[]{usage.familyId(), usage.recorded(), usage.actual()});
+            }
+        }
+
+        if (!drifts.isEmpty()) {
+            jdbcTemplate.batchUpdate(RECORD_DRIFT_SQL, drifts);
+        }
+        if (!cleared.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLEAR_DRIFT_SQL, cleared);
+        }
+
+        // Start over from the beginning once the last family has been checked
+        boolean wrapped = usages.size() < batchSize;
+        UUID next = wrapped ? null : usages.get(usages.size() - 1).familyId();
+        jdbcTemplate.update(SAVE_CURSOR_SQL, next);
+
+        checked.increment(usages.size());
+        return new BatchResult(usages.size(), corrections, wrapped);
+    }
+
+    private record FamilyUsage(UUID familyId, long recorded, long actual, Long previousRecorded, Long previousActual) {
+
+        boolean isConfirmed() {
+            return previousRecorded != null && previousRecorded == recorded
+                    && previousActual != null && previousActual == actual;
+        }
+    }
+
+    private record BatchResult(int checked, int corrected, boolean wrapped) {
+    }
+}
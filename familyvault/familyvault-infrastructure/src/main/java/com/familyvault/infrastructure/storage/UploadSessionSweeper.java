@@ -0,0 +1,89 @@
+package com.familyvault.infrastructure.storage;
+
+import com.familyvault.core.application.port.out.persistence.FileRepository;
+import com.familyvault.core.application.port.out.persistence.StorageQuotaRepository;
+import com.familyvault.core.application.port.out.persistence.UploadSessionRepository;
+import com.familyvault.core.application.port.out.storage.FileStoragePort;
+import com.familyvault.core.domain.model.file.FileId;
+import com.familyvault.core.domain.model.file.StoredFile;
+import com.familyvault.core.domain.model.file.UploadSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Aborts multipart uploads that were never completed, so their parts stop taking up
+ * storage, and marks their files as failed.
+ * <p>
+ * Sessions are handled in chunks until a chunk comes back short. Aborting an upload that is
+ * already gone is a no-op, so a session swept by two nodes at once is harmless.
+ */
+@Slf4j
+@Component
+public class UploadSessionSweeper {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileRepository fileRepository;
+    private final StorageQuotaRepository storageQuotaRepository;
+    private final FileStoragePort fileStorage;
+    private final int batchSize;
+    private final Counter aborted;
+
+    public UploadSessionSweeper(
+            UploadSessionRepository uploadSessionRepository,
+            FileRepository fileRepository,
+            StorageQuotaRepository storageQuotaRepository,
+            FileStoragePort fileStorage,
+            MeterRegistry meterRegistry,
+            @Value("${storage.multipart.sweep-batch-size:100}") int batchSize
+    ) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileRepository = fileRepository;
+        this.storageQuotaRepository = storageQuotaRepository;
+        this.fileStorage = fileStorage;
+        this.batchSize = batchSize;
+        this.aborted = Counter.builder("storage.multipart.expired")
+                .description("Multipart uploads aborted after their session expired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.multipart.sweep-interval:15m}")
+    public void sweep() {
+        Instant now = Instant.now();
+        long total = 0;
+        try {
+            List<UploadSession> expired;
+            do {
+                expired = uploadSessionRepository.findExpired(now, batchSize);
+                for (UploadSession session : expired) {
+                    fileStorage.abortMultipartUpload(session.storageKey(), session.uploadId());
+                    storageQuotaRepository.releaseReservation(session.fileId());
+                    uploadSessionRepository.delete(session.fileId());
+                }
+
+                List<FileId> fileIds = expired.stream().map(UploadSession::fileId).toList();
+                List<StoredFile> failed = fileRepository.findFilesByIds(fileIds).stream()
+                        .filter(file -> !file.isActive())
+                        .map(StoredFile::markFailed)
+                        .toList();
+                if (!failed.isEmpty()) {
+                    fileRepository.updateFileStates(failed);
+                }
+
+                total += expired.size();
+                aborted.increment(expired.size());
+            } while (expired.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Sweeping expired multipart uploads failed after {}: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Aborted {} expired multipart uploads", total);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.infrastructure.media.ImageHeaderParser.ImageHeader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class ImageHeaderParserTest {
+
+    private static final String XMP_ID = "http://ns.adobe.com/xap/1.0/\0";
+
+    @Test
+    void readsJpegExifAndFrame() {
+        ImageHeader header = ImageHeaderParser.parse(jpeg(app1Exif(6, "Pixel"), sof(4032, 3024)));
+
+        assertThat(header.width()).isEqualTo(4032);
+        assertThat(header.height()).isEqualTo(3024);
+        assertThat(header.orientation).isEqualTo(6);
+        assertThat(header.cameraMake).isEqualTo("Pixel");
+        assertThat(header.capturedAt).isEqualTo("2024-07-14T18:03:27");
+    }
+
+    @Test
+    void readsXmpWhenExifIsMissing() {
+        String xmp = "<x:xmpmeta><rdf:Description tiff:Orientation=\"8\" tiff:Make=\"Canon\">"
+                + "<xmp:CreateDate>2023-01-02T03:04:05+01:00</xmp:CreateDate></rdf:Description></x:xmpmeta>";
+
+        ImageHeader header = ImageHeaderParser.parse(jpeg(segment(0xE1, bytes(XMP_ID + xmp)), sof(640, 480)));
+
+        assertThat(header.orientation).isEqualTo(8);
+        assertThat(header.cameraMake).isEqualTo("Canon");
+        assertThat(header.capturedAt).isEqualTo("2023-01-02T03:04:05+01:00");
+    }
+
+    @Test
+    void readsPngDimensionsAndExif() {
+        byte[] tiff = Arrays.copyOfRange(app1Exif(3, "Apple"), 4 + 6, app1Exif(3, "Apple").length);
+
+        ImageHeader header = ImageHeaderParser.parse(png(chunk("IHDR", ihdr(1920, 1080)), chunk("eXIf", tiff)));
+
+        assertThat(header.width()).isEqualTo(1920);
+        assertThat(header.height()).isEqualTo(1080);
+        assertThat(header.orientation).isEqualTo(3);
+        assertThat(header.cameraMake).isEqualTo("Apple");
+    }
+
+    @Test
+    void asksForMoreBytesWhenASegmentRunsPastTheBuffer() {
+        byte[] data = jpeg(app1Exif(1, "Pixel"), sof(100, 100));
+
+        ImageHeader header = ImageHeaderParser.parse(Arrays.copyOf(data, 40));
+
+        assertThat(header.width()).isNull();
+        assertThat(header.neededBytes).isGreaterThan(40).isLessThanOrEqualTo(data.length);
+    }
+
+    /**
+     * An APP1 segment too short for the XMP identifier, followed by bytes that complete it.
+     */
+    @Test
+    void ignoresXmpIdentifierRunningPastItsSegment() {
+        byte[] id = bytes(XMP_ID);
+        byte[] shortSegment = segment(0xE1, Arrays.copyOf(id, 10));
+        byte[] rest = Arrays.copyOfRange(id, 10, id.length);
+
+        assertThatCode(() -> ImageHeaderParser.parse(concat(new byte[]{(byte) 0xFF, (byte) 0xD8}, shortSegment, rest)))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void stopsAtPngChunkLengthsThatOverflow() {
+        for (long length : new long[]{0x7FFFFFF8L, 0x80000000L, 0xFFFFFFFFL}) {
+            byte[] data = png(chunk("IHDR", ihdr(10, 10)), chunkHeader(length, "tEXt"), new byte[64]);
+
+            ImageHeader header = ImageHeaderParser.parse(data);
+
+            assertThat(header.width()).isEqualTo(10);
+            assertThat(header.neededBytes).isGreaterThanOrEqualTo(0);
+        }
+    }
+
+    @Test
+    void ignoresPngDimensionsBeyondIntRange() {
+        ByteBuffer ihdr = ByteBuffer.allocate(13).putInt(0xFFFFFFF0).putInt(10);
+
+        ImageHeader header = ImageHeaderParser.parse(png(chunk("IHDR", ihdr.array())));
+
+        assertThat(header.width()).isNull();
+    }
+
+    @Test
+    void stopsAtJpegSegmentLengthsBelowTwo() {
+        byte[] data = concat(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE1, 0, 0}, sof(10, 10));
+
+        assertThat(ImageHeaderParser.parse(data).width()).isNull();
+    }
+
+    @Test
+    void neverThrowsOnTruncatedHeaders() {
+        byte[] jpeg = jpeg(app1Exif(6, "Pixel"), segment(0xE1, bytes(XMP_ID + "<x tiff:Model=\"7\"/>")), sof(10, 10));
+        byte[] png = png(chunk("IHDR", ihdr(10, 10)), chunk("eXIf", Arrays.copyOfRange(app1Exif(6, "Pixel"), 10,
+                app1Exif(6, "Pixel").length)));
+
+        for (byte[] data : new byte[][]{jpeg, png}) {
+            for (int length = 0; length <= data.length; length++) {
+                byte[] truncated = Arrays.copyOf(data, length);
+                assertThatCode(() -> ImageHeaderParser.parse(truncated)).as("first %d bytes", length)
+                        .doesNotThrowAnyException();
+            }
+        }
+    }
+
+    @Test
+    void neverThrowsOnCorruptedHeaders() {
+        byte[] jpeg = jpeg(app1Exif(6, "Pixel"), segment(0xE1, bytes(XMP_ID + "<x tiff:Model=\"7\"/>")), sof(10, 10));
+        byte[] png = png(chunk("IHDR", ihdr(10, 10)), chunk("eXIf", Arrays.copyOfRange(app1Exif(6, "Pixel"), 10,
+                app1Exif(6, "Pixel").length)));
+        Random random = new Random(42);
+
+        for (byte[] data : new byte[][]{jpeg, png}) {
+            for (int i = 0; i < 20_000; i++) {
+                byte[] corrupted = data.clone();
+                for (int n = 1 + random.nextInt(4); n > 0; n--) {
+                    corrupted[2 + random.nextInt(corrupted.length - 2)] = (byte) random.nextInt(256);
+                }
+                assertThatCode(() -> ImageHeaderParser.parse(corrupted)).doesNotThrowAnyException();
+            }
+        }
+    }
+
+    // JPEG
+
+    private static byte[] jpeg(byte[]... segments) {
+        return concat(new byte[]{(byte) 0xFF, (byte) 0xD8}, concat(segments));
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        return concat(new byte[]{(byte) 0xFF, (byte) marker,
+                (byte) ((payload.length + 2) >> 8), (byte) (payload.length + 2)}, payload);
+    }
+
+    private static byte[] sof(int width, int height) {
+        return segment(0xC0, new byte[]{8, (byte) (height >> 8), (byte) height, (byte) (width >> 8), (byte) width,
+                3, 1, 0x22, 0, 2, 0x11, 1, 3, 0x11, 1});
+    }
+
+    /**
+     * Big-endian TIFF with IFD0 holding orientation, make and an EXIF IFD with the capture time.
+     */
+    private static byte[] app1Exif(int orientation, String make) {
+        byte[] makeValue = bytes(make + "\0");
+        byte[] dateValue = bytes("2024:07:14 18:03:27\0");
+        int ifd0 = 8;
+        int exifIfd = ifd0 + 2 + 3 * 12 + 4;
+        int makeOffset = exifIfd + 2 + 12 + 4;
+        int dateOffset = makeOffset + makeValue.length;
+
+        ByteBuffer tiff = ByteBuffer.allocate(dateOffset + dateValue.length).order(ByteOrder.BIG_ENDIAN);
+        tiff.put(bytes("MM")).putShort((short) 42).putInt(ifd0);
+        tiff.putShort((short) 3);
+        tiff.putShort((short) 0x010F).putShort((short) 2).putInt(makeValue.length).putInt(makeOffset);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putShort((short) 0x8769).putShort((short) 4).putInt(1).putInt(exifIfd);
+        tiff.putInt(0);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x9003).putShort((short) 2).putInt(dateValue.length).putInt(dateOffset);
+        tiff.putInt(0);
+        tiff.put(makeValue).put(dateValue);
+        return segment(0xE1, concat(bytes("Exif\0\0"), tiff.array()));
+    }
+
+    // PNG
+
+    private static byte[] png(byte[]... chunks) {
+        return concat(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}, concat(chunks));
+    }
+
+    private static byte[] chunk(String type, byte[] payload) {
+        return concat(chunkHeader(payload.length, type), payload, new byte[4]);
+    }
+
+    private static byte[] chunkHeader(long length, String type) {
+        return concat(ByteBuffer.allocate(4).putInt((int) length).array(), bytes(type));
+    }
+
+    private static byte[] ihdr(int width, int height) {
+        return ByteBuffer.allocate(13).putInt(width).putInt(height).put((byte) 8).put((byte) 2).array();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.infrastructure.media.MediaProbe.ByteSource;
+import com.familyvault.infrastructure.media.MediaProbe.MediaInfo;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaProbeTest {
+
+    private static final int HEAD_BYTES = 64;
+
+    @Test
+    void followsTopLevelBoxesToATrailingMoov() {
+        ByteBuffer file = ByteBuffer.allocate(16 + 4096 + 8 + 108);
+        file.put(0, box("ftyp", 16)).put(16, box("mdat", 4096)).position(16 + 4096);
+        file.putInt(8 + 108).put(ascii("moov")).putInt(108).put(ascii("mvhd"));
+        file.putInt(0).putInt(0).putInt(0).putInt(1000).putInt(5000);
+
+        MediaInfo info = probe(file.array(), file.capacity());
+
+        assertThat(info.durationSeconds()).isEqualTo(5.0);
+    }
+
+    @Test
+    void stopsAtBoxSizesPastTheEndOfTheFile() {
+        for (long size : new long[]{Long.MAX_VALUE, Long.MAX_VALUE - 8, 1L << 40}) {
+            ByteBuffer file = ByteBuffer.allocate(16 + 16 + 64);
+            file.put(0, box("ftyp", 16)).position(16);
+            file.putInt(1).put(ascii("mdat")).putLong(size);
+
+            assertThat(probe(file.array(), 10_000_000)).isEqualTo(MediaInfo.EMPTY);
+        }
+    }
+
+    private static MediaInfo probe(byte[] file, long fileSize) {
+        ByteSource source = (offset, length) -> {
+            assertThat(offset).isBetween(0L, fileSize);
+            return offset >= file.length ? new byte[0]
+                    : Arrays.copyOfRange(file, (int) offset, (int) Math.min(offset + length, file.length));
+        };
+        return MediaProbe.probe(source, Arrays.copyOf(file, Math.min(HEAD_BYTES, file.length)), fileSize, 1 << 20);
+    }
+
+    private static byte[] box(String type, int size) {
+        return ByteBuffer.allocate(8).putInt(size).put(ascii(type)).array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
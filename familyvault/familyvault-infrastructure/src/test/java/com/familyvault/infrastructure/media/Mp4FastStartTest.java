@@ -0,0 +1,174 @@
+package com.familyvault.infrastructure.media;
+
+import com.familyvault.infrastructure.media.MediaProbe.ByteSource;
+import com.familyvault.infrastructure.media.Mp4FastStart.Layout;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp4FastStartTest {
+
+    private static final byte[] FTYP = box("ftyp", ascii("isom"), new byte[4]);
+    private static final int MEDIA_BYTES = 1000;
+
+    @Test
+    void findsTrailingMoov() {
+        byte[] moov = moov(stco(24));
+        byte[] file = concat(FTYP, mdat(MEDIA_BYTES), moov);
+
+        Layout layout = Mp4FastStart.scan(source(file), file.length);
+
+        assertThat(layout).isEqualTo(new Layout(16, 16 + 8 + MEDIA_BYTES, moov.length, file.length, true));
+    }
+
+    @Test
+    void leavesFastStartFilesAlone() {
+        byte[] file = concat(FTYP, moov(stco(100)), mdat(MEDIA_BYTES));
+
+        assertThat(Mp4FastStart.scan(source(file), file.length).needsRelocation()).isFalse();
+    }
+
+    @Test
+    void stopsAtBoxSizesPastTheEndOfTheFile() {
+        for (long size : new long[]{Long.MAX_VALUE, Long.MAX_VALUE - 8, 1L << 40}) {
+            byte[] file = concat(FTYP, ByteBuffer.allocate(16).putInt(1).put(ascii("mdat")).putLong(size).array(),
+                    moov(stco(24)));
+
+            assertThat(Mp4FastStart.scan(source(file), 10_000_000)).isNull();
+        }
+    }
+
+    /**
+     * Offsets into the media data in front of the moov move back by its size, those into
+     * data behind it stay; each still points at the same bytes in the relocated file.
+     */
+    @Test
+    void relocatedOffsetsPointAtTheSameMediaData() {
+        long mediaStart = FTYP.length + 8;
+        int moovSize = moov(stco(0, 0, 0, 0), co64(0, 0)).length;
+        long tailStart = mediaStart + MEDIA_BYTES + moovSize + 8;
+        long[] chunks32 = {mediaStart, mediaStart + 500, mediaStart + MEDIA_BYTES - 1, tailStart + 10};
+        long[] chunks64 = {mediaStart + 30, tailStart};
+        byte[] original = concat(FTYP, mdat(MEDIA_BYTES), moov(stco(chunks32), co64(chunks64)), mdat(100));
+
+        Layout layout = Mp4FastStart.scan(source(original), original.length);
+        byte[] moov = Arrays.copyOfRange(original, (int) layout.moovOffset(), (int) (layout.moovOffset() + moovSize));
+        byte[] relocated = relocatedFile(original, layout, Mp4FastStart.relocate(moov, layout));
+
+        assertThat(relocated).hasSameSizeAs(original);
+        List<Long> newOffsets = offsets(relocated, "stco", 4);
+        newOffsets.addAll(offsets(relocated, "co64", 8));
+        List<Long> oldOffsets = offsets(original, "stco", 4);
+        oldOffsets.addAll(offsets(original, "co64", 8));
+        assertThat(newOffsets).hasSize(6);
+        for (int i = 0; i < oldOffsets.size(); i++) {
+            long before = oldOffsets.get(i);
+            long after = newOffsets.get(i);
+            assertThat(after).isEqualTo(before < layout.moovOffset() ? before + moovSize : before);
+            assertThat(relocated[(int) after]).as("chunk %d", i).isEqualTo(original[(int) before]);
+        }
+    }
+
+    @Test
+    void refusesOffsetsThatNoLongerFitIn32Bits() {
+        Layout layout = new Layout(16, 0xFFFFFF00L, 0x1000, 0x100000000L, true);
+
+        assertThat(Mp4FastStart.relocate(moov(stco(0xFFFFFE00L)), layout)).isNull();
+        assertThat(Mp4FastStart.relocate(moov(co64(0xFFFFFE00L)), layout)).isNotNull();
+    }
+
+    @Test
+    void refusesFragmentedMovies() {
+        byte[] moov = box("moov", box("trak", box("mdia", box("minf", box("stbl", stco(24))))), box("mvex"));
+
+        assertThat(Mp4FastStart.relocate(moov, new Layout(16, 2000, moov.length, 3000, true))).isNull();
+    }
+
+    private static byte[] relocatedFile(byte[] original, Layout layout, byte[] moov) {
+        int insertAt = (int) layout.insertAt();
+        int moovOffset = (int) layout.moovOffset();
+        return concat(Arrays.copyOfRange(original, 0, insertAt), moov,
+                Arrays.copyOfRange(original, insertAt, moovOffset),
+                Arrays.copyOfRange(original, moovOffset + moov.length, original.length));
+    }
+
+    private static List<Long> offsets(byte[] file, String type, int entrySize) {
+        int at = indexOf(file, ascii(type)) + 4;
+        ByteBuffer table = ByteBuffer.wrap(file, at + 4, file.length - at - 4);
+        int count = table.getInt();
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            offsets.add(entrySize == 8 ? table.getLong() : table.getInt() & 0xFFFFFFFFL);
+        }
+        return offsets;
+    }
+
+    private static int indexOf(byte[] data, byte[] value) {
+        for (int i = 0; i + value.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + value.length, value, 0, value.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No " + new String(value, StandardCharsets.ISO_8859_1));
+    }
+
+    private static ByteSource source(byte[] file) {
+        return (offset, length) -> offset >= file.length ? new byte[0]
+                : Arrays.copyOfRange(file, (int) offset, (int) Math.min(offset + length, file.length));
+    }
+
+    private static byte[] moov(byte[]... tables) {
+        byte[][] traks = Arrays.stream(tables)
+                .map(table -> box("trak", box("mdia", box("minf", box("stbl", table)))))
+                .toArray(byte[][]::new);
+        return box("moov", traks);
+    }
+
+    private static byte[] stco(long... offsets) {
+        ByteBuffer payload = ByteBuffer.allocate(8 + offsets.length * 4).putInt(0).putInt(offsets.length);
+        for (long offset : offsets) {
+            payload.putInt((int) offset);
+        }
+        return box("stco", payload.array());
+    }
+
+    private static byte[] co64(long... offsets) {
+        ByteBuffer payload = ByteBuffer.allocate(8 + offsets.length * 8).putInt(0).putInt(offsets.length);
+        for (long offset : offsets) {
+            payload.putLong(offset);
+        }
+        return box("co64", payload.array());
+    }
+
+    private static byte[] mdat(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 7 + 1);
+        }
+        return box("mdat", data);
+    }
+
+    private static byte[] box(String type, byte[]... children) {
+        byte[] payload = concat(children);
+        return concat(ByteBuffer.allocate(4).putInt(8 + payload.length).array(), ascii(type), payload);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
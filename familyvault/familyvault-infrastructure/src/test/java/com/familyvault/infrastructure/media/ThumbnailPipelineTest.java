@@ -0,0 +1,70 @@
+package com.familyvault.infrastructure.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailPipelineTest {
+
+    /**
+     * A 3×2 image turned upright: where its first two pixels end up, as the EXIF
+     * specification places row 0 and column 0 for each orientation.
+     */
+    @ParameterizedTest(name = "orientation {0}")
+    @CsvSource({
+            // orientation, width, height, first pixel x, y, second pixel x, y
+            "2, 3, 2, 2, 0, 1, 0",
+            "3, 3, 2, 2, 1, 1, 1",
+            "4, 3, 2, 0, 1, 1, 1",
+            "5, 2, 3, 0, 0, 0, 1",
+            "6, 2, 3, 1, 0, 1, 1",
+            "7, 2, 3, 1, 2, 1, 1",
+            "8, 2, 3, 0, 2, 0, 1"
+    })
+    void orientsStoredPixels(int orientation, int width, int height, int x0, int y0, int x1, int y1) {
+        BufferedImage oriented = ThumbnailPipeline.orient(storedImage(), orientation);
+
+        assertThat(oriented.getWidth()).isEqualTo(width);
+        assertThat(oriented.getHeight()).isEqualTo(height);
+        assertThat(oriented.getRGB(x0, y0) & 0xFFFFFF).isEqualTo(pixel(0, 0));
+        assertThat(oriented.getRGB(x1, y1) & 0xFFFFFF).isEqualTo(pixel(1, 0));
+    }
+
+    @Test
+    void keepsUprightImages() {
+        BufferedImage image = storedImage();
+
+        assertThat(ThumbnailPipeline.orient(image, 1)).isSameAs(image);
+        assertThat(ThumbnailPipeline.orient(image, 9)).isSameAs(image);
+    }
+
+    @Test
+    void movesEveryPixel() {
+        BufferedImage oriented = ThumbnailPipeline.orient(storedImage(), 6);
+
+        // Rotated clockwise, the left column of the stored image is the top row
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 2; y++) {
+                assertThat(oriented.getRGB(1 - y, x) & 0xFFFFFF).isEqualTo(pixel(x, y));
+            }
+        }
+    }
+
+    private static BufferedImage storedImage() {
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 2; y++) {
+                image.setRGB(x, y, pixel(x, y));
+            }
+        }
+        return image;
+    }
+
+    private static int pixel(int x, int y) {
+        return 0x204060 + x * 0x300000 + y * 0x003000;
+    }
+}
@@ -0,0 +1,126 @@
+package com.familyvault.infrastructure.persistence.adapter;
+
+import com.familyvault.core.domain.model.family.FamilyId;
+import com.familyvault.core.domain.model.file.FileId;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quota reservations from many concurrent uploads against a real PostgreSQL: a reservation
+ * when the upload starts, then its confirmation or release. With one family every statement
+ * queues on the same {@code families} row, which is the worst case for a family uploading
+ * a whole album at once; with many families the row locks no longer collide.
+ * <p>
+ * Needs Docker for the database container:
+ * <pre>
+ * mvn -pl familyvault-infrastructure test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="StorageQuotaBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class StorageQuotaBenchmark {
+
+    /**
+     * Just the columns the adapter touches; the real tables come from the Flyway migrations
+     * in familyvault-api.
+     */
+    private static final String SCHEMA_SQL = """
+            CREATE TABLE families (
+                id                     UUID PRIMARY KEY,
+                storage_limit_bytes    BIGINT NOT NULL,
+                storage_used_bytes     BIGINT NOT NULL DEFAULT 0,
+                storage_reserved_bytes BIGINT NOT NULL DEFAULT 0,
+                deleted_at             TIMESTAMP
+            );
+            CREATE TABLE storage_reservations (
+                file_id    UUID PRIMARY KEY,
+                family_id  UUID NOT NULL REFERENCES families(id) ON DELETE CASCADE,
+                bytes      BIGINT NOT NULL,
+                expires_at TIMESTAMP NOT NULL,
+                created_at TIMESTAMP NOT NULL DEFAULT NOW()
+            );
+            CREATE INDEX idx_storage_reservations_expires ON storage_reservations(expires_at);
+            """;
+
+    private static final long FILE_BYTES = 4L << 20;
+
+    @Param({"1", "64"})
+    public int families;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private StorageQuotaRepositoryAdapter adapter;
+    private FamilyId[] familyIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(32);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(SCHEMA_SQL);
+        familyIds = new FamilyId[families];
+        for (int i = 0; i < families; i++) {
+            familyIds[i] = FamilyId.of(UUID.randomUUID());
+            jdbcTemplate.update("INSERT INTO families (id, storage_limit_bytes) VALUES (?, ?)",
+                    familyIds[i].value(), Long.MAX_VALUE / 2);
+        }
+        adapter = new StorageQuotaRepositoryAdapter(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public boolean reserveThenCommit() {
+        FamilyId familyId = familyIds[ThreadLocalRandom.current().nextInt(families)];
+        FileId fileId = FileId.generate();
+        adapter.reserve(familyId, fileId, FILE_BYTES, Instant.now().plus(1, ChronoUnit.HOURS));
+        return adapter.commitReservation(fileId);
+    }
+
+    @Benchmark
+    public boolean reserveThenRelease() {
+        FamilyId familyId = familyIds[ThreadLocalRandom.current().nextInt(families)];
+        FileId fileId = FileId.generate();
+        boolean reserved = adapter.reserve(familyId, fileId, FILE_BYTES, Instant.now().plus(1, ChronoUnit.HOURS));
+        adapter.releaseReservation(fileId);
+        return reserved;
+    }
+}
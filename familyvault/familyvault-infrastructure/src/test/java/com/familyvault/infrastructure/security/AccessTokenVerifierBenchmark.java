@@ -0,0 +1,93 @@
+package com.familyvault.infrastructure.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token verification: the fast path against jjwt, both with a parser built per call
+ * (what {@code JwtTokenProvider} used to do) and with a shared one.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per verification:
+ * <pre>
+ * mvn -pl familyvault-infrastructure test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="AccessTokenVerifierBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokenVerifierBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123";
+
+    private SecretKey secretKey;
+    private JwtParser sharedParser;
+    private AccessTokenVerifier verifier;
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        sharedParser = Jwts.parser().verifyWith(secretKey).build();
+        SigningKeySet noKeys = SigningKeySet.from(new JwtSigningProperties(null, Map.of()));
+        verifier = new AccessTokenVerifier(secretKey, noKeys);
+        provider = new JwtTokenProvider(SECRET, Duration.ofMinutes(15), Duration.ofDays(7), true, 20,
+                null, null, noKeys);
+
+        token = Jwts.builder()
+                .subject("8c5f3c1e-2a8b-4f7e-9a63-0b1d2e3f4a5b")
+                .claim("email", "someone@example.com")
+                .claim("type", "access")
+                .claim(MembershipClaimsCodec.FAMILIES_CLAIM, List.of(
+                        "2f0c5a8e-6a43-4c1e-8d0b-5a1f6e2c9d34:ADMIN", "9b7e1d2c-3f4a-4b5c-8d6e-7f8091a2b3c4:MEMBER"))
+                .claim(MembershipClaimsCodec.EPOCH_CLAIM, 3L)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims jjwtParserPerCall() {
+        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims jjwtSharedParser() {
+        return sharedParser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public AccessTokenVerifier.VerifiedClaims fastPath() {
+        return verifier.verify(token, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Object providerParseAccessToken() {
+        return provider.parseAccessToken(token);
+    }
+}
@@ -0,0 +1,308 @@
+package com.familyvault.infrastructure.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.familyvault.infrastructure.security.AccessTokenVerifier.ClaimsScanner;
+import com.familyvault.infrastructure.security.AccessTokenVerifier.VerifiedClaims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class AccessTokenVerifierTest {
+
+    private static final SecretKey SECRET = Keys.hmacShaKeyFor(
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final AccessTokenVerifier verifier = new AccessTokenVerifier(
+            SECRET, SigningKeySet.from(new JwtSigningProperties(null, Map.of())));
+
+    @Nested
+    class Verify {
+
+        @Test
+        void acceptsTokenSignedWithConfiguredKey() {
+            String token = token(new Date(NOW + 60_000));
+
+            VerifiedClaims claims = verifier.verify(token, NOW);
+
+            assertThat(claims).isNotNull();
+            assertThat(claims.subject()).isEqualTo("8c5f3c1e-2a8b-4f7e-9a63-0b1d2e3f4a5b");
+            assertThat(claims.accessType()).isTrue();
+            assertThat(claims.families()).containsExactly("f1:ADMIN", "f2:MEMBER");
+            assertThat(claims.membershipEpoch()).isEqualTo(7L);
+        }
+
+        @Test
+        void rejectsExpiredToken() {
+            assertThat(verifier.verify(token(new Date(NOW - 1000)), NOW)).isNull();
+        }
+
+        @Test
+        void rejectsTokenNotYetValid() {
+            String token = Jwts.builder()
+                    .subject("user")
+                    .notBefore(new Date(NOW + 60_000))
+                    .expiration(new Date(NOW + 120_000))
+                    .signWith(SECRET)
+                    .compact();
+
+            assertThat(verifier.verify(token, NOW)).isNull();
+        }
+
+        @Test
+        void rejectsTamperedPayload() {
+            String token = token(new Date(NOW + 60_000));
+            String[] parts = token.split("\\.");
+            String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                            .replace("8c5f3c1e", "00000000")
+                            .getBytes(StandardCharsets.UTF_8));
+
+            assertThat(verifier.verify(parts[0] + "." + forged + "." + parts[2], NOW)).isNull();
+        }
+
+        @Test
+        void rejectsTokenSignedWithOtherKey() {
+            SecretKey other = Keys.hmacShaKeyFor("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+            String token = Jwts.builder().subject("user").expiration(new Date(NOW + 60_000)).signWith(other).compact();
+
+            // Same header, so the fast path is taken and must fail on the signature
+            assertThat(verifier.supports(token)).isTrue();
+            assertThat(verifier.verify(token, NOW)).isNull();
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", ".", "abc", "eyJhbGciOiJIUzI1NiJ9", "eyJhbGciOiJIUzI1NiJ9..", "eyJhbGciOiJIUzI1NiJ9.e30.e30.e30",
+                "eyJhbGciOiJIUzI1NiJ9.!!!.sig"})
+        void rejectsMalformedTokens(String token) {
+            assertThatCode(() -> assertThat(verifier.verify(token, NOW)).isNull()).doesNotThrowAnyException();
+        }
+
+        private String token(Date expiration) {
+            return Jwts.builder()
+                    .subject("8c5f3c1e-2a8b-4f7e-9a63-0b1d2e3f4a5b")
+                    .claim("email", "someone@example.com")
+                    .claim("type", "access")
+                    .claim(MembershipClaimsCodec.FAMILIES_CLAIM, List.of("f1:ADMIN", "f2:MEMBER"))
+                    .claim(MembershipClaimsCodec.EPOCH_CLAIM, 7L)
+                    .issuedAt(new Date(NOW))
+                    .expiration(expiration)
+                    .signWith(SECRET)
+                    .compact();
+        }
+    }
+
+    @Nested
+    class KeyIds {
+
+        private final KeyPair ecKeys = generate("EC");
+        private final KeyPair edKeys = generate("Ed25519");
+        private final KeyPair retiredKeys = generate("EC");
+
+        private final AccessTokenVerifier verifier = new AccessTokenVerifier(null, SigningKeySet.from(
+                new JwtSigningProperties("es-1", Map.of(
+                        "es-1", key("ES256", ecKeys, true),
+                        "ed-1", key("EdDSA", edKeys, true),
+                        "es-0", key("ES256", retiredKeys, false)))));
+
+        @Test
+        void verifiesTokensOfEveryKeyWeSignWith() {
+            String es = Jwts.builder().header().keyId("es-1").and()
+                    .subject("user").expiration(new Date(NOW + 60_000)).signWith(ecKeys.getPrivate()).compact();
+            String ed = Jwts.builder().header().keyId("ed-1").and()
+                    .subject("user").expiration(new Date(NOW + 60_000)).signWith(edKeys.getPrivate()).compact();
+
+            assertThat(verifier.verify(es, NOW)).extracting(VerifiedClaims::subject).isEqualTo("user");
+            assertThat(verifier.verify(ed, NOW)).extracting(VerifiedClaims::subject).isEqualTo("user");
+        }
+
+        @Test
+        void learnsHeadersOfVerificationOnlyKeys() {
+            String token = Jwts.builder().header().keyId("es-0").and()
+                    .subject("user").expiration(new Date(NOW + 60_000)).signWith(retiredKeys.getPrivate()).compact();
+            assertThat(verifier.supports(token)).isFalse();
+
+            verifier.learn(token, "es-0");
+
+            assertThat(verifier.supports(token)).isTrue();
+            assertThat(verifier.verify(token, NOW)).isNotNull();
+        }
+
+        @Test
+        void doesNotLearnUnknownKeyIds() {
+            String token = Jwts.builder().header().keyId("other").and()
+                    .subject("user").signWith(generate("EC").getPrivate()).compact();
+
+            verifier.learn(token, "other");
+
+            assertThat(verifier.supports(token)).isFalse();
+        }
+
+        @Test
+        void rejectsTokenWhoseKeyIdPointsToAnotherKey() {
+            String forged = Jwts.builder().header().keyId("es-1").and()
+                    .subject("user").expiration(new Date(NOW + 60_000)).signWith(retiredKeys.getPrivate()).compact();
+
+            assertThat(verifier.verify(forged, NOW)).isNull();
+        }
+
+        @Test
+        void matchesOnlyTheWholeHeaderSegment() {
+            String token = Jwts.builder().header().keyId("es-1").and()
+                    .subject("user").expiration(new Date(NOW + 60_000)).signWith(ecKeys.getPrivate()).compact();
+            String header = token.substring(0, token.indexOf('.'));
+
+            assertThat(verifier.supports(header)).isFalse();
+            assertThat(verifier.supports(header.substring(0, header.length() - 1) + token.substring(header.length())))
+                    .isFalse();
+            assertThat(verifier.supports(header + "x" + token.substring(header.length()))).isFalse();
+        }
+
+        private static KeyPair generate(String algorithm) {
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+                if (algorithm.equals("EC")) {
+                    generator.initialize(new ECGenParameterSpec("secp256r1"));
+                }
+                return generator.generateKeyPair();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static JwtSigningProperties.Key key(String algorithm, KeyPair keys, boolean withPrivateKey) {
+            Base64.Encoder base64 = Base64.getEncoder();
+            return new JwtSigningProperties.Key(algorithm,
+                    base64.encodeToString(keys.getPublic().getEncoded()),
+                    withPrivateKey ? base64.encodeToString(keys.getPrivate().getEncoded()) : null);
+        }
+    }
+
+    @Nested
+    class Scanner {
+
+        @Test
+        void readsClaimsAndSkipsTheRest() {
+            VerifiedClaims claims = scan("""
+                    { "iss" : "familyvault", "ctx": {"sub": "nested", "list": [1, {"sub": "deeper"}, "]}"]},
+                      "sub":"user-1",
+                      "type":"access", "exp":1700000000, "nbf": 1600000000, "admin": true, "ratio": -1.5e3,
+                      "fam": ["a:ADMIN", "b:MEMBER"], "mev": 42, "empty": [] }
+                    """);
+
+            assertThat(claims).isEqualTo(new VerifiedClaims(
+                    "user-1", true, 1700000000L, 1600000000L, List.of("a:ADMIN", "b:MEMBER"), 42L));
+        }
+
+        @Test
+        void decodesUnescapedUnicode() {
+            VerifiedClaims claims = scan("{\"sub\":\"Zoë 👪 家族\",\"exp\":1}");
+
+            assertThat(claims.subject()).isEqualTo("Zoë 👪 家族");
+        }
+
+        @Test
+        void skipsEscapesInIgnoredValues() {
+            VerifiedClaims claims = scan("{\"email\":\"a\\\"},\\\\\",\"note\":\"\\u0022sub\\u0022\",\"sub\":\"user\",\"exp\":1}");
+
+            assertThat(claims.subject()).isEqualTo("user");
+        }
+
+        @Test
+        void leavesEscapedClaimsToTheFullParser() {
+            assertThat(scan("{\"sub\":\"us\\u0065r\",\"exp\":1}")).isNull();
+            assertThat(scan("{\"exp\":1,\"fam\":[\"a\\\"b\"]}")).isNull();
+        }
+
+        @Test
+        void doesNotMatchEscapedClaimNames() {
+            VerifiedClaims claims = scan("{\"s\\u0075b\":\"user\",\"exp\":1}");
+
+            assertThat(claims.subject()).isNull();
+        }
+
+        @Test
+        void takesTheLastOfDuplicateClaimsLikeJackson() throws Exception {
+            String json = "{\"sub\":\"first\",\"type\":\"access\",\"sub\":\"second\",\"type\":\"refresh\",\"exp\":1}";
+
+            Map<?, ?> parsed = new ObjectMapper().readValue(json, Map.class);
+            VerifiedClaims claims = scan(json);
+
+            assertThat(claims.subject()).isEqualTo(parsed.get("sub")).isEqualTo("second");
+            assertThat(claims.accessType()).isFalse();
+        }
+
+        @Test
+        void requiresTypeToBeExactlyAccess() {
+            assertThat(scan("{\"type\":\"accessible\"}").accessType()).isFalse();
+            assertThat(scan("{\"type\":\"acces\"}").accessType()).isFalse();
+            assertThat(scan("{\"type\":\"access\"}").accessType()).isTrue();
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "", " ", "{}", "[]", "null", "\"sub\"", "{", "}",
+                "{\"sub\"}", "{\"sub\":}", "{\"sub\":\"a\"", "{\"sub\":\"a", "{\"sub\":\"a\",}", "{\"sub\" \"a\"}",
+                "{\"sub\":\"a\"} trailing", "{\"sub\":\"a\"}{}", "{sub:\"a\"}", "{\"sub\":null}", "{\"sub\":1}",
+                "{\"exp\":}", "{\"exp\":-}", "{\"exp\":1.5}", "{\"exp\":1e9}", "{\"exp\":\"1\"}",
+                "{\"exp\":99999999999999999999}", "{\"exp\":9223372036854775808}",
+                "{\"fam\":\"a\"}", "{\"fam\":[\"a\"}", "{\"fam\":[\"a\",]}", "{\"fam\":[1]}",
+                "{\"x\":[1,2}", "{\"x\":{\"y\":1}", "{\"x\":,\"sub\":\"a\"}", "{\"type\":access}"
+        })
+        void rejectsMalformedJson(String json) {
+            assertThat(scan(json)).isNull();
+        }
+
+        @Test
+        void readsLargestEpochSeconds() {
+            assertThat(scan("{\"exp\":9223372036854775807}").expiresAtEpochSeconds()).isEqualTo(Long.MAX_VALUE);
+            assertThat(scan("{\"exp\":-5}").expiresAtEpochSeconds()).isEqualTo(-5L);
+        }
+
+        @Test
+        void rejectsEveryTruncationOfAValidPayload() {
+            byte[] json = "{\"sub\":\"user\",\"ctx\":{\"a\":[1,\"}\"]},\"type\":\"access\",\"exp\":1700000000,\"fam\":[\"a:ADMIN\"]}"
+                    .getBytes(StandardCharsets.UTF_8);
+            assertThat(ClaimsScanner.scan(json)).isNotNull();
+
+            for (int length = 0; length < json.length; length++) {
+                assertThat(ClaimsScanner.scan(Arrays.copyOf(json, length))).as("prefix of %d bytes", length).isNull();
+            }
+        }
+
+        @Test
+        void neverThrowsOnArbitraryBytes() {
+            byte[] alphabet = "{}[]\":,\\ \t-0123456789.eEsubtypexpfamv".getBytes(StandardCharsets.US_ASCII);
+            Random random = new Random(42);
+            for (int i = 0; i < 100_000; i++) {
+                byte[] json = new byte[random.nextInt(48)];
+                for (int j = 0; j < json.length; j++) {
+                    json[j] = random.nextInt(8) == 0 ? (byte) random.nextInt(256) : alphabet[random.nextInt(alphabet.length)];
+                }
+                assertThatCode(() -> ClaimsScanner.scan(json)).doesNotThrowAnyException();
+            }
+        }
+
+        private VerifiedClaims scan(String json) {
+            return ClaimsScanner.scan(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
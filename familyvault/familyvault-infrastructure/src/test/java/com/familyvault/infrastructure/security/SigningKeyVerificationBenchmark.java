@@ -0,0 +1,120 @@
+package com.familyvault.infrastructure.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of kid-keyed tokens: the header lookup in {@link AccessTokenVerifier} against a jjwt
+ * parser resolving the key through a locator, per signing algorithm.
+ * <p>
+ * The signature check dominates for ES256 and EdDSA; the interesting number is the allocation
+ * per verification with {@code -prof gc}:
+ * <pre>
+ * mvn -pl familyvault-infrastructure test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="SigningKeyVerificationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningKeyVerificationBenchmark {
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private AccessTokenVerifier verifier;
+    private JwtParser locatorParser;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        SecretKey secretKey = Keys.hmacShaKeyFor(
+                "benchmark-secret-benchmark-secret-0123".getBytes(StandardCharsets.UTF_8));
+        KeyPair ecKeys = generate("EC");
+        KeyPair edKeys = generate("Ed25519");
+        SigningKeySet keySet = SigningKeySet.from(new JwtSigningProperties("es-1", Map.of(
+                "es-1", key("ES256", ecKeys),
+                "ed-1", key("EdDSA", edKeys))));
+        verifier = new AccessTokenVerifier(secretKey, keySet);
+
+        Map<String, Key> keysById = Map.of("es-1", ecKeys.getPublic(), "ed-1", edKeys.getPublic());
+        locatorParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return header.getKeyId() == null ? secretKey : keysById.get(header.getKeyId());
+                    }
+                })
+                .build();
+
+        var builder = Jwts.builder()
+                .subject("8c5f3c1e-2a8b-4f7e-9a63-0b1d2e3f4a5b")
+                .claim("email", "someone@example.com")
+                .claim("type", "access")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+        token = switch (algorithm) {
+            case "HS256" -> builder.signWith(secretKey).compact();
+            case "ES256" -> builder.header().keyId("es-1").and().signWith(ecKeys.getPrivate()).compact();
+            case "EdDSA" -> builder.header().keyId("ed-1").and().signWith(edKeys.getPrivate()).compact();
+            default -> throw new IllegalArgumentException(algorithm);
+        };
+        if (verifier.verify(token, System.currentTimeMillis()) == null) {
+            throw new IllegalStateException("Fast path rejected the " + algorithm + " token");
+        }
+    }
+
+    @Benchmark
+    public AccessTokenVerifier.VerifiedClaims fastPath() {
+        return verifier.verify(token, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Claims jjwtKeyLocator() {
+        return locatorParser.parseSignedClaims(token).getPayload();
+    }
+
+    private static KeyPair generate(String algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if (algorithm.equals("EC")) {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        }
+        return generator.generateKeyPair();
+    }
+
+    private static JwtSigningProperties.Key key(String algorithm, KeyPair keys) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        return new JwtSigningProperties.Key(algorithm,
+                base64.encodeToString(keys.getPublic().getEncoded()),
+                base64.encodeToString(keys.getPrivate().getEncoded()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.familyvault.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link S3StorageAdapter#findExisting} against a bucket held in memory, with the listing and
+ * HEAD semantics of S3.
+ */
+class S3StorageAdapterTest {
+
+    private static final int LIST_THRESHOLD = 50;
+    private static final String FAMILY_A = "families/2f0c5a8e-6a43-4c1e-8d0b-5a1f6e2c9d34/files/";
+    private static final String FAMILY_B = "families/9b7e1d2c-3f4a-4b5c-8d6e-7f8091a2b3c4/files/";
+
+    private final S3Client s3Client = mock(S3Client.class);
+    private final S3StorageAdapter adapter = new S3StorageAdapter(s3Client,
+            new SigV4QueryPresigner(URI.create("http://localhost:9000"), "us-east-1", "key", "secret", "bucket"),
+            "bucket", LIST_THRESHOLD);
+
+    private final NavigableSet<String> bucket = new TreeSet<>();
+    private final List<String> listedPrefixes = new ArrayList<>();
+    private final AtomicInteger heads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(call -> list(call.getArgument(0)));
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenAnswer(call -> {
+            heads.incrementAndGet();
+            if (!bucket.contains(call.<HeadObjectRequest>getArgument(0).key())) {
+                throw NoSuchKeyException.builder().message("Not found").build();
+            }
+            return HeadObjectResponse.builder().build();
+        });
+    }
+
+    @Test
+    void listsEachFamilyDirectorySeparately() {
+        List<String> requested = new ArrayList<>();
+        requested.addAll(upload(FAMILY_A, 1_718_000_000_000L, 80));
+        requested.addAll(upload(FAMILY_B, 1_718_000_000_000L, 60));
+        requested.add(FAMILY_A + "1718000009999_missing.jpg");
+
+        Set<String> existing = adapter.findExisting(requested);
+
+        assertThat(existing).hasSize(140).doesNotContain(FAMILY_A + "1718000009999_missing.jpg");
+        assertThat(listedPrefixes).isNotEmpty()
+                .allMatch(prefix -> prefix.startsWith(FAMILY_A) || prefix.startsWith(FAMILY_B));
+        assertThat(heads).hasValue(0);
+    }
+
+    @Test
+    void checksKeysBeyondABoundedListingOneByOne() {
+        // One old upload confirmed with new ones; tens of thousands of objects lie between them
+        List<String> requested = new ArrayList<>(upload(FAMILY_A, 1_600_000_000_000L, 1));
+        upload(FAMILY_A, 1_650_000_000_000L, 30_000);
+        List<String> recent = upload(FAMILY_A, 1_718_000_000_000L, 60);
+        requested.addAll(recent);
+        requested.add(FAMILY_A + "1718000009999_missing.jpg");
+
+        Set<String> existing = adapter.findExisting(requested);
+
+        assertThat(existing).hasSize(61).containsAll(recent);
+        assertThat(listedPrefixes).hasSize(2);
+        assertThat(heads).hasValue(61);
+    }
+
+    @Test
+    void headsKeysOfSmallDirectories() {
+        List<String> requested = new ArrayList<>();
+        requested.addAll(upload(FAMILY_A, 1_718_000_000_000L, 30));
+        requested.addAll(upload(FAMILY_B, 1_718_000_000_000L, 30));
+        requested.add(FAMILY_B + "1718000009999_missing.jpg");
+
+        Set<String> existing = adapter.findExisting(requested);
+
+        assertThat(existing).hasSize(60);
+        assertThat(listedPrefixes).isEmpty();
+        assertThat(heads).hasValue(61);
+    }
+
+    private List<String> upload(String directory, long firstTimestamp, int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String key = directory + (firstTimestamp + i) + "_ab12cd34_IMG_" + i + ".jpg";
+            bucket.add(key);
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private ListObjectsV2Response list(ListObjectsV2Request request) {
+        listedPrefixes.add(request.prefix());
+        String after = request.continuationToken() != null ? request.continuationToken() : request.startAfter();
+        List<S3Object> page = new ArrayList<>();
+        String lastKey = null;
+        for (String key : after != null ? bucket.tailSet(after, false) : bucket) {
+            if (!key.startsWith(request.prefix())) {
+                if (key.compareTo(request.prefix()) > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (page.size() == request.maxKeys()) {
+                return ListObjectsV2Response.builder().contents(page).isTruncated(true)
+                        .nextContinuationToken(lastKey).build();
+            }
+            page.add(S3Object.builder().key(key).build());
+            lastKey = key;
+        }
+        return ListObjectsV2Response.builder().contents(page).isTruncated(false).build();
+    }
+}